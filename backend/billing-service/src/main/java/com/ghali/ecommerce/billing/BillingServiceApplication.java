@@ -3,6 +3,7 @@ package com.ghali.ecommerce.billing;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Service de Facturation et Paiements
@@ -10,6 +11,7 @@ import org.springframework.kafka.annotation.EnableKafka;
  */
 @SpringBootApplication
 @EnableKafka
+@EnableScheduling
 public class BillingServiceApplication {
 
     public static void main(String[] args) {
@@ -1,5 +1,9 @@
 package com.ghali.ecommerce.billing.config;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.kafka.KafkaEventDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +13,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -27,25 +32,75 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${billing.kafka.listener-concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${billing.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${billing.revenue.consumer-group-id:billing-revenue-${HOSTNAME:local}}")
+    private String revenueGroupId;
+
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, KafkaEvent<OrderDTO>> consumerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.ghali.ecommerce.common.dto.KafkaEvent");
-        
-        return new DefaultKafkaConsumerFactory<>(config);
+        // Taille maximale d'un lot reçu par le listener
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        // Payload typé en OrderDTO ; un message illisible arrive à null au lieu de bloquer le lot
+        JsonDeserializer<KafkaEvent<OrderDTO>> valueDeserializer =
+                new JsonDeserializer<>(new TypeReference<KafkaEvent<OrderDTO>>() {
+                }, false);
+        valueDeserializer.addTrustedPackages("*");
+
+        // Événements binaires (en-tête ecommerce-encoding) ou JSON selon le producer
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new KafkaEventDeserializer<>(valueDeserializer)));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = 
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Un thread par partition : les numéros de facture sont alloués sans verrou
+        factory.setConcurrency(listenerConcurrency);
+        // Listener par lot : une transaction et un INSERT en lot par poll
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * Lecture de billing-events pour les agrégats de chiffre d'affaires : groupe propre
+     * à chaque instance (toutes lisent tous les événements), stable d'un redémarrage à
+     * l'autre (pas de nouveau groupe à chaque démarrage) ; sans offset commité, lecture
+     * à partir des nouveaux messages, la fenêtre étant chargée depuis la base au démarrage
+     */
+    @Bean
+    public ConsumerFactory<String, KafkaEvent<Map<String, Object>>> revenueConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, revenueGroupId);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        JsonDeserializer<KafkaEvent<Map<String, Object>>> valueDeserializer =
+                new JsonDeserializer<>(new TypeReference<KafkaEvent<Map<String, Object>>>() {
+                }, false);
+        valueDeserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new KafkaEventDeserializer<>(valueDeserializer)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<Map<String, Object>>> revenueListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<Map<String, Object>>> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(revenueConsumerFactory());
+        factory.setBatchListener(true);
         return factory;
     }
 }
@@ -1,7 +1,10 @@
 package com.ghali.ecommerce.billing.controller;
 
 import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.billing.repository.InvoiceRepository;
 import com.ghali.ecommerce.billing.service.InvoiceService;
+import com.ghali.ecommerce.billing.service.InvoiceSummaryBackfill;
+import com.ghali.ecommerce.common.dto.RevenueBucketDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,6 +30,7 @@ import java.util.List;
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final InvoiceSummaryBackfill invoiceSummaryBackfill;
 
     @GetMapping("/{id}")
     public ResponseEntity<Invoice> getInvoiceById(@PathVariable Long id) {
@@ -50,21 +54,21 @@ public class InvoiceController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<Page<Invoice>> getInvoicesByCustomer(
+    public ResponseEntity<Page<InvoiceRepository.SummaryView>> getInvoicesByCustomer(
             @PathVariable String customerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
         log.info("💰 GET /api/invoices/customer/{}", customerId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Invoice> invoices = invoiceService.getInvoicesByCustomer(customerId, pageable);
+        Page<InvoiceRepository.SummaryView> invoices = invoiceService.getInvoicesByCustomer(customerId, pageable);
         return ResponseEntity.ok(invoices);
     }
 
     @GetMapping("/overdue")
-    public ResponseEntity<List<Invoice>> getOverdueInvoices() {
+    public ResponseEntity<List<InvoiceRepository.SummaryView>> getOverdueInvoices() {
         log.info("⏰ GET /api/invoices/overdue");
-        List<Invoice> invoices = invoiceService.findOverdueInvoices();
+        List<InvoiceRepository.SummaryView> invoices = invoiceService.findOverdueInvoices();
         return ResponseEntity.ok(invoices);
     }
 
@@ -94,8 +98,33 @@ public class InvoiceController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
     ) {
         log.info("📊 GET /api/invoices/revenue?start={}&end={}", startDate, endDate);
-        BigDecimal revenue = invoiceService.getTotalRevenue(startDate, endDate);
-        return ResponseEntity.ok(revenue);
+        try {
+            return ResponseEntity.ok(invoiceService.getTotalRevenue(startDate, endDate));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid revenue range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/revenue/buckets")
+    public ResponseEntity<List<RevenueBucketDTO>> getRevenueBuckets(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "DAILY") InvoiceService.RevenueGranularity granularity
+    ) {
+        log.info("📊 GET /api/invoices/revenue/buckets?start={}&end={}&granularity={}", startDate, endDate, granularity);
+        try {
+            return ResponseEntity.ok(invoiceService.getRevenueBuckets(startDate, endDate, granularity));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid revenue range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/revenue/summary/rebuild")
+    public ResponseEntity<Integer> rebuildRevenueSummary() {
+        log.info("🔄 POST /api/invoices/revenue/summary/rebuild");
+        return ResponseEntity.ok(invoiceSummaryBackfill.rebuild());
     }
 
     @GetMapping("/health")
@@ -9,6 +9,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,7 +27,23 @@ public class BillingEventProducer {
 
     public void publishInvoiceEvent(String eventType, Invoice invoice) {
         log.info("📤 Publishing billing event: {} for invoice: {}", eventType, invoice.getInvoiceNumber());
+        send(eventType, invoice);
+    }
+
+    /**
+     * Publie un événement par facture sans attendre entre les envois :
+     * le producer les regroupe dans ses lots (linger.ms / batch.size), puis flush
+     */
+    public void publishInvoiceEvents(String eventType, List<Invoice> invoices) {
+        if (invoices.isEmpty()) {
+            return;
+        }
+        log.info("📤 Publishing {} billing events: {}", invoices.size(), eventType);
+        invoices.forEach(invoice -> send(eventType, invoice));
+        kafkaTemplate.flush();
+    }
 
+    private void send(String eventType, Invoice invoice) {
         Map<String, Object> invoiceData = new HashMap<>();
         invoiceData.put("invoiceId", invoice.getId());
         invoiceData.put("invoiceNumber", invoice.getInvoiceNumber());
@@ -35,6 +52,10 @@ public class BillingEventProducer {
         invoiceData.put("customerId", invoice.getCustomerId());
         invoiceData.put("totalAmount", invoice.getTotalAmount());
         invoiceData.put("status", invoice.getStatus().toString());
+        // Agrégats de chiffre d'affaires : jour de facturation, heure de création, version
+        invoiceData.put("invoiceDate", String.valueOf(invoice.getInvoiceDate()));
+        invoiceData.put("createdAt", String.valueOf(invoice.getCreatedAt()));
+        invoiceData.put("updatedAt", String.valueOf(invoice.getUpdatedAt()));
 
         KafkaEvent<Map<String, Object>> event = KafkaEvent.create(
                 eventType,
@@ -46,7 +67,7 @@ public class BillingEventProducer {
         kafkaTemplate.send(billingEventsTopic, invoice.getInvoiceNumber(), event)
                 .whenComplete((result, ex) -> {
                     if (ex == null) {
-                        log.info("✅ Billing event published successfully: {}", eventType);
+                        log.debug("✅ Billing event published: {} for invoice: {}", eventType, invoice.getInvoiceNumber());
                     } else {
                         log.error("❌ Failed to publish billing event: {}", ex.getMessage());
                     }
@@ -1,91 +1,164 @@
 package com.ghali.ecommerce.billing.kafka;
 
+import com.ghali.ecommerce.billing.model.Invoice;
 import com.ghali.ecommerce.billing.service.InvoiceService;
+import com.ghali.ecommerce.billing.service.ProcessedEventStore;
 import com.ghali.ecommerce.common.dto.KafkaEvent;
 import com.ghali.ecommerce.common.dto.OrderDTO;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Consumer Kafka pour les événements de commande
  * Génère automatiquement des factures quand une commande est confirmée
+ *
+ * Traitement exactement une fois : les événements déjà appliqués (eventId) sont
+ * écartés, et les effets d'un lot sont validés dans la même transaction que
+ * l'enregistrement de leurs IDs. Une redélivrance (rebalance, crash avant le
+ * commit d'offset) est donc sans effet.
  */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class OrderEventConsumer {
 
     private final InvoiceService invoiceService;
+    private final BillingEventProducer billingEventProducer;
+    private final ProcessedEventStore processedEventStore;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderEventConsumer(InvoiceService invoiceService,
+                              BillingEventProducer billingEventProducer,
+                              ProcessedEventStore processedEventStore,
+                              PlatformTransactionManager transactionManager) {
+        this.invoiceService = invoiceService;
+        this.billingEventProducer = billingEventProducer;
+        this.processedEventStore = processedEventStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
+    /**
+     * Reçoit les événements par lot (un poll Kafka) : les confirmations sont
+     * dédupliquées par commande et facturées en une transaction, puis les
+     * annulations sont appliquées dans l'ordre de réception
+     */
     @KafkaListener(
         topics = "${kafka.topics.order-events}",
         groupId = "${spring.kafka.consumer.group-id}",
         containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeOrderEvent(KafkaEvent<OrderDTO> event) {
-        log.info("📬 Received order event: {} - Order: {}", 
-            event.getEventType(), event.getPayload().getOrderNumber());
-        
+    public void consumeOrderEvents(List<KafkaEvent<OrderDTO>> events) {
+        log.info("📬 Received {} order events", events.size());
+
+        Map<String, KafkaEvent<OrderDTO>> byEventId = new LinkedHashMap<>();
+        for (KafkaEvent<OrderDTO> event : events) {
+            // Message illisible (ErrorHandlingDeserializer) : ignoré
+            if (event == null || event.getPayload() == null || event.getEventId() == null) {
+                log.warn("⚠️ Skipping unreadable order event");
+                continue;
+            }
+            byEventId.putIfAbsent(event.getEventId(), event);
+        }
+        if (byEventId.isEmpty()) {
+            return;
+        }
+
+        BatchResult result;
         try {
+            result = apply(byEventId, processedEventStore::findProcessed);
+        } catch (DuplicateKeyException e) {
+            // Un autre consumer vient d'appliquer une partie du lot (rebalance) ou de facturer
+            // l'une des commandes (index unique sur order_id) : la transaction est annulée,
+            // on rejoue en se fiant uniquement à la base (commandes déjà facturées écartées)
+            log.warn("⚠️ Order events already processed concurrently, retrying batch");
+            result = apply(byEventId, processedEventStore::findProcessedInDatabase);
+        }
+
+        // Publication après commit : les factures existent quand les événements partent
+        billingEventProducer.publishInvoiceEvents("INVOICE_CREATED", result.created());
+        billingEventProducer.publishInvoiceEvents("INVOICE_STATUS_UPDATED", result.cancelled());
+    }
+
+    /**
+     * Applique les événements non encore traités et enregistre leurs IDs, en une transaction
+     */
+    private BatchResult apply(Map<String, KafkaEvent<OrderDTO>> byEventId,
+                              Function<Set<String>, Set<String>> findProcessed) {
+        Set<String> processed = findProcessed.apply(byEventId.keySet());
+        if (!processed.isEmpty()) {
+            log.info("♻️ Skipping {} already processed order events", processed.size());
+        }
+
+        Map<Long, OrderDTO> confirmedOrders = new LinkedHashMap<>();
+        List<OrderDTO> cancelledOrders = new ArrayList<>();
+        List<String> freshIds = new ArrayList<>();
+        for (KafkaEvent<OrderDTO> event : byEventId.values()) {
+            if (processed.contains(event.getEventId())) {
+                continue;
+            }
+            freshIds.add(event.getEventId());
             OrderDTO order = event.getPayload();
-            
+
             switch (event.getEventType()) {
                 case "ORDER_CONFIRMED":
-                    handleOrderConfirmed(order);
+                    confirmedOrders.putIfAbsent(order.getId(), order);
                     break;
-                    
+
                 case "ORDER_CANCELLED":
-                    handleOrderCancelled(order);
+                    cancelledOrders.add(order);
                     break;
-                    
+
                 default:
                     log.debug("Event type {} not handled by billing service", event.getEventType());
             }
-        } catch (Exception e) {
-            log.error("Error processing order event: {}", e.getMessage(), e);
         }
+        if (freshIds.isEmpty()) {
+            return new BatchResult(List.of(), List.of());
+        }
+
+        return transactionTemplate.execute(status -> {
+            List<Invoice> created = confirmedOrders.isEmpty()
+                    ? List.of()
+                    : handleOrdersConfirmed(confirmedOrders.values());
+            List<Invoice> cancelled = new ArrayList<>();
+            for (OrderDTO order : cancelledOrders) {
+                Invoice invoice = handleOrderCancelled(order);
+                if (invoice != null) {
+                    cancelled.add(invoice);
+                }
+            }
+            processedEventStore.markProcessed(freshIds);
+            return new BatchResult(created, cancelled);
+        });
     }
 
     /**
-     * Gérer la confirmation de commande - Créer une facture
+     * Gérer les confirmations de commande - Créer les factures
      */
-    private void handleOrderConfirmed(OrderDTO order) {
-        log.info("💰 Processing ORDER_CONFIRMED for order: {}", order.getOrderNumber());
-        
-        try {
-            invoiceService.createInvoiceFromOrder(order);
-            log.info("✅ Invoice created successfully for order: {}", order.getOrderNumber());
-        } catch (RuntimeException e) {
-            if (e.getMessage().contains("already exists")) {
-                log.warn("⚠️ Invoice already exists for order: {}", order.getOrderNumber());
-            } else {
-                throw e;
-            }
-        }
+    private List<Invoice> handleOrdersConfirmed(Collection<OrderDTO> orders) {
+        log.info("💰 Processing ORDER_CONFIRMED for {} orders", orders.size());
+        return invoiceService.createInvoicesFromOrders(orders);
     }
 
     /**
      * Gérer l'annulation de commande - Annuler la facture
      */
-    private void handleOrderCancelled(OrderDTO order) {
+    private Invoice handleOrderCancelled(OrderDTO order) {
         log.info("❌ Processing ORDER_CANCELLED for order: {}", order.getOrderNumber());
-        
-        try {
-            var invoice = invoiceService.getInvoiceByOrderId(order.getId());
-            
-            if (invoice.getStatus() != com.ghali.ecommerce.billing.model.Invoice.InvoiceStatus.PAID) {
-                invoiceService.updateInvoiceStatus(
-                    invoice.getId(), 
-                    com.ghali.ecommerce.billing.model.Invoice.InvoiceStatus.CANCELLED
-                );
-                log.info("✅ Invoice cancelled for order: {}", order.getOrderNumber());
-            } else {
-                log.warn("⚠️ Cannot cancel paid invoice for order: {}", order.getOrderNumber());
-            }
-        } catch (RuntimeException e) {
-            log.warn("⚠️ No invoice found for cancelled order: {}", order.getOrderNumber());
-        }
+        return invoiceService.cancelInvoiceForOrder(order);
+    }
+
+    private record BatchResult(List<Invoice> created, List<Invoice> cancelled) {
     }
 }
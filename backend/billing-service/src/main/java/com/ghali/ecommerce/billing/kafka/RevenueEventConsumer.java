@@ -0,0 +1,68 @@
+package com.ghali.ecommerce.billing.kafka;
+
+import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.billing.service.RevenueAggregator;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer des événements de facturation pour les agrégats de chiffre d'affaires
+ *
+ * Chaque instance lit tous les événements (groupe propre à l'instance, stable entre
+ * redémarrages : billing.revenue.consumer-group-id) : ses agrégats sont complets quel
+ * que soit le nombre d'instances.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RevenueEventConsumer {
+
+    private final RevenueAggregator revenueAggregator;
+
+    @KafkaListener(
+        topics = "${kafka.topics.billing-events}",
+        containerFactory = "revenueListenerContainerFactory"
+    )
+    public void consumeBillingEvents(List<KafkaEvent<Map<String, Object>>> events) {
+        for (KafkaEvent<Map<String, Object>> event : events) {
+            if (event == null || event.getPayload() == null) {
+                continue;
+            }
+            try {
+                apply(event.getPayload());
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Skipping billing event {} for revenue aggregates: {}", event.getEventId(), e.getMessage());
+            }
+        }
+    }
+
+    private void apply(Map<String, Object> invoice) {
+        revenueAggregator.apply(
+                toLong(invoice.get("invoiceId")),
+                Invoice.InvoiceStatus.valueOf(String.valueOf(invoice.get("status"))),
+                toDecimal(invoice.get("totalAmount")),
+                toDateTime(invoice.get("createdAt")),
+                toDateTime(invoice.get("updatedAt")));
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? Long.valueOf(number.longValue()) : null;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        return value == null ? null : new BigDecimal(String.valueOf(value));
+    }
+
+    // Événements publiés avant l'ajout des dates : "null", ignorés par l'agrégateur
+    private static LocalDateTime toDateTime(Object value) {
+        return value == null || "null".equals(value) ? null : LocalDateTime.parse(String.valueOf(value));
+    }
+}
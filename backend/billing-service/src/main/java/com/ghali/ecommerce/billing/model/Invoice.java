@@ -12,6 +12,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Entité Invoice - Facture
@@ -19,9 +20,12 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "invoices", indexes = {
     @Index(name = "idx_invoice_number", columnList = "invoice_number", unique = true),
-    @Index(name = "idx_order_id", columnList = "order_id"),
+    // Une facture par commande : un doublon concurrent échoue à l'INSERT (DuplicateKeyException)
+    @Index(name = "idx_invoice_order_id", columnList = "order_id", unique = true),
     @Index(name = "idx_customer_id", columnList = "customer_id"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_invoice_date", columnList = "invoice_date"),
+    @Index(name = "idx_updated_at", columnList = "updated_at")
 })
 @Data
 @Builder
@@ -112,8 +116,15 @@ public class Invoice {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        applyDefaults();
+    }
+
+    /**
+     * Dates et montants initiaux (appelé aussi avant une insertion JDBC en lot)
+     */
+    public void applyDefaults() {
+        createdAt = now();
+        updatedAt = createdAt;
         if (invoiceDate == null) {
             invoiceDate = LocalDate.now();
         }
@@ -125,7 +136,7 @@ public class Invoice {
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = now();
         calculateAmounts();
     }
 
@@ -172,4 +183,12 @@ public class Invoice {
                 && dueDate != null 
                 && LocalDate.now().isAfter(dueDate);
     }
+
+    /**
+     * Précision de la colonne (datetime(6)) : la valeur en mémoire est exactement celle
+     * relue en base, updatedAt peut ainsi servir de version dans les événements
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
@@ -0,0 +1,55 @@
+package com.ghali.ecommerce.billing.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Entité InvoiceDailySummary - Cumul des factures par jour de facturation et par statut
+ * Tenue à jour dans la transaction de chaque création / changement de facture
+ * (InvoiceSummaryStore) : une année de chiffre d'affaires se lit en au plus 366 lignes
+ */
+@Entity
+@Table(name = "invoice_daily_summary")
+@IdClass(InvoiceDailySummary.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceDailySummary {
+
+    @Id
+    @Column(name = "summary_date")
+    private LocalDate summaryDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private Invoice.InvoiceStatus status;
+
+    @Column(name = "invoice_count", nullable = false)
+    private Long invoiceCount;
+
+    @Column(name = "subtotal", precision = 15, scale = 2, nullable = false)
+    private BigDecimal subtotal;
+
+    @Column(name = "tax_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal taxAmount;
+
+    @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate summaryDate;
+        private Invoice.InvoiceStatus status;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ghali.ecommerce.billing.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Entité InvoiceMonthlySummary - Cumul des factures par mois de facturation et par statut
+ * Tenue à jour avec invoice_daily_summary (InvoiceSummaryStore) : une période longue se lit
+ * en une ligne par mois, plus les jours des mois incomplets aux bornes
+ */
+@Entity
+@Table(name = "invoice_monthly_summary")
+@IdClass(InvoiceMonthlySummary.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceMonthlySummary {
+
+    // Premier jour du mois
+    @Id
+    @Column(name = "summary_month")
+    private LocalDate summaryMonth;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private Invoice.InvoiceStatus status;
+
+    @Column(name = "invoice_count", nullable = false)
+    private Long invoiceCount;
+
+    @Column(name = "subtotal", precision = 15, scale = 2, nullable = false)
+    private BigDecimal subtotal;
+
+    @Column(name = "tax_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal taxAmount;
+
+    @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate summaryMonth;
+        private Invoice.InvoiceStatus status;
+    }
+}
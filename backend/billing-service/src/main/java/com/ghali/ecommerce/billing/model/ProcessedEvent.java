@@ -0,0 +1,32 @@
+package com.ghali.ecommerce.billing.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité ProcessedEvent - Événement Kafka déjà appliqué par le billing service
+ * Insérée dans la transaction qui applique l'événement : la clé primaire
+ * garantit qu'un même eventId n'est appliqué qu'une fois
+ */
+@Entity
+@Table(name = "processed_events", indexes = {
+        @Index(name = "idx_processed_at", columnList = "processed_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedEvent {
+
+    @Id
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,37 @@
+package com.ghali.ecommerce.billing.repository;
+
+import com.ghali.ecommerce.billing.model.InvoiceDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface InvoiceDailySummaryRepository extends JpaRepository<InvoiceDailySummary, InvoiceDailySummary.Key> {
+
+    @Query("SELECT SUM(s.totalAmount) FROM InvoiceDailySummary s WHERE s.status = 'PAID' "
+            + "AND s.summaryDate BETWEEN :startDate AND :endDate")
+    BigDecimal getTotalRevenueForPeriod(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Chiffre d'affaires des jours de [startDate, monthsStart) et de [monthsEnd, endDate] :
+     * les mois incomplets autour des mois lus dans invoice_monthly_summary
+     */
+    @Query("SELECT SUM(s.totalAmount) FROM InvoiceDailySummary s WHERE s.status = 'PAID' "
+            + "AND ((s.summaryDate >= :startDate AND s.summaryDate < :monthsStart) "
+            + "OR (s.summaryDate >= :monthsEnd AND s.summaryDate <= :endDate))")
+    BigDecimal getTotalRevenueAroundMonths(@Param("startDate") LocalDate startDate,
+            @Param("monthsStart") LocalDate monthsStart,
+            @Param("monthsEnd") LocalDate monthsEnd,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT s FROM InvoiceDailySummary s WHERE s.summaryDate BETWEEN :startDate AND :endDate "
+            + "ORDER BY s.summaryDate, s.status")
+    List<InvoiceDailySummary> findByPeriod(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
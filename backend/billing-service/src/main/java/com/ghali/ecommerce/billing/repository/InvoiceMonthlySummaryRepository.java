@@ -0,0 +1,22 @@
+package com.ghali.ecommerce.billing.repository;
+
+import com.ghali.ecommerce.billing.model.InvoiceMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface InvoiceMonthlySummaryRepository extends JpaRepository<InvoiceMonthlySummary, InvoiceMonthlySummary.Key> {
+
+    /**
+     * Chiffre d'affaires des mois de [monthsStart, monthsEnd) (premiers jours de mois)
+     */
+    @Query("SELECT SUM(s.totalAmount) FROM InvoiceMonthlySummary s WHERE s.status = 'PAID' "
+            + "AND s.summaryMonth >= :monthsStart AND s.summaryMonth < :monthsEnd")
+    BigDecimal getTotalRevenueForMonths(@Param("monthsStart") LocalDate monthsStart,
+            @Param("monthsEnd") LocalDate monthsEnd);
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,24 +21,49 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     Optional<Invoice> findByOrderId(Long orderId);
 
+    @Query("SELECT i.orderId FROM Invoice i WHERE i.orderId IN :orderIds")
+    List<Long> findInvoicedOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
     List<Invoice> findByCustomerId(String customerId);
 
-    Page<Invoice> findByCustomerId(String customerId, Pageable pageable);
+    /**
+     * Listes de factures : colonnes affichées seulement (sans adresse ni notes)
+     */
+    Page<SummaryView> findSummariesByCustomerId(String customerId, Pageable pageable);
 
     List<Invoice> findByStatus(Invoice.InvoiceStatus status);
 
-    @Query("SELECT i FROM Invoice i WHERE i.status = :status AND i.dueDate < :date")
-    List<Invoice> findOverdueInvoices(@Param("status") Invoice.InvoiceStatus status,
+    @Query("SELECT i.id AS id, i.invoiceNumber AS invoiceNumber, i.orderId AS orderId, " +
+           "i.orderNumber AS orderNumber, i.customerName AS customerName, i.invoiceDate AS invoiceDate, " +
+           "i.dueDate AS dueDate, i.totalAmount AS totalAmount, i.status AS status " +
+           "FROM Invoice i WHERE i.status = :status AND i.dueDate < :date ORDER BY i.dueDate")
+    List<SummaryView> findOverdueInvoices(@Param("status") Invoice.InvoiceStatus status,
             @Param("date") LocalDate date);
 
     @Query("SELECT i FROM Invoice i WHERE i.invoiceDate BETWEEN :startDate AND :endDate")
     List<Invoice> findByInvoiceDateBetween(@Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT SUM(i.totalAmount) FROM Invoice i WHERE i.status = 'PAID' AND i.invoiceDate BETWEEN :startDate AND :endDate")
-    BigDecimal getTotalRevenueForPeriod(@Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate);
-
     @Query("SELECT COUNT(i) FROM Invoice i WHERE i.customerId = :customerId AND i.status = 'PAID'")
     long countPaidInvoicesByCustomer(@Param("customerId") String customerId);
+
+    interface SummaryView {
+        Long getId();
+
+        String getInvoiceNumber();
+
+        Long getOrderId();
+
+        String getOrderNumber();
+
+        String getCustomerName();
+
+        LocalDate getInvoiceDate();
+
+        LocalDate getDueDate();
+
+        BigDecimal getTotalAmount();
+
+        Invoice.InvoiceStatus getStatus();
+    }
 }
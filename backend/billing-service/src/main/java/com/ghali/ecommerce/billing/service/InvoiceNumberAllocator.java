@@ -0,0 +1,54 @@
+package com.ghali.ecommerce.billing.service;
+
+import com.ghali.ecommerce.common.sequence.BlockSequenceAllocator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Year;
+
+/**
+ * Allocation des numéros de facture PREFIX-YYYY-NNNNNN
+ *
+ * Chaque instance réserve des lots de numéros dans invoice_number_segments
+ * (BlockSequenceAllocator, sur une connexion dédiée) puis les distribue sans
+ * verrou aux threads du listener Kafka. Plusieurs réplicas peuvent coexister :
+ * leurs lots sont disjoints. Les numéros d'un lot non consommé avant l'arrêt
+ * sont perdus (trous tolérés) mais jamais réattribués.
+ */
+@Component
+public class InvoiceNumberAllocator {
+
+    // Plus grand numéro déjà attribué, en numérique : reste juste au-delà de 999999
+    private static final String MAX_INVOICE_NUMBER_SQL =
+            "SELECT MAX(CAST(SUBSTRING_INDEX(invoice_number, '-', -1) AS UNSIGNED)) FROM invoices "
+                    + "WHERE invoice_number LIKE ?";
+
+    private final String invoicePrefix;
+    private final BlockSequenceAllocator allocator;
+
+    public InvoiceNumberAllocator(DataSourceProperties dataSourceProperties,
+                                  @Value("${billing.invoice.prefix:INV}") String invoicePrefix,
+                                  @Value("${billing.invoice.number-block-size:50}") int blockSize) {
+        this.invoicePrefix = invoicePrefix;
+        this.allocator = new BlockSequenceAllocator(
+                BlockSequenceAllocator.dedicatedDataSource(dataSourceProperties, "invoice-number-allocator"),
+                "invoice_number_segments", blockSize,
+                (jdbc, year) -> jdbc.queryForObject(MAX_INVOICE_NUMBER_SQL, Long.class,
+                        invoicePrefix + "-" + year + "-%"));
+    }
+
+    /**
+     * Retourne le prochain numéro de facture de l'année en cours
+     */
+    public String nextInvoiceNumber() {
+        int year = Year.now().getValue();
+        return String.format("%s-%d-%06d", invoicePrefix, year, allocator.next(year));
+    }
+
+    @PreDestroy
+    void close() {
+        allocator.close();
+    }
+}
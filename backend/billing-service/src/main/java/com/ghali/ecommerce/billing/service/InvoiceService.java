@@ -2,20 +2,37 @@ package com.ghali.ecommerce.billing.service;
 
 import com.ghali.ecommerce.billing.kafka.BillingEventProducer;
 import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.billing.model.InvoiceDailySummary;
+import com.ghali.ecommerce.billing.repository.InvoiceDailySummaryRepository;
+import com.ghali.ecommerce.billing.repository.InvoiceMonthlySummaryRepository;
 import com.ghali.ecommerce.billing.repository.InvoiceRepository;
 import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.RevenueBucketDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
-import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service de gestion des factures
@@ -25,60 +42,108 @@ import java.util.List;
 @RequiredArgsConstructor
 public class InvoiceService {
 
+    private static final String INSERT_INVOICE_SQL = "INSERT INTO invoices (invoice_number, order_id, order_number, "
+            + "customer_id, customer_name, customer_email, customer_address, invoice_date, due_date, subtotal, "
+            + "tax_rate, tax_amount, discount_amount, total_amount, status, notes, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final InvoiceRepository invoiceRepository;
     private final BillingEventProducer billingEventProducer;
-
-    @Value("${billing.invoice.prefix:INV}")
-    private String invoicePrefix;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final RevenueAggregator revenueAggregator;
+    private final InvoiceSummaryStore invoiceSummaryStore;
+    private final InvoiceDailySummaryRepository invoiceDailySummaryRepository;
+    private final InvoiceMonthlySummaryRepository invoiceMonthlySummaryRepository;
 
     @Value("${billing.tax.vat-rate:0.20}")
     private BigDecimal defaultTaxRate;
 
     /**
-     * Créer une facture à partir d'une commande
+     * Créer les factures d'un lot de commandes confirmées
+     *
+     * Une seule requête IN pour écarter les commandes déjà facturées, puis un
+     * INSERT JDBC en lot, cumulé dans invoice_daily_summary. Les événements INVOICE_CREATED sont publiés par l'appelant
+     * après le commit.
+     *
+     * @return les factures créées (les commandes déjà facturées sont ignorées)
+     * @throws org.springframework.dao.DuplicateKeyException si une commande vient d'être
+     *         facturée par une transaction concurrente (à rejouer : le préchargement la verra)
      */
     @Transactional
-    public Invoice createInvoiceFromOrder(OrderDTO order) {
-        log.info("💰 Creating invoice for order: {}", order.getOrderNumber());
-
-        // Vérifier si une facture existe déjà
-        if (invoiceRepository.findByOrderId(order.getId()).isPresent()) {
-            throw new RuntimeException("Invoice already exists for order: " + order.getOrderNumber());
+    public List<Invoice> createInvoicesFromOrders(Collection<OrderDTO> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        log.info("💰 Creating invoices for {} orders", orders.size());
+
+        Set<Long> invoicedOrderIds = new HashSet<>(invoiceRepository.findInvoicedOrderIds(
+                orders.stream().map(OrderDTO::getId).collect(Collectors.toList())));
+
+        List<Invoice> invoices = new ArrayList<>();
+        for (OrderDTO order : orders) {
+            if (invoicedOrderIds.contains(order.getId())) {
+                log.warn("⚠️ Invoice already exists for order: {}", order.getOrderNumber());
+                continue;
+            }
+            invoices.add(buildInvoice(order));
+        }
+        if (invoices.isEmpty()) {
+            return invoices;
         }
 
-        // Générer le numéro de facture
-        String invoiceNumber = generateInvoiceNumber();
-
-        // Construire l'adresse client
-        String customerAddress = buildCustomerAddress(order);
-
-        // Créer la facture
-        Invoice invoice = Invoice.builder()
-                .invoiceNumber(invoiceNumber)
-                .orderId(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .customerId(order.getCustomerId())
-                .customerName(order.getShippingAddress() != null 
-                        ? order.getShippingAddress().getFullName() 
-                        : "Client")
-                .customerEmail(order.getCustomerEmail())
-                .customerAddress(customerAddress)
-                .subtotal(order.getTotalAmount())
-                .taxRate(defaultTaxRate)
-                .discountAmount(BigDecimal.ZERO)
-                .status(Invoice.InvoiceStatus.ISSUED)
-                .notes("Facture générée automatiquement pour la commande " + order.getOrderNumber())
-                .build();
-
-        invoice.calculateAmounts();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_INVOICE_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindInvoice(ps, invoices.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return invoices.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < invoices.size() && i < keys.size(); i++) {
+            invoices.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        invoiceSummaryStore.recordCreated(invoices);
 
-        Invoice savedInvoice = invoiceRepository.save(invoice);
+        log.info("✅ {} invoices created", invoices.size());
+        return invoices;
+    }
 
-        // Publier événement Kafka
-        billingEventProducer.publishInvoiceEvent("INVOICE_CREATED", savedInvoice);
+    /**
+     * Annuler la facture d'une commande annulée (sans effet si absente, payée ou déjà annulée)
+     *
+     * @return la facture annulée, ou null si rien n'a changé
+     */
+    @Transactional
+    public Invoice cancelInvoiceForOrder(OrderDTO order) {
+        Invoice invoice = invoiceRepository.findByOrderId(order.getId()).orElse(null);
+        if (invoice == null) {
+            log.warn("⚠️ No invoice found for cancelled order: {}", order.getOrderNumber());
+            return null;
+        }
+        if (invoice.getStatus() == Invoice.InvoiceStatus.PAID) {
+            log.warn("⚠️ Cannot cancel paid invoice for order: {}", order.getOrderNumber());
+            return null;
+        }
+        if (invoice.getStatus() == Invoice.InvoiceStatus.CANCELLED) {
+            return null;
+        }
 
-        log.info("✅ Invoice created: {} for order: {}", invoiceNumber, order.getOrderNumber());
-        return savedInvoice;
+        InvoiceSummaryStore.Snapshot before = InvoiceSummaryStore.Snapshot.of(invoice);
+        invoice.setStatus(Invoice.InvoiceStatus.CANCELLED);
+        Invoice cancelledInvoice = invoiceRepository.save(invoice);
+        invoiceSummaryStore.recordChange(before, cancelledInvoice);
+        log.info("✅ Invoice cancelled for order: {}", order.getOrderNumber());
+        return cancelledInvoice;
     }
 
     public Invoice getInvoiceById(Long id) {
@@ -100,11 +165,11 @@ public class InvoiceService {
         return invoiceRepository.findByCustomerId(customerId);
     }
 
-    public Page<Invoice> getInvoicesByCustomer(String customerId, Pageable pageable) {
-        return invoiceRepository.findByCustomerId(customerId, pageable);
+    public Page<InvoiceRepository.SummaryView> getInvoicesByCustomer(String customerId, Pageable pageable) {
+        return invoiceRepository.findSummariesByCustomerId(customerId, pageable);
     }
 
-    public List<Invoice> findOverdueInvoices() {
+    public List<InvoiceRepository.SummaryView> findOverdueInvoices() {
         return invoiceRepository.findOverdueInvoices(
                 Invoice.InvoiceStatus.ISSUED, 
                 LocalDate.now()
@@ -117,13 +182,16 @@ public class InvoiceService {
 
         Invoice invoice = getInvoiceById(id);
         Invoice.InvoiceStatus oldStatus = invoice.getStatus();
+        InvoiceSummaryStore.Snapshot before = InvoiceSummaryStore.Snapshot.of(invoice);
         invoice.setStatus(newStatus);
 
         if (newStatus == Invoice.InvoiceStatus.PAID) {
             invoice.markAsPaid();
         }
 
-        Invoice updatedInvoice = invoiceRepository.save(invoice);
+        // Flush : updatedAt (version de l'événement) est fixé avant la publication
+        Invoice updatedInvoice = invoiceRepository.saveAndFlush(invoice);
+        invoiceSummaryStore.recordChange(before, updatedInvoice);
 
         // Publier événement
         billingEventProducer.publishInvoiceEvent("INVOICE_STATUS_UPDATED", updatedInvoice);
@@ -144,22 +212,59 @@ public class InvoiceService {
             throw new RuntimeException("Cannot apply discount to paid invoice");
         }
 
+        InvoiceSummaryStore.Snapshot before = InvoiceSummaryStore.Snapshot.of(invoice);
         invoice.setDiscountAmount(discountAmount);
         invoice.calculateAmounts();
 
-        Invoice updatedInvoice = invoiceRepository.save(invoice);
+        Invoice updatedInvoice = invoiceRepository.saveAndFlush(invoice);
+        invoiceSummaryStore.recordChange(before, updatedInvoice);
+        billingEventProducer.publishInvoiceEvent("INVOICE_UPDATED", updatedInvoice);
 
         log.info("✅ Discount applied to invoice: {}", invoice.getInvoiceNumber());
         return updatedInvoice;
     }
 
-    /**
-     * Générer un numéro de facture unique
-     */
-    private String generateInvoiceNumber() {
-        String year = String.valueOf(Year.now().getValue());
-        long count = invoiceRepository.count() + 1;
-        return String.format("%s-%s-%06d", invoicePrefix, year, count);
+    private Invoice buildInvoice(OrderDTO order) {
+        Invoice invoice = Invoice.builder()
+                .invoiceNumber(invoiceNumberAllocator.nextInvoiceNumber())
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .customerId(order.getCustomerId())
+                .customerName(order.getShippingAddress() != null
+                        ? order.getShippingAddress().getFullName()
+                        : "Client")
+                .customerEmail(order.getCustomerEmail())
+                .customerAddress(buildCustomerAddress(order))
+                .subtotal(order.getTotalAmount())
+                .taxRate(defaultTaxRate)
+                .discountAmount(BigDecimal.ZERO)
+                .status(Invoice.InvoiceStatus.ISSUED)
+                .notes("Facture générée automatiquement pour la commande " + order.getOrderNumber())
+                .build();
+        // Pas de @PrePersist avec JDBC : dates et montants calculés ici
+        invoice.applyDefaults();
+        return invoice;
+    }
+
+    private static void bindInvoice(PreparedStatement ps, Invoice invoice) throws SQLException {
+        ps.setString(1, invoice.getInvoiceNumber());
+        ps.setLong(2, invoice.getOrderId());
+        ps.setString(3, invoice.getOrderNumber());
+        ps.setString(4, invoice.getCustomerId());
+        ps.setString(5, invoice.getCustomerName());
+        ps.setString(6, invoice.getCustomerEmail());
+        ps.setString(7, invoice.getCustomerAddress());
+        ps.setObject(8, invoice.getInvoiceDate());
+        ps.setObject(9, invoice.getDueDate());
+        ps.setBigDecimal(10, invoice.getSubtotal());
+        ps.setBigDecimal(11, invoice.getTaxRate());
+        ps.setBigDecimal(12, invoice.getTaxAmount());
+        ps.setBigDecimal(13, invoice.getDiscountAmount());
+        ps.setBigDecimal(14, invoice.getTotalAmount());
+        ps.setString(15, invoice.getStatus().name());
+        ps.setString(16, invoice.getNotes());
+        ps.setObject(17, invoice.getCreatedAt());
+        ps.setObject(18, invoice.getUpdatedAt());
     }
 
     /**
@@ -184,9 +289,66 @@ public class InvoiceService {
 
     /**
      * Calculer le revenu total pour une période
+     *
+     * Lu uniquement dans les tables de cumul : les mois complets de la période dans
+     * invoice_monthly_summary, les jours des mois incomplets aux bornes dans
+     * invoice_daily_summary. Une période de plusieurs années se lit ainsi en une ligne
+     * par mois plus au plus 60 jours.
      */
     public BigDecimal getTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        BigDecimal revenue = invoiceRepository.getTotalRevenueForPeriod(startDate, endDate);
-        return revenue != null ? revenue : BigDecimal.ZERO;
+        checkRange(startDate, endDate);
+        // Mois complets : [monthsStart, monthsEnd)
+        LocalDate monthsStart = startDate.getDayOfMonth() == 1
+                ? startDate
+                : startDate.withDayOfMonth(1).plusMonths(1);
+        LocalDate monthsEnd = endDate.plusDays(1).withDayOfMonth(1);
+        if (!monthsStart.isBefore(monthsEnd)) {
+            return orZero(invoiceDailySummaryRepository.getTotalRevenueForPeriod(startDate, endDate));
+        }
+        return orZero(invoiceMonthlySummaryRepository.getTotalRevenueForMonths(monthsStart, monthsEnd))
+                .add(orZero(invoiceDailySummaryRepository.getTotalRevenueAroundMonths(
+                        startDate, monthsStart, monthsEnd, endDate)));
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    /**
+     * Montants par jour de facturation (table de cumul) ou par heure de création
+     * (agrégats en mémoire, rétention limitée)
+     */
+    public List<RevenueBucketDTO> getRevenueBuckets(LocalDate startDate, LocalDate endDate, RevenueGranularity granularity) {
+        checkRange(startDate, endDate);
+        if (granularity == RevenueGranularity.HOURLY) {
+            return revenueAggregator.getHourlyBuckets(startDate, endDate);
+        }
+        return toBuckets(invoiceDailySummaryRepository.findByPeriod(startDate, endDate));
+    }
+
+    private void checkRange(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+    }
+
+    private static List<RevenueBucketDTO> toBuckets(List<InvoiceDailySummary> rows) {
+        Map<LocalDate, RevenueBucketDTO> buckets = new LinkedHashMap<>();
+        for (InvoiceDailySummary row : rows) {
+            RevenueBucketDTO bucket = buckets.computeIfAbsent(row.getSummaryDate(), day -> RevenueBucketDTO.builder()
+                    .periodStart(day.atStartOfDay())
+                    .revenue(BigDecimal.ZERO)
+                    .totalsByStatus(new LinkedHashMap<>())
+                    .build());
+            bucket.getTotalsByStatus().put(row.getStatus().name(), row.getTotalAmount());
+            if (row.getStatus() == Invoice.InvoiceStatus.PAID) {
+                bucket.setRevenue(row.getTotalAmount());
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    public enum RevenueGranularity {
+        DAILY, HOURLY
     }
 }
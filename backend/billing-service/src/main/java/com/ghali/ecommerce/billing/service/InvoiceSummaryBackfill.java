@@ -0,0 +1,189 @@
+package com.ghali.ecommerce.billing.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reconstruction de invoice_daily_summary et invoice_monthly_summary à partir de la table invoices
+ *
+ * L'historique est découpé en tranches de chunk-months mois calendaires, recalculées en
+ * parallèle : les lignes mensuelles d'une tranche se déduisent de ses lignes journalières.
+ * Chaque tranche est remplacée dans sa propre transaction : les factures de la tranche
+ * sont d'abord lues en mode partagé (FOR SHARE), ce qui bloque les modifications
+ * concurrentes de ces factures jusqu'au remplacement des lignes du cumul. Le service
+ * peut donc rester en ligne pendant la reconstruction.
+ */
+@Component
+@Slf4j
+public class InvoiceSummaryBackfill {
+
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private static final String RANGE_SQL = "SELECT MIN(invoice_date) AS first_day, MAX(invoice_date) AS last_day FROM invoices";
+    private static final String AGGREGATE_SQL = "SELECT invoice_date, status, COUNT(*) AS invoice_count, "
+            + "SUM(subtotal) AS subtotal, SUM(tax_amount) AS tax_amount, SUM(total_amount) AS total_amount "
+            + "FROM invoices WHERE invoice_date >= ? AND invoice_date < ? GROUP BY invoice_date, status FOR SHARE";
+    private static final String DELETE_SQL = "DELETE FROM invoice_daily_summary WHERE summary_date >= ? AND summary_date < ?";
+    private static final String INSERT_SQL = "INSERT INTO invoice_daily_summary "
+            + "(summary_date, status, invoice_count, subtotal, tax_amount, total_amount) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_MONTHLY_SQL = "DELETE FROM invoice_monthly_summary "
+            + "WHERE summary_month >= ? AND summary_month < ?";
+    private static final String INSERT_MONTHLY_SQL = "INSERT INTO invoice_monthly_summary "
+            + "(summary_month, status, invoice_count, subtotal, tax_amount, total_amount) VALUES (?, ?, ?, ?, ?, ?)";
+    // Table mensuelle vide aussi après l'ajout de celle-ci à une base déjà en service
+    private static final String IS_EMPTY_SQL = "SELECT NOT EXISTS (SELECT 1 FROM invoice_daily_summary) "
+            + "OR NOT EXISTS (SELECT 1 FROM invoice_monthly_summary)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${billing.summary.backfill-threads:4}")
+    private int backfillThreads;
+
+    @Value("${billing.summary.chunk-months:1}")
+    private int chunkMonths;
+
+    @Value("${billing.summary.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public InvoiceSummaryBackfill(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Premier démarrage avec la table de cumul : elle est construite depuis l'historique
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_EMPTY_SQL, Boolean.class))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recalcule tout le cumul
+     *
+     * @return le nombre de lignes (jour, statut) écrites
+     */
+    public int rebuild() {
+        Map<String, Object> range = jdbcTemplate.queryForMap(RANGE_SQL);
+        if (range.get("first_day") == null) {
+            return 0;
+        }
+        return rebuild(toLocalDate(range.get("first_day")), toLocalDate(range.get("last_day")));
+    }
+
+    /**
+     * Recalcule le cumul des mois contenant les jours de startDate à endDate
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        log.info("🔄 Rebuilding invoice daily summary from {} to {}", startDate, endDate);
+        ExecutorService executor = Executors.newFixedThreadPool(backfillThreads,
+                new CustomizableThreadFactory("summary-backfill-"));
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            // Tranches de mois entiers : chaque ligne mensuelle est recalculée par une seule tranche
+            LocalDate lastMonth = endDate.withDayOfMonth(1);
+            for (LocalDate from = startDate.withDayOfMonth(1); !from.isAfter(lastMonth); from = from.plusMonths(chunkMonths)) {
+                LocalDate chunkStart = from;
+                LocalDate chunkEnd = min(from.plusMonths(chunkMonths), lastMonth.plusMonths(1));
+                chunks.add(executor.submit(() -> rebuildChunk(chunkStart, chunkEnd)));
+            }
+
+            int rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            log.info("✅ Invoice daily summary rebuilt: {} rows in {} chunks", rows, chunks.size());
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Invoice summary rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Invoice summary rebuild failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Remplace les lignes du cumul de [from, to) (premiers jours de mois) ; retentée si elle est choisie
+     * comme victime d'un interblocage avec une écriture concurrente
+     */
+    private int rebuildChunk(LocalDate from, LocalDate to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<Object[]> rows = jdbcTemplate.query(AGGREGATE_SQL, (rs, rowNum) -> new Object[]{
+                            rs.getObject("invoice_date", LocalDate.class),
+                            rs.getString("status"),
+                            rs.getLong("invoice_count"),
+                            rs.getBigDecimal("subtotal"),
+                            rs.getBigDecimal("tax_amount"),
+                            rs.getBigDecimal("total_amount")
+                    }, from, to);
+                    jdbcTemplate.update(DELETE_SQL, from, to);
+                    if (!rows.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                    }
+                    List<Object[]> monthlyRows = toMonthly(rows);
+                    jdbcTemplate.update(DELETE_MONTHLY_SQL, from, to);
+                    if (!monthlyRows.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_MONTHLY_SQL, monthlyRows);
+                    }
+                    return rows.size();
+                });
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("⚠️ Lock conflict while rebuilding summary {} - {}, retrying", from, to);
+            }
+        }
+    }
+
+    /**
+     * Lignes (mois, statut) : somme des lignes (jour, statut) de la tranche
+     */
+    private static List<Object[]> toMonthly(List<Object[]> dailyRows) {
+        Map<List<Object>, Object[]> monthly = new LinkedHashMap<>();
+        for (Object[] row : dailyRows) {
+            LocalDate month = ((LocalDate) row[0]).withDayOfMonth(1);
+            Object[] total = monthly.computeIfAbsent(List.of(month, row[1]), key -> new Object[]{
+                    month, row[1], 0L, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            total[2] = (Long) total[2] + (Long) row[2];
+            for (int i = 3; i < 6; i++) {
+                total[i] = ((BigDecimal) total[i]).add(row[i] != null ? (BigDecimal) row[i] : BigDecimal.ZERO);
+            }
+        }
+        return new ArrayList<>(monthly.values());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
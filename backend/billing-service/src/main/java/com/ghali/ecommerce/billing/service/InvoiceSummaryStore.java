@@ -0,0 +1,150 @@
+package com.ghali.ecommerce.billing.service;
+
+import com.ghali.ecommerce.billing.model.Invoice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintenance incrémentale de invoice_daily_summary et invoice_monthly_summary
+ *
+ * Chaque création ou changement de facture est traduit en deltas (nombre, montants)
+ * sur les lignes (jour, statut) concernées : retrait de l'ancien état, ajout du nouveau.
+ * Les deltas sont cumulés par ligne puis appliqués par un upsert additif, dans la
+ * transaction de l'appelant, et reportés sur les lignes (mois, statut). Les lignes sont
+ * toujours verrouillées dans le même ordre (jours puis mois, chacun par date puis statut) :
+ * deux transactions concurrentes ne peuvent pas s'interbloquer.
+ */
+@Component
+public class InvoiceSummaryStore {
+
+    private static final String UPSERT_SQL = "INSERT INTO invoice_daily_summary "
+            + "(summary_date, status, invoice_count, subtotal, tax_amount, total_amount) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + VALUES(invoice_count), "
+            + "subtotal = subtotal + VALUES(subtotal), tax_amount = tax_amount + VALUES(tax_amount), "
+            + "total_amount = total_amount + VALUES(total_amount)";
+
+    private static final String UPSERT_MONTHLY_SQL = "INSERT INTO invoice_monthly_summary "
+            + "(summary_month, status, invoice_count, subtotal, tax_amount, total_amount) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE invoice_count = invoice_count + VALUES(invoice_count), "
+            + "subtotal = subtotal + VALUES(subtotal), tax_amount = tax_amount + VALUES(tax_amount), "
+            + "total_amount = total_amount + VALUES(total_amount)";
+
+    private static final Comparator<SummaryKey> LOCK_ORDER =
+            Comparator.comparing(SummaryKey::date).thenComparing(key -> key.status().name());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvoiceSummaryStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ajoute des factures nouvellement créées
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Invoice> invoices) {
+        Map<SummaryKey, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+        for (Invoice invoice : invoices) {
+            add(deltas, Snapshot.of(invoice), 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Déplace une facture de son état précédent vers son état actuel
+     *
+     * @param before état pris avant la modification (Snapshot.of)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(Snapshot before, Invoice after) {
+        Snapshot current = Snapshot.of(after);
+        if (current.equals(before)) {
+            return;
+        }
+        Map<SummaryKey, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+        add(deltas, before, -1);
+        add(deltas, current, 1);
+        apply(deltas);
+    }
+
+    private void apply(Map<SummaryKey, Delta> deltas) {
+        Map<SummaryKey, Delta> monthly = new TreeMap<>(LOCK_ORDER);
+        deltas.forEach((key, delta) -> monthly
+                .computeIfAbsent(new SummaryKey(key.date().withDayOfMonth(1), key.status()), month -> new Delta())
+                .add(delta));
+        upsert(UPSERT_SQL, deltas);
+        upsert(UPSERT_MONTHLY_SQL, monthly);
+    }
+
+    private void upsert(String sql, Map<SummaryKey, Delta> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                rows.add(new Object[]{key.date(), key.status().name(), delta.count,
+                        delta.subtotal, delta.taxAmount, delta.totalAmount});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    private static void add(Map<SummaryKey, Delta> deltas, Snapshot snapshot, int sign) {
+        Delta delta = deltas.computeIfAbsent(new SummaryKey(snapshot.invoiceDate(), snapshot.status()), key -> new Delta());
+        delta.count += sign;
+        delta.subtotal = delta.subtotal.add(signed(snapshot.subtotal(), sign));
+        delta.taxAmount = delta.taxAmount.add(signed(snapshot.taxAmount(), sign));
+        delta.totalAmount = delta.totalAmount.add(signed(snapshot.totalAmount(), sign));
+    }
+
+    private static BigDecimal signed(BigDecimal amount, int sign) {
+        if (amount == null) {
+            return BigDecimal.ZERO;
+        }
+        return sign < 0 ? amount.negate() : amount;
+    }
+
+    /**
+     * Part d'une facture dans le cumul (jour, statut, montants)
+     */
+    public record Snapshot(LocalDate invoiceDate, Invoice.InvoiceStatus status,
+                           BigDecimal subtotal, BigDecimal taxAmount, BigDecimal totalAmount) {
+
+        public static Snapshot of(Invoice invoice) {
+            return new Snapshot(invoice.getInvoiceDate(), invoice.getStatus(),
+                    invoice.getSubtotal(), invoice.getTaxAmount(), invoice.getTotalAmount());
+        }
+    }
+
+    private record SummaryKey(LocalDate date, Invoice.InvoiceStatus status) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private BigDecimal subtotal = BigDecimal.ZERO;
+        private BigDecimal taxAmount = BigDecimal.ZERO;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+
+        private void add(Delta other) {
+            count += other.count;
+            subtotal = subtotal.add(other.subtotal);
+            taxAmount = taxAmount.add(other.taxAmount);
+            totalAmount = totalAmount.add(other.totalAmount);
+        }
+
+        private boolean isZero() {
+            return count == 0 && subtotal.signum() == 0 && taxAmount.signum() == 0 && totalAmount.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ghali.ecommerce.billing.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Registre des événements Kafka déjà appliqués (clé : KafkaEvent.eventId)
+ *
+ * - la table processed_events fait foi : l'ID est inséré dans la transaction qui
+ *   applique l'événement, donc effets et marquage sont validés ensemble
+ * - un filtre de Bloom en mémoire évite la lecture en base dans le cas courant :
+ *   un ID absent du filtre n'a jamais été vu, seuls les "peut-être" sont vérifiés
+ * - deux filtres en rotation bornent la mémoire ; au démarrage le filtre est
+ *   rechargé avec les IDs récents (fenêtre de redélivrance)
+ */
+@Component
+@Slf4j
+public class ProcessedEventStore {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_events (event_id, processed_at) VALUES (:eventId, :processedAt)";
+    private static final String SELECT_SQL =
+            "SELECT event_id FROM processed_events WHERE event_id IN (:eventIds)";
+    private static final String RECENT_SQL =
+            "SELECT event_id FROM processed_events WHERE processed_at >= :since";
+    private static final String PURGE_SQL =
+            "DELETE FROM processed_events WHERE processed_at < :before LIMIT 1000";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${billing.idempotency.bloom-expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${billing.idempotency.bloom-false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${billing.idempotency.warmup-days:7}")
+    private long warmupDays;
+
+    @Value("${billing.idempotency.retention-days:30}")
+    private long retentionDays;
+
+    private BloomFilter current;
+    private BloomFilter previous;
+    private boolean ready;
+
+    public ProcessedEventStore(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Recharge le filtre avec les événements récemment appliqués
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        BloomFilter filter = newFilter();
+        long[] loaded = {0};
+        jdbcTemplate.query(RECENT_SQL,
+                new MapSqlParameterSource("since", Timestamp.valueOf(LocalDateTime.now().minusDays(warmupDays))),
+                rs -> {
+                    filter.put(rs.getString(1));
+                    loaded[0]++;
+                });
+
+        synchronized (this) {
+            // Les IDs appliqués pendant le chargement sont déjà dans le filtre provisoire
+            if (current != null) {
+                previous = current;
+            }
+            current = filter;
+            ready = true;
+        }
+        log.info("✅ Processed event filter loaded with {} event IDs", loaded[0]);
+    }
+
+    /**
+     * IDs déjà appliqués parmi ceux donnés ; n'interroge la base que pour les
+     * IDs que le filtre de Bloom signale comme peut-être vus
+     */
+    public Set<String> findProcessed(Collection<String> eventIds) {
+        List<String> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (String eventId : eventIds) {
+                if (mightContain(eventId)) {
+                    candidates.add(eventId);
+                }
+            }
+        }
+        return candidates.isEmpty() ? Set.of() : findProcessedInDatabase(candidates);
+    }
+
+    /**
+     * IDs déjà appliqués d'après la base uniquement (après un conflit de clé)
+     */
+    public Set<String> findProcessedInDatabase(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_SQL,
+                new MapSqlParameterSource("eventIds", eventIds), String.class));
+    }
+
+    /**
+     * Marque les événements comme appliqués dans la transaction en cours
+     *
+     * @throws org.springframework.dao.DuplicateKeyException si un autre consumer
+     *         vient d'appliquer l'un d'eux (la transaction doit être annulée)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markProcessed(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource[] batch = eventIds.stream()
+                .map(eventId -> new MapSqlParameterSource("eventId", eventId).addValue("processedAt", now))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+
+        List<String> ids = new ArrayList<>(eventIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(ProcessedEventStore.this::remember);
+            }
+        });
+    }
+
+    /**
+     * Purge les événements plus anciens que la fenêtre de rétention
+     */
+    @Scheduled(fixedDelayString = "${billing.idempotency.purge-interval-ms:3600000}")
+    public void purge() {
+        MapSqlParameterSource params = new MapSqlParameterSource("before",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, params);
+            total += deleted;
+        } while (deleted > 0);
+        if (total > 0) {
+            log.info("🧹 Purged {} processed event IDs", total);
+        }
+    }
+
+    private synchronized void remember(String eventId) {
+        if (current == null) {
+            current = newFilter();
+        }
+        // Filtre plein : le précédent est abandonné, la mémoire reste bornée à deux filtres
+        if (current.isFull()) {
+            previous = current;
+            current = newFilter();
+        }
+        current.put(eventId);
+    }
+
+    private boolean mightContain(String eventId) {
+        // Filtre pas encore chargé : tout doit être vérifié en base
+        if (!ready) {
+            return true;
+        }
+        return current.mightContain(eventId) || (previous != null && previous.mightContain(eventId));
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+}
@@ -0,0 +1,197 @@
+package com.ghali.ecommerce.billing.service;
+
+import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.common.dto.RevenueBucketDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seaux horaires de chiffre d'affaires des derniers jours, maintenus en mémoire
+ *
+ * - un seau par heure de création, avec un total par statut
+ * - seules les factures créées dans la fenêtre (hourly-retention-days) sont suivies :
+ *   chacune garde son dernier état (statut, montant, version = updatedAt), un changement
+ *   retire l'ancien montant de son statut et l'ajoute au nouveau ; la mémoire est donc
+ *   bornée par le volume de la fenêtre, les états sortis de la fenêtre sont purgés
+ * - alimenté par les événements billing-events, initialisé depuis la table invoices
+ *   et resynchronisé périodiquement sur les factures modifiées récemment (rattrape un
+ *   événement perdu) ; un état plus ancien que celui connu est ignoré, l'ordre
+ *   d'arrivée et les doublons sont donc sans effet
+ *
+ * Les cumuls par jour et par période sont lus dans invoice_daily_summary.
+ */
+@Component
+@Slf4j
+public class RevenueAggregator {
+
+    private static final Invoice.InvoiceStatus[] STATUSES = Invoice.InvoiceStatus.values();
+
+    private static final String SELECT_SQL = "SELECT id, status, total_amount, created_at, updated_at "
+            + "FROM invoices WHERE created_at >= ?";
+    private static final String SELECT_UPDATED_SQL = SELECT_SQL + " AND updated_at >= ?";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final Map<Long, InvoiceState> invoices = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<LocalDateTime, AtomicLongArray> hourly = new ConcurrentSkipListMap<>();
+
+    @Value("${billing.revenue.hourly-retention-days:7}")
+    private long hourlyRetentionDays;
+
+    @Value("${billing.revenue.reconcile-overlap-ms:60000}")
+    private long reconcileOverlapMs;
+
+    private volatile boolean ready;
+    private volatile LocalDateTime lastReconcile;
+
+    public RevenueAggregator(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL : lecture en flux plutôt que tout le résultat en mémoire
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Charge l'état des factures de la fenêtre ; les événements reçus pendant le chargement
+     * sont appliqués normalement (la version la plus récente l'emporte)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        int loaded = load(SELECT_SQL, Timestamp.valueOf(hourlyCutoff()));
+        lastReconcile = startedAt;
+        ready = true;
+        log.info("✅ Revenue aggregates built from {} invoices", loaded);
+    }
+
+    /**
+     * Relit les factures modifiées depuis la dernière synchronisation
+     */
+    @Scheduled(fixedDelayString = "${billing.revenue.reconcile-interval-ms:300000}",
+            initialDelayString = "${billing.revenue.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        int reloaded = load(SELECT_UPDATED_SQL, Timestamp.valueOf(hourlyCutoff()),
+                Timestamp.valueOf(lastReconcile.minus(reconcileOverlapMs, ChronoUnit.MILLIS)));
+        lastReconcile = startedAt;
+        log.debug("🔄 Revenue aggregates reconciled with {} recently updated invoices", reloaded);
+    }
+
+    /**
+     * Supprime les seaux horaires et les états de facture sortis de la fenêtre
+     */
+    @Scheduled(cron = "${billing.revenue.purge-cron:0 5 * * * *}")
+    public void purgeHourly() {
+        LocalDateTime cutoff = hourlyCutoff();
+        hourly.headMap(cutoff).clear();
+        invoices.values().removeIf(state -> state.createdHour.isBefore(cutoff));
+    }
+
+    /**
+     * Applique l'état d'une facture porté par un événement
+     */
+    public void apply(Long invoiceId, Invoice.InvoiceStatus status, BigDecimal totalAmount,
+                      LocalDateTime createdAt, LocalDateTime updatedAt) {
+        if (invoiceId == null || status == null || totalAmount == null || createdAt == null || updatedAt == null) {
+            return;
+        }
+        LocalDateTime createdHour = createdAt.truncatedTo(ChronoUnit.HOURS);
+        // Facture antérieure à la fenêtre : absente des seaux horaires, rien à suivre
+        if (createdHour.isBefore(hourlyCutoff())) {
+            return;
+        }
+        InvoiceState state = new InvoiceState(status, toCents(totalAmount), createdHour, updatedAt);
+        invoices.compute(invoiceId, (id, previous) -> {
+            if (previous != null && !state.updatedAt.isAfter(previous.updatedAt)) {
+                return previous;
+            }
+            if (previous != null) {
+                add(previous, -previous.amountCents);
+            }
+            add(state, state.amountCents);
+            return state;
+        });
+    }
+
+    public List<RevenueBucketDTO> getHourlyBuckets(LocalDate startDate, LocalDate endDate) {
+        NavigableMap<LocalDateTime, AtomicLongArray> range =
+                hourly.subMap(startDate.atStartOfDay(), true, endDate.plusDays(1).atStartOfDay(), false);
+        List<RevenueBucketDTO> buckets = new ArrayList<>(range.size());
+        range.forEach((hour, totals) -> {
+            Map<String, BigDecimal> byStatus = new LinkedHashMap<>();
+            for (Invoice.InvoiceStatus status : STATUSES) {
+                long cents = totals.get(status.ordinal());
+                if (cents != 0) {
+                    byStatus.put(status.name(), fromCents(cents));
+                }
+            }
+            buckets.add(RevenueBucketDTO.builder()
+                    .periodStart(hour)
+                    .revenue(fromCents(totals.get(Invoice.InvoiceStatus.PAID.ordinal())))
+                    .totalsByStatus(byStatus)
+                    .build());
+        });
+        return buckets;
+    }
+
+    private int load(String sql, Object... args) {
+        int[] count = {0};
+        streamingJdbcTemplate.query(sql, rs -> {
+            apply(rs.getLong("id"),
+                    Invoice.InvoiceStatus.valueOf(rs.getString("status")),
+                    rs.getBigDecimal("total_amount"),
+                    rs.getObject("created_at", LocalDateTime.class),
+                    rs.getObject("updated_at", LocalDateTime.class));
+            count[0]++;
+        }, args);
+        return count[0];
+    }
+
+    private void add(InvoiceState state, long cents) {
+        hourly.computeIfAbsent(state.createdHour, hour -> new AtomicLongArray(STATUSES.length))
+                .addAndGet(state.status.ordinal(), cents);
+    }
+
+    private LocalDateTime hourlyCutoff() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(hourlyRetentionDays);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private record InvoiceState(Invoice.InvoiceStatus status, long amountCents,
+                                LocalDateTime createdHour, LocalDateTime updatedAt) {
+    }
+}
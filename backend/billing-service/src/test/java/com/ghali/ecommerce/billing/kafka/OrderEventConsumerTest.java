@@ -0,0 +1,134 @@
+package com.ghali.ecommerce.billing.kafka;
+
+import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.billing.repository.InvoiceDailySummaryRepository;
+import com.ghali.ecommerce.billing.repository.InvoiceMonthlySummaryRepository;
+import com.ghali.ecommerce.billing.repository.InvoiceRepository;
+import com.ghali.ecommerce.billing.service.InvoiceNumberAllocator;
+import com.ghali.ecommerce.billing.service.InvoiceService;
+import com.ghali.ecommerce.billing.service.InvoiceSummaryStore;
+import com.ghali.ecommerce.billing.service.ProcessedEventStore;
+import com.ghali.ecommerce.billing.service.RevenueAggregator;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Facturation concurrente d'une même commande : l'index unique sur order_id fait
+ * échouer l'INSERT en lot, le lot est rejoué en se fiant uniquement à la base
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+// Le consumer gère ses propres transactions, comme sous @KafkaListener
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderEventConsumerTest {
+
+    private static final long INVOICED_ELSEWHERE = 7L;
+    private static final long NEW_ORDER = 8L;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final BillingEventProducer billingEventProducer = mock(BillingEventProducer.class);
+    private final ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+    private OrderEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        // Facture créée par un autre consumer : invisible au préchargement du premier passage
+        invoiceRepository.save(Invoice.builder()
+                .invoiceNumber("INV-2026-000001")
+                .orderId(INVOICED_ELSEWHERE)
+                .orderNumber("ORD-2026-000007")
+                .customerId("customer-1")
+                .invoiceDate(LocalDate.now())
+                .dueDate(LocalDate.now())
+                .subtotal(new BigDecimal("100.00"))
+                .totalAmount(new BigDecimal("120.00"))
+                .status(Invoice.InvoiceStatus.ISSUED)
+                .build());
+
+        InvoiceRepository staleOnce = mock(InvoiceRepository.class, AdditionalAnswers.delegatesTo(invoiceRepository));
+        doReturn(List.of()).doAnswer(AdditionalAnswers.delegatesTo(invoiceRepository))
+                .when(staleOnce).findInvoicedOrderIds(anyCollection());
+
+        AtomicInteger numbers = new AtomicInteger(1);
+        InvoiceNumberAllocator allocator = mock(InvoiceNumberAllocator.class);
+        when(allocator.nextInvoiceNumber()).thenAnswer(invocation ->
+                String.format("INV-2026-%06d", numbers.incrementAndGet()));
+
+        InvoiceService invoiceService = new InvoiceService(staleOnce, billingEventProducer, allocator, jdbcTemplate,
+                mock(RevenueAggregator.class), mock(InvoiceSummaryStore.class),
+                mock(InvoiceDailySummaryRepository.class), mock(InvoiceMonthlySummaryRepository.class));
+        ReflectionTestUtils.setField(invoiceService, "defaultTaxRate", new BigDecimal("0.20"));
+
+        when(processedEventStore.findProcessed(any())).thenReturn(Set.of());
+        when(processedEventStore.findProcessedInDatabase(any())).thenReturn(Set.of());
+        consumer = new OrderEventConsumer(invoiceService, billingEventProducer, processedEventStore,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void duplicateInvoiceFallsBackToTheDatabaseOnlyReplay() {
+        consumer.consumeOrderEvents(List.of(confirmed(INVOICED_ELSEWHERE), confirmed(NEW_ORDER)));
+
+        verify(processedEventStore).findProcessedInDatabase(any());
+        assertThat(invoiceRepository.findAll()).extracting(Invoice::getOrderId)
+                .containsExactlyInAnyOrder(INVOICED_ELSEWHERE, NEW_ORDER);
+
+        ArgumentCaptor<List<Invoice>> created = ArgumentCaptor.forClass(List.class);
+        verify(billingEventProducer).publishInvoiceEvents(eq("INVOICE_CREATED"), created.capture());
+        assertThat(created.getValue()).extracting(Invoice::getOrderId).containsExactly(NEW_ORDER);
+    }
+
+    private static KafkaEvent<OrderDTO> confirmed(long orderId) {
+        OrderDTO order = OrderDTO.builder()
+                .id(orderId)
+                .orderNumber(String.format("ORD-2026-%06d", orderId))
+                .customerId("customer-1")
+                .totalAmount(new BigDecimal("50.00"))
+                .build();
+        return KafkaEvent.create("ORDER_CONFIRMED", "order-service", order, null);
+    }
+}
@@ -0,0 +1,162 @@
+package com.ghali.ecommerce.billing.repository;
+
+import com.ghali.ecommerce.billing.kafka.BillingEventProducer;
+import com.ghali.ecommerce.billing.model.Invoice;
+import com.ghali.ecommerce.billing.model.InvoiceDailySummary;
+import com.ghali.ecommerce.billing.model.InvoiceMonthlySummary;
+import com.ghali.ecommerce.billing.service.InvoiceNumberAllocator;
+import com.ghali.ecommerce.billing.service.InvoiceService;
+import com.ghali.ecommerce.billing.service.InvoiceSummaryStore;
+import com.ghali.ecommerce.billing.service.RevenueAggregator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Nombre de requêtes des lectures exposées par InvoiceController : listes en projection
+ * (sans entités) et chiffre d'affaires lu dans les tables de cumul
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class InvoiceRepositoryQueryCountTest {
+
+    private static final int INVOICES = 5;
+    private static final LocalDate YEAR_START = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoiceDailySummaryRepository invoiceDailySummaryRepository;
+
+    @Autowired
+    private InvoiceMonthlySummaryRepository invoiceMonthlySummaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < INVOICES; i++) {
+            entityManager.persist(Invoice.builder()
+                    .invoiceNumber("INV-2026-" + i)
+                    .orderId((long) i)
+                    .orderNumber("ORD-2026-" + i)
+                    .customerId("customer-1")
+                    .invoiceDate(YEAR_START.plusDays(i))
+                    .dueDate(YEAR_START.plusDays(i))
+                    .subtotal(new BigDecimal("100.00"))
+                    .totalAmount(new BigDecimal("120.00"))
+                    .status(Invoice.InvoiceStatus.ISSUED)
+                    .build());
+        }
+        // Une année pleine de cumuls journaliers (2 statuts par jour)
+        for (LocalDate day = YEAR_START; day.getYear() == 2026; day = day.plusDays(1)) {
+            for (Invoice.InvoiceStatus status : List.of(Invoice.InvoiceStatus.PAID, Invoice.InvoiceStatus.ISSUED)) {
+                entityManager.persist(InvoiceDailySummary.builder()
+                        .summaryDate(day)
+                        .status(status)
+                        .invoiceCount(1L)
+                        .subtotal(new BigDecimal("100.00"))
+                        .taxAmount(new BigDecimal("20.00"))
+                        .totalAmount(new BigDecimal("120.00"))
+                        .build());
+            }
+        }
+        // Cumuls mensuels correspondants
+        for (LocalDate month = YEAR_START; month.getYear() == 2026; month = month.plusMonths(1)) {
+            for (Invoice.InvoiceStatus status : List.of(Invoice.InvoiceStatus.PAID, Invoice.InvoiceStatus.ISSUED)) {
+                long days = month.lengthOfMonth();
+                entityManager.persist(InvoiceMonthlySummary.builder()
+                        .summaryMonth(month)
+                        .status(status)
+                        .invoiceCount(days)
+                        .subtotal(new BigDecimal("100.00").multiply(BigDecimal.valueOf(days)))
+                        .taxAmount(new BigDecimal("20.00").multiply(BigDecimal.valueOf(days)))
+                        .totalAmount(new BigDecimal("120.00").multiply(BigDecimal.valueOf(days)))
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerInvoiceListIsOneQueryWithoutLoadingEntities() {
+        Page<InvoiceRepository.SummaryView> page = invoiceRepository.findSummariesByCustomerId("customer-1",
+                PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).hasSize(INVOICES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void overdueListIsOneQueryWithoutLoadingEntities() {
+        List<InvoiceRepository.SummaryView> overdue = invoiceRepository.findOverdueInvoices(
+                Invoice.InvoiceStatus.ISSUED, YEAR_START.plusDays(INVOICES));
+
+        assertThat(overdue).hasSize(INVOICES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void yearlyRevenueIsOneAggregateQuery() {
+        BigDecimal revenue = invoiceDailySummaryRepository.getTotalRevenueForPeriod(
+                YEAR_START, YEAR_START.withDayOfYear(YEAR_START.lengthOfYear()));
+
+        assertThat(revenue).isEqualByComparingTo(new BigDecimal("120.00").multiply(BigDecimal.valueOf(365)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void longRevenueRangeReadsWholeMonthsAndTheEdgeDays() {
+        InvoiceService invoiceService = new InvoiceService(invoiceRepository, mock(BillingEventProducer.class),
+                mock(InvoiceNumberAllocator.class), mock(JdbcTemplate.class), mock(RevenueAggregator.class),
+                mock(InvoiceSummaryStore.class), invoiceDailySummaryRepository, invoiceMonthlySummaryRepository);
+        LocalDate startDate = LocalDate.of(2026, 1, 15);
+        LocalDate endDate = LocalDate.of(2026, 11, 10);
+
+        BigDecimal revenue = invoiceService.getTotalRevenue(startDate, endDate);
+
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        assertThat(revenue).isEqualByComparingTo(new BigDecimal("120.00").multiply(BigDecimal.valueOf(days)));
+        // Février à octobre dans le cumul mensuel, janvier et novembre jour par jour
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void dailyBucketsAreOneQueryOverTheRollup() {
+        List<InvoiceDailySummary> rows = invoiceDailySummaryRepository.findByPeriod(YEAR_START, YEAR_START.plusDays(30));
+
+        assertThat(rows).hasSize(31 * 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
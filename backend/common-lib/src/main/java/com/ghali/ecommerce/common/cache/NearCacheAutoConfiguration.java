@@ -0,0 +1,55 @@
+package com.ghali.ecommerce.common.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Auto-configuration du near-cache pour les services utilisant Redis et Caffeine
+ */
+@AutoConfiguration(after = RedisAutoConfiguration.class)
+@ConditionalOnClass({RedisConnectionFactory.class, com.github.benmanes.caffeine.cache.Caffeine.class})
+@ConditionalOnBean(RedisConnectionFactory.class)
+@EnableConfigurationProperties(NearCacheProperties.class)
+public class NearCacheAutoConfiguration {
+
+    @Bean
+    public NearCacheRegistry nearCacheRegistry(NearCacheProperties properties, StringRedisTemplate redisTemplate) {
+        return new NearCacheRegistry(properties, redisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    NearCacheRegistry nearCacheRegistry) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCacheRegistry, new ChannelTopic(nearCacheRegistry.getChannel()));
+        return container;
+    }
+
+    /**
+     * Place le niveau L1 devant le CacheManager utilisé par @Cacheable
+     */
+    @Bean
+    public static BeanPostProcessor twoLevelCacheManagerPostProcessor(ObjectProvider<NearCacheRegistry> nearCacheRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof TwoLevelCacheManager)) {
+                    return new TwoLevelCacheManager(cacheManager, nearCacheRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
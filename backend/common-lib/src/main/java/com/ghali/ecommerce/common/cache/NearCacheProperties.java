@@ -0,0 +1,46 @@
+package com.ghali.ecommerce.common.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration du cache local (L1) par nom de cache
+ *
+ * <pre>
+ * near-cache:
+ *   caches:
+ *     products:
+ *       maximum-size: 10000
+ *       expire-after-write: 30s
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "near-cache")
+public class NearCacheProperties {
+
+    /**
+     * Canal Redis pub/sub utilisé pour propager les invalidations entre instances
+     */
+    private String channel = "near-cache:invalidation";
+
+    /**
+     * Caches disposant d'un niveau L1, par nom ; les autres restent uniquement dans Redis
+     */
+    private Map<String, Spec> caches = new HashMap<>();
+
+    @Data
+    public static class Spec {
+
+        private long maximumSize = 10_000;
+
+        /**
+         * Borne la durée pendant laquelle une instance peut servir une valeur périmée
+         * si un message d'invalidation est perdu
+         */
+        private Duration expireAfterWrite = Duration.ofSeconds(30);
+    }
+}
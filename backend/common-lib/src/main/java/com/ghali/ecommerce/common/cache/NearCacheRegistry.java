@@ -0,0 +1,107 @@
+package com.ghali.ecommerce.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caches locaux Caffeine (L1) placés devant Redis (L2)
+ *
+ * Les clés sont normalisées en String pour que les invalidations reçues
+ * par pub/sub correspondent aux clés locales quel que soit leur type d'origine.
+ * Message d'invalidation : instanceId|cacheName|key (key = * pour tout vider).
+ */
+@Slf4j
+public class NearCacheRegistry implements MessageListener {
+
+    private static final String ALL_KEYS = "*";
+    private static final String SEPARATOR = "|";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Cache<String, Object>> caches = new HashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+
+    public NearCacheRegistry(NearCacheProperties properties, StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.channel = properties.getChannel();
+        properties.getCaches().forEach((name, spec) -> caches.put(name, Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getExpireAfterWrite())
+                .build()));
+    }
+
+    public boolean isEnabled(String cacheName) {
+        return caches.containsKey(cacheName);
+    }
+
+    public Object get(String cacheName, Object key) {
+        Cache<String, Object> cache = caches.get(cacheName);
+        return cache != null ? cache.getIfPresent(String.valueOf(key)) : null;
+    }
+
+    public void put(String cacheName, Object key, Object value) {
+        Cache<String, Object> cache = caches.get(cacheName);
+        if (cache != null && value != null) {
+            cache.put(String.valueOf(key), value);
+        }
+    }
+
+    /**
+     * Invalide la clé localement puis sur les autres instances
+     */
+    public void invalidate(String cacheName, Object key) {
+        invalidateLocal(cacheName, String.valueOf(key));
+        publish(cacheName, String.valueOf(key));
+    }
+
+    public void invalidateAll(String cacheName) {
+        invalidateLocal(cacheName, ALL_KEYS);
+        publish(cacheName, ALL_KEYS);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        invalidateLocal(parts[1], parts[2]);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    private void invalidateLocal(String cacheName, String key) {
+        Cache<String, Object> cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        if (!caches.containsKey(cacheName)) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (RuntimeException e) {
+            // Les autres instances expireront l'entrée au bout de expire-after-write
+            log.warn("⚠️ Failed to publish near-cache invalidation for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ghali.ecommerce.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache Spring à deux niveaux : L1 local (NearCacheRegistry) puis le cache délégué (Redis)
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache delegate;
+    private final NearCacheRegistry nearCache;
+
+    public TwoLevelCache(Cache delegate, NearCacheRegistry nearCache) {
+        this.delegate = delegate;
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object local = nearCache.get(getName(), key);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+        ValueWrapper remote = delegate.get(key);
+        if (remote != null) {
+            nearCache.put(getName(), key, remote.get());
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object local = nearCache.get(getName(), key);
+        if (local != null) {
+            return (T) local;
+        }
+        T value = delegate.get(key, valueLoader);
+        nearCache.put(getName(), key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        // Les autres instances rechargeront la nouvelle valeur depuis Redis
+        nearCache.invalidate(getName(), key);
+        nearCache.put(getName(), key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        nearCache.invalidate(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        nearCache.invalidateAll(getName());
+    }
+}
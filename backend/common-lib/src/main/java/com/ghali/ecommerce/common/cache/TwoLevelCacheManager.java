@@ -0,0 +1,38 @@
+package com.ghali.ecommerce.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Décore un CacheManager (Redis) : les caches configurés dans near-cache.caches
+ * reçoivent un niveau L1 Caffeine, les autres sont retournés tels quels
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final NearCacheRegistry nearCache;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager delegate, NearCacheRegistry nearCache) {
+        this.delegate = delegate;
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null || !nearCache.isEnabled(name)) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(cache, nearCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
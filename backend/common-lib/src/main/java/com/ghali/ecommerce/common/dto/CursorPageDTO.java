@@ -0,0 +1,32 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de résultats paginée par curseur (keyset)
+ *
+ * nextCursor est un jeton opaque à renvoyer tel quel pour obtenir la page suivante.
+ * totalElements / totalPages ne sont renseignés que sur la première page
+ * (pas de COUNT(*) sur les pages suivantes). number est le numéro de la page,
+ * qu'elle soit atteinte par curseur ou en accès direct.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int number;
+    private int size;
+    private int numberOfElements;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+    private Integer totalPages;
+}
@@ -0,0 +1,27 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerAddressDTO implements Serializable {
+
+    private Long id;
+    private String label;
+    private String fullName;
+    private String addressLine1;
+    private String addressLine2;
+    private String city;
+    private String state;
+    private String zipCode;
+    private String country;
+    private String phone;
+    private Boolean isDefault;
+}
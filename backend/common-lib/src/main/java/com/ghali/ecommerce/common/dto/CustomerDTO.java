@@ -0,0 +1,44 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Profil client (vue de détail, avec adresses)
+ * Serializable : mis en cache Redis (cache "customers")
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerDTO implements Serializable {
+
+    private Long id;
+    private String keycloakId;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phone;
+    private LocalDate dateOfBirth;
+    private String gender;
+    private String profilePictureUrl;
+    private Boolean newsletterSubscribed;
+    private String preferredLanguage;
+    private List<CustomerAddressDTO> addresses;
+    private Integer totalOrders;
+    private BigDecimal totalSpent;
+    private Integer loyaltyPoints;
+    private Boolean active;
+    private Boolean verifiedEmail;
+    private Boolean verifiedPhone;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastLogin;
+}
@@ -0,0 +1,27 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Ligne du classement des clients (projection légère, sans adresses)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDTO {
+
+    // Position dans le classement demandé (1 = plus gros montant dépensé)
+    private long rank;
+    private Long customerId;
+    private String fullName;
+    private String email;
+    private BigDecimal totalSpent;
+    private Integer totalOrders;
+    private Integer loyaltyPoints;
+}
@@ -22,6 +22,7 @@ public class OrderDTO {
     private String orderNumber;
     private String customerId;
     private String customerEmail;
+    private String customerLanguage;  // FR / EN, pour les notifications
     private OrderStatus status;
     private BigDecimal totalAmount;
     private List<OrderItemDTO> items;
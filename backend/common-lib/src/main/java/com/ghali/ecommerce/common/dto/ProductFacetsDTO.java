@@ -0,0 +1,50 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facettes du catalogue pour la barre latérale de la boutique
+ *
+ * Chaque facette est comptée avec tous les filtres actifs sauf le sien,
+ * pour que les autres valeurs d'une facette déjà filtrée restent sélectionnables.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+
+    // Produits correspondant à tous les filtres
+    private long total;
+
+    // Catégorie -> nombre de produits, par nombre décroissant
+    private Map<String, Long> categories;
+
+    private List<PriceRange> priceRanges;
+
+    // Note minimale (1 à 4) -> nombre de produits notés au moins autant
+    private Map<Integer, Long> minRatings;
+
+    private long inStock;
+
+    // Tags les plus fréquents -> nombre de produits
+    private Map<String, Long> tags;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRange {
+        private BigDecimal min;
+        // null pour la dernière tranche (sans borne supérieure)
+        private BigDecimal max;
+        private long count;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Montants facturés sur une période (jour ou heure), par statut de facture
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueBucketDTO {
+
+    // Début de la période (minuit pour un jour, heure pleine pour une heure)
+    private LocalDateTime periodStart;
+
+    // Chiffre d'affaires encaissé (factures PAID)
+    private BigDecimal revenue;
+
+    // Statut -> montant total des factures dans ce statut
+    private Map<String, BigDecimal> totalsByStatus;
+}
@@ -0,0 +1,31 @@
+package com.ghali.ecommerce.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO pour les réservations de stock multi-produits (checkout)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+
+    private String reservationId;
+    private ReservationStatus status;
+    private List<StockReservationItemDTO> items;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public enum ReservationStatus {
+        PENDING,
+        COMMITTED,
+        RELEASED
+    }
+}
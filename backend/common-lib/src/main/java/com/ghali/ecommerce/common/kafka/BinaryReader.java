@@ -0,0 +1,152 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Lecture du format écrit par BinaryWriter
+ */
+final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    BinaryReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        if (position >= buffer.length) {
+            throw new SerializationException("Truncated event: unexpected end of data");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varlong");
+    }
+
+    long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        checkAvailable(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    String readId() {
+        switch (readByte()) {
+            case 0:
+                return null;
+            case 1:
+                return new UUID(readFixedLong(), readFixedLong()).toString();
+            case 2:
+                return readString();
+            default:
+                throw new SerializationException("Unknown id encoding");
+        }
+    }
+
+    Long readNullableLong() {
+        return readByte() == 0 ? null : readSignedVarLong();
+    }
+
+    Integer readNullableInt() {
+        return readByte() == 0 ? null : (int) readSignedVarLong();
+    }
+
+    Boolean readNullableBoolean() {
+        int value = readByte();
+        return value == 0 ? null : value == 2;
+    }
+
+    Double readNullableDouble() {
+        return readByte() == 0 ? null : Double.longBitsToDouble(readFixedLong());
+    }
+
+    BigDecimal readDecimal() {
+        switch (readByte()) {
+            case 0:
+                return null;
+            case 1: {
+                int scale = (int) readSignedVarLong();
+                return BigDecimal.valueOf(readSignedVarLong(), scale);
+            }
+            case 2: {
+                int scale = (int) readSignedVarLong();
+                int length = readVarInt();
+                checkAvailable(length);
+                byte[] bytes = new byte[length];
+                System.arraycopy(buffer, position, bytes, 0, length);
+                position += length;
+                return new BigDecimal(new BigInteger(bytes), scale);
+            }
+            default:
+                throw new SerializationException("Unknown decimal encoding");
+        }
+    }
+
+    LocalDateTime readDateTime() {
+        if (readByte() == 0) {
+            return null;
+        }
+        long seconds = readSignedVarLong();
+        return LocalDateTime.ofEpochSecond(seconds, readVarInt(), ZoneOffset.UTC);
+    }
+
+    /**
+     * @return -1 pour une collection null
+     */
+    int readSize() {
+        return readVarInt() - 1;
+    }
+
+    private long readFixedLong() {
+        checkAvailable(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void checkAvailable(int length) {
+        if (length > buffer.length - position) {
+            throw new SerializationException("Truncated event: unexpected end of data");
+        }
+    }
+}
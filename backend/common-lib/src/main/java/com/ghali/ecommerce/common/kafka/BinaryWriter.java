@@ -0,0 +1,179 @@
+package com.ghali.ecommerce.common.kafka;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Écriture du format binaire des événements : entiers en varint (zigzag pour les
+ * signés), chaînes UTF-8 préfixées par leur longueur, valeurs nullables précédées
+ * d'un octet de présence
+ */
+final class BinaryWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * null : 0 ; sinon longueur + 1 puis les octets UTF-8
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * IDs d'événement et IDs Keycloak : un UUID tient en 16 octets au lieu de 36 caractères
+     */
+    void writeId(String value) {
+        UUID uuid = parseUuid(value);
+        if (uuid == null) {
+            writeByte(value == null ? 0 : 2);
+            if (value != null) {
+                writeString(value);
+            }
+            return;
+        }
+        writeByte(1);
+        writeFixedLong(uuid.getMostSignificantBits());
+        writeFixedLong(uuid.getLeastSignificantBits());
+    }
+
+    void writeNullableLong(Long value) {
+        writeByte(value == null ? 0 : 1);
+        if (value != null) {
+            writeSignedVarLong(value);
+        }
+    }
+
+    void writeNullableInt(Integer value) {
+        writeByte(value == null ? 0 : 1);
+        if (value != null) {
+            writeSignedVarLong(value);
+        }
+    }
+
+    void writeNullableBoolean(Boolean value) {
+        writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    void writeNullableDouble(Double value) {
+        writeByte(value == null ? 0 : 1);
+        if (value != null) {
+            writeFixedLong(Double.doubleToLongBits(value));
+        }
+    }
+
+    /**
+     * Échelle + valeur non mise à l'échelle (varint si elle tient sur un long)
+     */
+    void writeDecimal(BigDecimal value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+        if (value.unscaledValue().bitLength() < 64) {
+            writeByte(1);
+            writeSignedVarLong(value.scale());
+            writeSignedVarLong(value.unscaledValue().longValue());
+            return;
+        }
+        writeByte(2);
+        writeSignedVarLong(value.scale());
+        byte[] bytes = value.unscaledValue().toByteArray();
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Secondes (UTC, sans fuseau comme LocalDateTime) puis nanosecondes
+     */
+    void writeDateTime(LocalDateTime value) {
+        writeByte(value == null ? 0 : 1);
+        if (value != null) {
+            writeSignedVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(value.getNano());
+        }
+    }
+
+    /**
+     * null : 0 ; sinon taille + 1
+     */
+    void writeSize(Collection<?> collection) {
+        writeVarInt(collection == null ? 0 : collection.size() + 1);
+    }
+
+    private void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        // Forme canonique uniquement : le décodage doit redonner exactement la même chaîne
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Auto-configuration des clients Kafka pour les services utilisant spring-kafka
+ *
+ * Complète chaque factory de producers / consumers du contexte (celles de Spring Boot
+ * comme celles déclarées par un service) avec les réglages du profil choisi, sans
+ * écraser les valeurs que la factory définit déjà.
+ */
+@AutoConfiguration
+@ConditionalOnClass(DefaultKafkaProducerFactory.class)
+@EnableConfigurationProperties(KafkaClientProperties.class)
+public class KafkaClientAutoConfiguration {
+
+    @Bean
+    public static BeanPostProcessor kafkaClientTuningPostProcessor(ObjectProvider<KafkaClientProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DefaultKafkaProducerFactory<?, ?> producerFactory) {
+                    apply(producerFactory.getConfigurationProperties(), producerSettings(properties.getObject()),
+                            producerFactory::updateConfigs);
+                } else if (bean instanceof DefaultKafkaConsumerFactory<?, ?> consumerFactory) {
+                    apply(consumerFactory.getConfigurationProperties(), consumerSettings(properties.getObject()),
+                            consumerFactory::updateConfigs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static Map<String, Object> producerSettings(KafkaClientProperties properties) {
+        Map<String, Object> settings = new HashMap<>(properties.getProfile().producerDefaults());
+        KafkaClientProperties.Producer producer = properties.getProducer();
+        putIfSet(settings, ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompression());
+        putIfSet(settings, ProducerConfig.ACKS_CONFIG, producer.getAcks());
+        putIfSet(settings, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producer.getIdempotence());
+        putIfSet(settings, ProducerConfig.LINGER_MS_CONFIG, producer.getLingerMs());
+        putIfSet(settings, ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+        putIfSet(settings, ProducerConfig.BUFFER_MEMORY_CONFIG, producer.getBufferMemory());
+        if (!properties.getBinaryTopics().isEmpty()) {
+            settings.put(KafkaEventSerializer.BINARY_TOPICS_CONFIG, properties.getBinaryTopics());
+        }
+        return settings;
+    }
+
+    static Map<String, Object> consumerSettings(KafkaClientProperties properties) {
+        Map<String, Object> settings = new HashMap<>(properties.getProfile().consumerDefaults());
+        KafkaClientProperties.Consumer consumer = properties.getConsumer();
+        putIfSet(settings, ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumer.getMaxPollRecords());
+        putIfSet(settings, ConsumerConfig.FETCH_MIN_BYTES_CONFIG, consumer.getFetchMinBytes());
+        putIfSet(settings, ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, consumer.getFetchMaxWaitMs());
+        return settings;
+    }
+
+    private static void apply(Map<String, Object> current, Map<String, Object> settings,
+                              Consumer<Map<String, Object>> update) {
+        Map<String, Object> missing = new HashMap<>();
+        settings.forEach((key, value) -> {
+            if (!current.containsKey(key)) {
+                missing.put(key, value);
+            }
+        });
+        if (!missing.isEmpty()) {
+            update.accept(missing);
+        }
+    }
+
+    private static void putIfSet(Map<String, Object> settings, String key, Object value) {
+        if (value != null) {
+            settings.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ghali.ecommerce.common.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réglages partagés des producers / consumers Kafka
+ *
+ * <pre>
+ * ecommerce:
+ *   kafka:
+ *     profile: high-throughput     # ou low-latency
+ *     binary-topics: order-events
+ *     producer:
+ *       compression: zstd          # surcharge ponctuelle du profil
+ * </pre>
+ *
+ * Priorité : réglage explicite du service (spring.kafka.* ou factory dédiée),
+ * puis surcharge ci-dessous, puis valeur du profil.
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.kafka")
+public class KafkaClientProperties {
+
+    private KafkaTuningProfile profile = KafkaTuningProfile.HIGH_THROUGHPUT;
+
+    /**
+     * Topics publiés au format binaire par KafkaEventSerializer
+     */
+    private List<String> binaryTopics = new ArrayList<>();
+
+    private Producer producer = new Producer();
+
+    private Consumer consumer = new Consumer();
+
+    @Data
+    public static class Producer {
+
+        /**
+         * none, gzip, snappy, lz4 ou zstd
+         */
+        private String compression;
+
+        private String acks;
+
+        private Boolean idempotence;
+
+        private Integer lingerMs;
+
+        private Integer batchSize;
+
+        private Long bufferMemory;
+    }
+
+    @Data
+    public static class Consumer {
+
+        private Integer maxPollRecords;
+
+        private Integer fetchMinBytes;
+
+        private Integer fetchMaxWaitMs;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.ProductDTO;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.Map;
+
+/**
+ * Codec binaire des KafkaEvent (alternative compacte au JSON)
+ *
+ * Le corps contient l'enveloppe (eventId, eventType, timestamp, source, userId) puis
+ * le payload selon son schéma. Le type de payload et la version de schéma voyagent
+ * dans les en-têtes du message, pas dans le corps.
+ */
+public final class KafkaEventCodec {
+
+    public static final String HEADER_ENCODING = "ecommerce-encoding";
+    public static final String HEADER_SCHEMA_VERSION = "ecommerce-schema-version";
+    public static final String HEADER_PAYLOAD_TYPE = "ecommerce-payload-type";
+    public static final String ENCODING_BINARY = "binary";
+
+    // Version écrite ; les lecteurs acceptent toutes les versions jusqu'à celle-ci
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final String NO_PAYLOAD = "none";
+
+    private static final Map<Class<?>, String> PAYLOAD_TYPES = Map.of(
+            OrderDTO.class, "order",
+            ProductDTO.class, "product"
+    );
+
+    private static final Map<String, PayloadCodec<?>> CODECS = Map.of(
+            "order", new OrderCodec(),
+            "product", new ProductCodec()
+    );
+
+    private KafkaEventCodec() {
+    }
+
+    /**
+     * @return le type de payload à mettre en en-tête, ou null si l'événement n'a pas de schéma binaire
+     */
+    public static String payloadType(Object value) {
+        if (!(value instanceof KafkaEvent<?> event)) {
+            return null;
+        }
+        return event.getPayload() == null ? NO_PAYLOAD : PAYLOAD_TYPES.get(event.getPayload().getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(KafkaEvent<?> event, String payloadType) {
+        BinaryWriter out = new BinaryWriter(256);
+        out.writeId(event.getEventId());
+        out.writeString(event.getEventType());
+        out.writeDateTime(event.getTimestamp());
+        out.writeString(event.getSource());
+        out.writeId(event.getUserId());
+        if (!NO_PAYLOAD.equals(payloadType)) {
+            ((PayloadCodec<Object>) codec(payloadType)).write(event.getPayload(), out);
+        }
+        return out.toByteArray();
+    }
+
+    public static KafkaEvent<Object> decode(byte[] data, String payloadType, int schemaVersion) {
+        if (schemaVersion < 1 || schemaVersion > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported event schema version: " + schemaVersion);
+        }
+        BinaryReader in = new BinaryReader(data);
+        KafkaEvent<Object> event = new KafkaEvent<>();
+        event.setEventId(in.readId());
+        event.setEventType(in.readString());
+        event.setTimestamp(in.readDateTime());
+        event.setSource(in.readString());
+        event.setUserId(in.readId());
+        if (!NO_PAYLOAD.equals(payloadType)) {
+            event.setPayload(codec(payloadType).read(in, schemaVersion));
+        }
+        return event;
+    }
+
+    private static PayloadCodec<?> codec(String payloadType) {
+        PayloadCodec<?> codec = CODECS.get(payloadType);
+        if (codec == null) {
+            throw new SerializationException("Unknown event payload type: " + payloadType);
+        }
+        return codec;
+    }
+}
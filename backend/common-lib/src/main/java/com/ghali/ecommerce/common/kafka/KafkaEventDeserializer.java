@@ -0,0 +1,67 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Deserializer des événements : décode le format binaire quand l'en-tête
+ * ecommerce-encoding l'annonce, sinon délègue au JSON. Un consumer accepte ainsi
+ * les deux formats pendant qu'un topic passe de l'un à l'autre.
+ */
+public class KafkaEventDeserializer<T> implements Deserializer<T> {
+
+    private Deserializer<T> jsonDelegate;
+
+    public KafkaEventDeserializer() {
+    }
+
+    public KafkaEventDeserializer(Deserializer<T> jsonDelegate) {
+        this.jsonDelegate = jsonDelegate;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (jsonDelegate == null) {
+            jsonDelegate = new JsonDeserializer<>();
+        }
+        jsonDelegate.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return jsonDelegate.deserialize(topic, data);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header encoding = headers.lastHeader(KafkaEventCodec.HEADER_ENCODING);
+        if (encoding == null || !KafkaEventCodec.ENCODING_BINARY.equals(new String(encoding.value(), StandardCharsets.UTF_8))) {
+            return jsonDelegate.deserialize(topic, headers, data);
+        }
+
+        Header version = headers.lastHeader(KafkaEventCodec.HEADER_SCHEMA_VERSION);
+        Header payloadType = headers.lastHeader(KafkaEventCodec.HEADER_PAYLOAD_TYPE);
+        if (version == null || version.value().length != 1 || payloadType == null) {
+            throw new SerializationException("Binary event without schema headers on topic " + topic);
+        }
+        return (T) KafkaEventCodec.decode(data, new String(payloadType.value(), StandardCharsets.UTF_8),
+                version.value()[0] & 0xFF);
+    }
+
+    @Override
+    public void close() {
+        if (jsonDelegate != null) {
+            jsonDelegate.close();
+        }
+    }
+}
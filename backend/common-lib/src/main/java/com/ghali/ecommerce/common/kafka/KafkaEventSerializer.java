@@ -0,0 +1,81 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serializer des événements : binaire (KafkaEventCodec) pour les topics listés dans
+ * ecommerce.kafka.binary-topics, JSON pour les autres topics et pour les payloads
+ * sans schéma binaire
+ *
+ * Utilisable directement en value-serializer :
+ * spring.kafka.producer.properties."ecommerce.kafka.binary-topics": order-events,product-events
+ */
+public class KafkaEventSerializer implements Serializer<Object> {
+
+    public static final String BINARY_TOPICS_CONFIG = "ecommerce.kafka.binary-topics";
+
+    private Set<String> binaryTopics = Set.of();
+    private Serializer<Object> jsonDelegate;
+
+    public KafkaEventSerializer() {
+    }
+
+    public KafkaEventSerializer(Collection<String> binaryTopics, Serializer<Object> jsonDelegate) {
+        this.binaryTopics = Set.copyOf(binaryTopics);
+        this.jsonDelegate = jsonDelegate;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (jsonDelegate == null) {
+            jsonDelegate = new JsonSerializer<>();
+        }
+        jsonDelegate.configure(configs, isKey);
+
+        Object topics = configs.get(BINARY_TOPICS_CONFIG);
+        if (topics instanceof Collection<?> collection) {
+            binaryTopics = Set.copyOf(collection.stream().map(String::valueOf).toList());
+        } else if (topics instanceof String value) {
+            binaryTopics = StringUtils.commaDelimitedListToSet(value.replace(" ", ""));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        // Sans en-têtes, le type et la version ne peuvent pas voyager : JSON
+        return jsonDelegate.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        String payloadType = binaryTopics.contains(topic) ? KafkaEventCodec.payloadType(data) : null;
+        if (payloadType == null) {
+            return jsonDelegate.serialize(topic, headers, data);
+        }
+
+        headers.remove(KafkaEventCodec.HEADER_ENCODING);
+        headers.add(KafkaEventCodec.HEADER_ENCODING, KafkaEventCodec.ENCODING_BINARY.getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaEventCodec.HEADER_SCHEMA_VERSION, new byte[]{(byte) KafkaEventCodec.SCHEMA_VERSION});
+        headers.add(KafkaEventCodec.HEADER_PAYLOAD_TYPE, payloadType.getBytes(StandardCharsets.UTF_8));
+        return KafkaEventCodec.encode((KafkaEvent<?>) data, payloadType);
+    }
+
+    @Override
+    public void close() {
+        if (jsonDelegate != null) {
+            jsonDelegate.close();
+        }
+    }
+}
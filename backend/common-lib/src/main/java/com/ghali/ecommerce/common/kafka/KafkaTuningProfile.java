@@ -0,0 +1,64 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Profils de réglage des clients Kafka
+ *
+ * Les deux profils gardent un producer idempotent (acks=all, au plus 5 requêtes
+ * en vol) : seuls le regroupement, la compression et l'attente côté fetch changent.
+ */
+public enum KafkaTuningProfile {
+
+    /**
+     * Envoi immédiat, fetch dès qu'un message est disponible
+     */
+    LOW_LATENCY(
+            Map.of(
+                    ProducerConfig.ACKS_CONFIG, "all",
+                    ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                    ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                    ProducerConfig.LINGER_MS_CONFIG, 0,
+                    ProducerConfig.BATCH_SIZE_CONFIG, 16384,
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"),
+            Map.of(
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100,
+                    ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1,
+                    ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100)),
+
+    /**
+     * Lots plus gros et mieux compressés, au prix de quelques ms d'attente
+     */
+    HIGH_THROUGHPUT(
+            Map.of(
+                    ProducerConfig.ACKS_CONFIG, "all",
+                    ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                    ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                    ProducerConfig.LINGER_MS_CONFIG, 20,
+                    ProducerConfig.BATCH_SIZE_CONFIG, 131072,
+                    ProducerConfig.BUFFER_MEMORY_CONFIG, 67108864L,
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd"),
+            Map.of(
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500,
+                    ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 65536,
+                    ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500));
+
+    private final Map<String, Object> producerDefaults;
+    private final Map<String, Object> consumerDefaults;
+
+    KafkaTuningProfile(Map<String, Object> producerDefaults, Map<String, Object> consumerDefaults) {
+        this.producerDefaults = producerDefaults;
+        this.consumerDefaults = consumerDefaults;
+    }
+
+    public Map<String, Object> producerDefaults() {
+        return producerDefaults;
+    }
+
+    public Map<String, Object> consumerDefaults() {
+        return consumerDefaults;
+    }
+}
@@ -0,0 +1,146 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.OrderItemDTO;
+import com.ghali.ecommerce.common.dto.ShippingAddressDTO;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schéma binaire d'OrderDTO (avec ses articles et son adresse de livraison)
+ *
+ * v1 : id, orderNumber, customerId, customerEmail, customerLanguage, status,
+ *      totalAmount, items[], shippingAddress, createdAt, updatedAt
+ */
+final class OrderCodec implements PayloadCodec<OrderDTO> {
+
+    // Ordre figé du schéma v1 : ne pas dépendre de l'ordre de déclaration de l'enum
+    private static final OrderDTO.OrderStatus[] STATUSES = {
+            OrderDTO.OrderStatus.PENDING,
+            OrderDTO.OrderStatus.CONFIRMED,
+            OrderDTO.OrderStatus.PROCESSING,
+            OrderDTO.OrderStatus.SHIPPED,
+            OrderDTO.OrderStatus.DELIVERED,
+            OrderDTO.OrderStatus.CANCELLED
+    };
+
+    @Override
+    public void write(OrderDTO order, BinaryWriter out) {
+        out.writeNullableLong(order.getId());
+        out.writeString(order.getOrderNumber());
+        out.writeId(order.getCustomerId());
+        out.writeString(order.getCustomerEmail());
+        out.writeString(order.getCustomerLanguage());
+        out.writeVarInt(statusCode(order.getStatus()));
+        out.writeDecimal(order.getTotalAmount());
+
+        out.writeSize(order.getItems());
+        if (order.getItems() != null) {
+            for (OrderItemDTO item : order.getItems()) {
+                writeItem(item, out);
+            }
+        }
+
+        ShippingAddressDTO address = order.getShippingAddress();
+        out.writeByte(address == null ? 0 : 1);
+        if (address != null) {
+            writeAddress(address, out);
+        }
+
+        out.writeDateTime(order.getCreatedAt());
+        out.writeDateTime(order.getUpdatedAt());
+    }
+
+    @Override
+    public OrderDTO read(BinaryReader in, int schemaVersion) {
+        OrderDTO order = new OrderDTO();
+        order.setId(in.readNullableLong());
+        order.setOrderNumber(in.readString());
+        order.setCustomerId(in.readId());
+        order.setCustomerEmail(in.readString());
+        order.setCustomerLanguage(in.readString());
+        int status = in.readVarInt();
+        if (status > STATUSES.length) {
+            throw new SerializationException("Unknown order status code: " + status);
+        }
+        order.setStatus(status == 0 ? null : STATUSES[status - 1]);
+        order.setTotalAmount(in.readDecimal());
+
+        int itemCount = in.readSize();
+        if (itemCount >= 0) {
+            List<OrderItemDTO> items = new ArrayList<>(Math.min(itemCount, 64));
+            for (int i = 0; i < itemCount; i++) {
+                items.add(readItem(in));
+            }
+            order.setItems(items);
+        }
+
+        if (in.readByte() == 1) {
+            order.setShippingAddress(readAddress(in));
+        }
+
+        order.setCreatedAt(in.readDateTime());
+        order.setUpdatedAt(in.readDateTime());
+        return order;
+    }
+
+    private static void writeItem(OrderItemDTO item, BinaryWriter out) {
+        out.writeNullableLong(item.getId());
+        out.writeNullableLong(item.getProductId());
+        out.writeString(item.getProductName());
+        out.writeString(item.getProductSku());
+        out.writeNullableInt(item.getQuantity());
+        out.writeDecimal(item.getUnitPrice());
+        out.writeDecimal(item.getTotalPrice());
+    }
+
+    private static OrderItemDTO readItem(BinaryReader in) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setId(in.readNullableLong());
+        item.setProductId(in.readNullableLong());
+        item.setProductName(in.readString());
+        item.setProductSku(in.readString());
+        item.setQuantity(in.readNullableInt());
+        item.setUnitPrice(in.readDecimal());
+        item.setTotalPrice(in.readDecimal());
+        return item;
+    }
+
+    private static void writeAddress(ShippingAddressDTO address, BinaryWriter out) {
+        out.writeString(address.getFullName());
+        out.writeString(address.getAddressLine1());
+        out.writeString(address.getAddressLine2());
+        out.writeString(address.getCity());
+        out.writeString(address.getState());
+        out.writeString(address.getZipCode());
+        out.writeString(address.getCountry());
+        out.writeString(address.getPhone());
+    }
+
+    private static ShippingAddressDTO readAddress(BinaryReader in) {
+        ShippingAddressDTO address = new ShippingAddressDTO();
+        address.setFullName(in.readString());
+        address.setAddressLine1(in.readString());
+        address.setAddressLine2(in.readString());
+        address.setCity(in.readString());
+        address.setState(in.readString());
+        address.setZipCode(in.readString());
+        address.setCountry(in.readString());
+        address.setPhone(in.readString());
+        return address;
+    }
+
+    private static int statusCode(OrderDTO.OrderStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Order status not in binary schema: " + status);
+    }
+}
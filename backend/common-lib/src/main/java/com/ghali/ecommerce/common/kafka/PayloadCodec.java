@@ -0,0 +1,12 @@
+package com.ghali.ecommerce.common.kafka;
+
+/**
+ * Encodage binaire d'un type de payload de KafkaEvent
+ * La version de schéma lue est celle portée par l'en-tête du message
+ */
+interface PayloadCodec<T> {
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in, int schemaVersion);
+}
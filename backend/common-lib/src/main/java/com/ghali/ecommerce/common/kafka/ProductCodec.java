@@ -0,0 +1,68 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.ProductDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schéma binaire de ProductDTO
+ *
+ * v1 : id, sku, name, description, price, stockQuantity, category, images[], tags[],
+ *      active, rating, reviewCount
+ */
+final class ProductCodec implements PayloadCodec<ProductDTO> {
+
+    @Override
+    public void write(ProductDTO product, BinaryWriter out) {
+        out.writeNullableLong(product.getId());
+        out.writeString(product.getSku());
+        out.writeString(product.getName());
+        out.writeString(product.getDescription());
+        out.writeDecimal(product.getPrice());
+        out.writeNullableInt(product.getStockQuantity());
+        out.writeString(product.getCategory());
+        writeStrings(product.getImages(), out);
+        writeStrings(product.getTags(), out);
+        out.writeNullableBoolean(product.getActive());
+        out.writeNullableDouble(product.getRating());
+        out.writeNullableInt(product.getReviewCount());
+    }
+
+    @Override
+    public ProductDTO read(BinaryReader in, int schemaVersion) {
+        ProductDTO product = new ProductDTO();
+        product.setId(in.readNullableLong());
+        product.setSku(in.readString());
+        product.setName(in.readString());
+        product.setDescription(in.readString());
+        product.setPrice(in.readDecimal());
+        product.setStockQuantity(in.readNullableInt());
+        product.setCategory(in.readString());
+        product.setImages(readStrings(in));
+        product.setTags(readStrings(in));
+        product.setActive(in.readNullableBoolean());
+        product.setRating(in.readNullableDouble());
+        product.setReviewCount(in.readNullableInt());
+        return product;
+    }
+
+    private static void writeStrings(List<String> values, BinaryWriter out) {
+        out.writeSize(values);
+        if (values != null) {
+            values.forEach(out::writeString);
+        }
+    }
+
+    private static List<String> readStrings(BinaryReader in) {
+        int size = in.readSize();
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(Math.min(size, 64));
+        for (int i = 0; i < size; i++) {
+            values.add(in.readString());
+        }
+        return values;
+    }
+}
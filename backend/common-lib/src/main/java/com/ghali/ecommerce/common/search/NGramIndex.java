@@ -0,0 +1,346 @@
+package com.ghali.ecommerce.common.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche par sous-chaîne en mémoire (trigrammes)
+ *
+ * - chaque document (ID + champs texte) est normalisé : minuscules, sans accents
+ * - chaque trigramme pointe vers la liste triée des documents qui le contiennent ;
+ *   une requête intersecte les listes de ses trigrammes (la plus courte d'abord) puis
+ *   vérifie la sous-chaîne sur les seuls candidats, sans parcourir tous les documents
+ * - une requête de moins de 3 caractères parcourt tous les documents
+ * - classement : champ égal à la requête, puis commençant par elle, puis un mot
+ *   commençant par elle, puis sous-chaîne ; à égalité, le premier champ déclaré
+ *   l'emporte, puis le champ le plus court
+ * - les maxResults meilleurs résultats sont retenus dans un tas borné au fil de la
+ *   recherche (O(n log k), mémoire O(k)) : seuls eux sont triés
+ *
+ * Lectures concurrentes, écritures exclusives (verrou lecture / écriture).
+ */
+public class NGramIndex {
+
+    private static final int GRAM = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 0;
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::rank).reversed()
+            .thenComparingInt(Match::field)
+            .thenComparingInt(Match::length)
+            .thenComparingInt(Match::ordinal);
+
+    private final int maxResults;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Ordinal interne (stable pour un ID) -> champs normalisés ; null = document retiré
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Long> ids = new ArrayList<>();
+    private final List<String[]> documents = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int live;
+
+    public NGramIndex(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Indexe (ou réindexe) un document ; les champs null sont ignorés
+     */
+    public void put(long id, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = fields[i] == null ? "" : normalize(fields[i]);
+        }
+        Set<Long> grams = grams(normalized);
+
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = ids.size();
+                ordinals.put(id, ordinal);
+                ids.add(id);
+                documents.add(normalized);
+                live++;
+            } else {
+                String[] previous = documents.get(ordinal);
+                if (Arrays.equals(previous, normalized)) {
+                    return;
+                }
+                if (previous != null) {
+                    unlink(ordinal, grams(previous), grams);
+                } else {
+                    live++;
+                }
+                documents.set(ordinal, normalized);
+            }
+            for (Long gram : grams) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null && documents.get(ordinal) != null) {
+                unlink(ordinal, grams(documents.get(ordinal)), Set.of());
+                documents.set(ordinal, null);
+                live--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs des documents contenant la requête, du plus pertinent au moins pertinent
+     */
+    public SearchHits search(String query, int page, int size) {
+        String normalized = query == null ? "" : normalize(query).trim();
+        if (normalized.isEmpty() || size <= 0 || page < 0) {
+            return new SearchHits(List.of(), 0, false);
+        }
+
+        TopMatches top = new TopMatches(maxResults);
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < GRAM) {
+                scan(normalized, top);
+            } else {
+                lookup(normalized, top);
+            }
+            List<Match> matches = top.sorted();
+
+            int from = (int) Math.min((long) page * size, matches.size());
+            int to = Math.min(from + size, matches.size());
+            List<Long> pageIds = new ArrayList<>(to - from);
+            for (Match match : matches.subList(from, to)) {
+                pageIds.add(ids.get(match.ordinal()));
+            }
+            return new SearchHits(pageIds, matches.size(), top.capped);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void lookup(String query, TopMatches top) {
+        List<Postings> lists = new ArrayList<>();
+        for (Long gram : grams(new String[]{query})) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).ordinals, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainIn(candidates, count);
+        }
+        for (int i = 0; i < count; i++) {
+            top.offer(match(candidates[i], query));
+        }
+    }
+
+    /**
+     * Requête trop courte pour les trigrammes : parcours complet, chaque document
+     * classé avant d'être retenu ou écarté
+     */
+    private void scan(String query, TopMatches top) {
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            top.offer(match(ordinal, query));
+        }
+    }
+
+    private Match match(int ordinal, String query) {
+        String[] fields = documents.get(ordinal);
+        if (fields == null) {
+            return null;
+        }
+        Match best = null;
+        for (int field = 0; field < fields.length; field++) {
+            String value = fields[field];
+            int index = value.indexOf(query);
+            if (index < 0) {
+                continue;
+            }
+            int rank;
+            if (value.length() == query.length()) {
+                rank = EXACT;
+            } else if (index == 0) {
+                rank = PREFIX;
+            } else if (startsWord(value, query)) {
+                rank = WORD_PREFIX;
+            } else {
+                rank = SUBSTRING;
+            }
+            if (best == null || rank > best.rank()) {
+                best = new Match(ordinal, rank, field, value.length());
+            }
+        }
+        return best;
+    }
+
+    private static boolean startsWord(String value, String query) {
+        for (int index = value.indexOf(query); index >= 0; index = value.indexOf(query, index + 1)) {
+            if (index == 0 || !Character.isLetterOrDigit(value.charAt(index - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unlink(int ordinal, Set<Long> previous, Set<Long> kept) {
+        for (Long gram : previous) {
+            if (kept.contains(gram)) {
+                continue;
+            }
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(ordinal) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<Long> grams(String[] fields) {
+        Set<Long> grams = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                grams.add(((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2));
+            }
+        }
+        return grams;
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(int ordinal, int rank, int field, int length) {
+    }
+
+    /**
+     * Les k meilleurs résultats : tas dont la tête est le moins bon résultat retenu
+     */
+    private static final class TopMatches {
+        private final int limit;
+        private final PriorityQueue<Match> heap;
+        private boolean capped;
+
+        private TopMatches(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 256)), BEST_FIRST.reversed());
+        }
+
+        private void offer(Match match) {
+            if (match == null) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(match);
+                return;
+            }
+            capped = true;
+            if (!heap.isEmpty() && BEST_FIRST.compare(match, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(match);
+            }
+        }
+
+        private List<Match> sorted() {
+            List<Match> matches = new ArrayList<>(heap);
+            matches.sort(BEST_FIRST);
+            return matches;
+        }
+    }
+
+    /**
+     * Liste triée d'ordinaux ; les nouveaux documents ont les plus grands ordinaux,
+     * l'ajout se fait donc presque toujours en fin de tableau
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private void add(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, index, ordinals, index + 1, size - index);
+            ordinals[index] = ordinal;
+            size++;
+        }
+
+        private boolean remove(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Garde dans candidates (triés) ceux présents dans cette liste
+         *
+         * @return le nombre de candidats restants (en tête du tableau)
+         */
+        private int retainIn(int[] candidates, int count) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < size; i++) {
+                int index = Arrays.binarySearch(ordinals, from, size, candidates[i]);
+                if (index >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+            return kept;
+        }
+    }
+}
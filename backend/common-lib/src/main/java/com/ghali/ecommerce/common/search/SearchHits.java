@@ -0,0 +1,13 @@
+package com.ghali.ecommerce.common.search;
+
+import java.util.List;
+
+/**
+ * Page de résultats d'une recherche NGramIndex
+ *
+ * @param ids          IDs de la page, du plus pertinent au moins pertinent
+ * @param totalMatches nombre de résultats retenus (au plus maxResults)
+ * @param capped       true si des résultats au-delà de maxResults ont été écartés
+ */
+public record SearchHits(List<Long> ids, long totalMatches, boolean capped) {
+}
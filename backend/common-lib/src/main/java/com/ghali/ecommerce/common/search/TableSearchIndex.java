@@ -0,0 +1,124 @@
+package com.ghali.ecommerce.common.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * NGramIndex alimenté par une table (recherche ADMIN des clients, des utilisateurs...)
+ *
+ * - chargé depuis la base (lecture en flux) par load()
+ * - tenu à jour après le commit des créations / modifications de cette instance (put)
+ * - les modifications faites par les autres instances sont relues par refresh()
+ *   (updated_at postérieur à la dernière synchronisation, avec une marge)
+ *
+ * Le service déclenche load() au démarrage et refresh() périodiquement.
+ * Requête attendue : SELECT id, ..., updated_at FROM table (sans WHERE).
+ */
+@Slf4j
+public class TableSearchIndex {
+
+    /**
+     * Champs indexés d'une ligne, dans l'ordre de priorité du classement
+     */
+    @FunctionalInterface
+    public interface FieldsMapper {
+        String[] fields(ResultSet rs) throws SQLException;
+    }
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String name;
+    private final String selectAllSql;
+    private final String selectChangedSql;
+    private final FieldsMapper fieldsMapper;
+    private final long refreshOverlapSeconds;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final NGramIndex index;
+
+    private volatile boolean ready;
+    private volatile LocalDateTime lastUpdate = EPOCH;
+
+    /**
+     * @param name                  nom des documents dans les logs (customers, users...)
+     * @param selectAllSql          lecture de toutes les lignes (id, champs, updated_at)
+     * @param refreshOverlapSeconds marge de relecture : horloges des instances et
+     *                              transactions encore ouvertes lors de la dernière lecture
+     */
+    public TableSearchIndex(String name, DataSource dataSource, String selectAllSql, FieldsMapper fieldsMapper,
+                            int maxResults, long refreshOverlapSeconds) {
+        this.name = name;
+        this.selectAllSql = selectAllSql;
+        this.selectChangedSql = selectAllSql + " WHERE updated_at >= ?";
+        this.fieldsMapper = fieldsMapper;
+        this.refreshOverlapSeconds = refreshOverlapSeconds;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL : lecture en flux plutôt que toute la table en mémoire
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.index = new NGramIndex(maxResults);
+    }
+
+    public void load() {
+        log.info("📂 Building {} search index...", name);
+        long start = System.currentTimeMillis();
+        streamingJdbcTemplate.query(selectAllSql, this::indexRow);
+        ready = true;
+        log.info("✅ Search index built: {} {} in {} ms", index.size(), name, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Relit les lignes modifiées depuis la dernière synchronisation
+     */
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        Timestamp since = Timestamp.valueOf(lastUpdate.minusSeconds(refreshOverlapSeconds));
+        streamingJdbcTemplate.query(selectChangedSql, this::indexRow, since);
+    }
+
+    /**
+     * Indexe un document après le commit de la transaction en cours
+     */
+    public void put(long id, String... fields) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(id, fields);
+                }
+            });
+        } else {
+            index.put(id, fields);
+        }
+    }
+
+    public SearchHits search(String keyword, int page, int size) {
+        return index.search(keyword, page, size);
+    }
+
+    /**
+     * Prénom et nom séparés par un espace, l'un ou l'autre pouvant manquer
+     */
+    public static String fullName(String firstName, String lastName) {
+        if (firstName == null) {
+            return lastName;
+        }
+        return lastName == null ? firstName : firstName + " " + lastName;
+    }
+
+    private void indexRow(ResultSet rs) throws SQLException {
+        index.put(rs.getLong("id"), fieldsMapper.fields(rs));
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        if (updatedAt != null && updatedAt.toLocalDateTime().isAfter(lastUpdate)) {
+            lastUpdate = updatedAt.toLocalDateTime();
+        }
+    }
+}
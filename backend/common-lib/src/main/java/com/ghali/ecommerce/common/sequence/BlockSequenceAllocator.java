@@ -0,0 +1,196 @@
+package com.ghali.ecommerce.common.sequence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Numérotation annuelle par blocs (numéros de commande, de facture...)
+ *
+ * Chaque instance réserve un bloc de valeurs en avançant next_value dans une table
+ * de segments (une ligne par année, verrouillée le temps de la réservation), puis
+ * le distribue sans verrou via un AtomicLong. Les blocs de plusieurs instances sont
+ * disjoints ; les valeurs d'un bloc non consommé avant l'arrêt sont perdues (trous
+ * tolérés) mais jamais réattribuées.
+ *
+ * La réservation passe par un pool de connexions dédié (1 connexion) : elle ne
+ * dépend jamais du pool applicatif, dont l'appelant détient déjà une connexion
+ * (transaction en cours). Les conflits de verrou, deadlocks et créations
+ * concurrentes de la ligne de l'année sont rejoués (TransientDataAccessException
+ * couvre CannotAcquireLockException et les deadlocks).
+ *
+ * Table attendue : (sequence_year INT PRIMARY KEY, next_value BIGINT, updated_at DATETIME)
+ */
+@Slf4j
+public class BlockSequenceAllocator implements AutoCloseable {
+
+    private static final int MAX_LEASE_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MS = 50;
+
+    private final String name;
+    private final int blockSize;
+    private final Seed seed;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leaseTransaction;
+    private final String selectForUpdateSql;
+    private final String insertSql;
+    private final String updateSql;
+
+    // Une seule réservation à la fois par instance ; jamais tenu pendant une attente de pool
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile Block current;
+
+    /**
+     * @param dataSource connexions dédiées à la réservation (voir {@link #dedicatedDataSource})
+     * @param table      table des segments
+     * @param blockSize  valeurs réservées par bloc
+     * @param seed       plus grande valeur déjà attribuée pour une année, avant la table de segments
+     */
+    public BlockSequenceAllocator(DataSource dataSource, String table, int blockSize, Seed seed) {
+        this.name = table;
+        this.blockSize = blockSize;
+        this.seed = seed;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.leaseTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.selectForUpdateSql = "SELECT next_value FROM " + table + " WHERE sequence_year = ? FOR UPDATE";
+        this.insertSql = "INSERT INTO " + table + " (sequence_year, next_value, updated_at) VALUES (?, ?, ?)";
+        this.updateSql = "UPDATE " + table + " SET next_value = ?, updated_at = ? WHERE sequence_year = ?";
+    }
+
+    /**
+     * Petit pool Hikari construit à partir de spring.datasource, réservé à l'allocateur
+     */
+    public static HikariDataSource dedicatedDataSource(DataSourceProperties properties, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(poolName);
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    /**
+     * Prochaine valeur de l'année en cours
+     */
+    public long next(int year) {
+        while (true) {
+            Block block = current;
+            if (block != null && block.year == year) {
+                long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    return value;
+                }
+            }
+            refill(year);
+        }
+    }
+
+    public long next() {
+        return next(Year.now().getValue());
+    }
+
+    @Override
+    public void close() {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to close {} allocator connections: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void refill(int year) {
+        refillLock.lock();
+        try {
+            Block block = current;
+            // Un autre thread a peut-être déjà réservé un nouveau bloc
+            if (block != null && block.year == year && block.next.get() < block.end) {
+                return;
+            }
+            current = lease(year);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Block lease(int year) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Block block = leaseTransaction.execute(status -> leaseBlock(year));
+                log.info("🔢 Leased {} values {} - {} for {}", name, block.next.get(), block.end - 1, year);
+                return block;
+            } catch (DataIntegrityViolationException | TransientDataAccessException e) {
+                // Ligne de l'année créée en même temps ailleurs, délai de verrou ou deadlock : on rejoue
+                if (attempt >= MAX_LEASE_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("⚠️ Failed to lease {} block for {} (attempt {}): {}", name, year, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private Block leaseBlock(int year) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> rows = jdbcTemplate.queryForList(selectForUpdateSql, Long.class, year);
+        long start;
+        if (rows.isEmpty()) {
+            Long maxAllocated = seed.maxAllocated(jdbcTemplate, year);
+            start = (maxAllocated != null ? maxAllocated : 0) + 1;
+            jdbcTemplate.update(insertSql, year, start + blockSize, now);
+        } else {
+            start = rows.get(0);
+            jdbcTemplate.update(updateSql, start + blockSize, now, year);
+        }
+        return new Block(year, start, start + blockSize);
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while leasing a number block", e);
+        }
+    }
+
+    /**
+     * Plus grande valeur déjà attribuée pour une année, lue en numérique
+     * (null si aucune) ; appelée une seule fois, à la création de la ligne de l'année
+     */
+    @FunctionalInterface
+    public interface Seed {
+        Long maxAllocated(JdbcOperations jdbc, int year);
+    }
+
+    private static final class Block {
+        private final int year;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(int year, long start, long end) {
+            this.year = year;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
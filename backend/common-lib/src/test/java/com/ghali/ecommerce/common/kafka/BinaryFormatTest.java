@@ -0,0 +1,197 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryFormatTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE})
+    void roundTripsSignedLongsWithZigzag(long value) {
+        BinaryWriter out = new BinaryWriter(4);
+        out.writeSignedVarLong(value);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readSignedVarLong()).isEqualTo(value);
+        assertEnd(in);
+    }
+
+    @Test
+    void zigzagKeepsSmallNegativeValuesOnOneByte() {
+        BinaryWriter out = new BinaryWriter(4);
+        out.writeSignedVarLong(-1);
+        out.writeSignedVarLong(-64);
+
+        assertThat(out.toByteArray()).hasSize(2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE})
+    void roundTripsVarInts(int value) {
+        BinaryWriter out = new BinaryWriter(1);
+        out.writeVarInt(value);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readVarInt()).isEqualTo(value);
+        assertEnd(in);
+    }
+
+    @Test
+    void roundTripsNullableNumbers() {
+        BinaryWriter out = new BinaryWriter(8);
+        out.writeNullableLong(null);
+        out.writeNullableLong(Long.MIN_VALUE);
+        out.writeNullableInt(null);
+        out.writeNullableInt(Integer.MIN_VALUE);
+        out.writeNullableInt(Integer.MAX_VALUE);
+        out.writeNullableDouble(null);
+        out.writeNullableDouble(Double.NaN);
+        out.writeNullableDouble(-0.0);
+        out.writeNullableDouble(Double.NEGATIVE_INFINITY);
+        out.writeNullableDouble(Double.MIN_VALUE);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readNullableLong()).isNull();
+        assertThat(in.readNullableLong()).isEqualTo(Long.MIN_VALUE);
+        assertThat(in.readNullableInt()).isNull();
+        assertThat(in.readNullableInt()).isEqualTo(Integer.MIN_VALUE);
+        assertThat(in.readNullableInt()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(in.readNullableDouble()).isNull();
+        assertThat(in.readNullableDouble()).isNaN();
+        assertThat(Double.doubleToRawLongBits(in.readNullableDouble())).isEqualTo(Double.doubleToRawLongBits(-0.0));
+        assertThat(in.readNullableDouble()).isEqualTo(Double.NEGATIVE_INFINITY);
+        assertThat(in.readNullableDouble()).isEqualTo(Double.MIN_VALUE);
+        assertEnd(in);
+    }
+
+    @Test
+    void roundTripsNullableBooleans() {
+        BinaryWriter out = new BinaryWriter(1);
+        out.writeNullableBoolean(null);
+        out.writeNullableBoolean(true);
+        out.writeNullableBoolean(false);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readNullableBoolean()).isNull();
+        assertThat(in.readNullableBoolean()).isTrue();
+        assertThat(in.readNullableBoolean()).isFalse();
+        assertEnd(in);
+    }
+
+    @Test
+    void roundTripsDecimalsKeepingTheirScale() {
+        List<BigDecimal> values = Arrays.asList(
+                null,
+                BigDecimal.ZERO,
+                new BigDecimal("0.00"),
+                new BigDecimal("-1249.50"),
+                new BigDecimal("1E+10"),
+                new BigDecimal(BigInteger.valueOf(Long.MIN_VALUE), 4),
+                new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE), -3),
+                // Valeur non mise à l'échelle au-delà d'un long : encodage par octets
+                new BigDecimal(BigInteger.TWO.pow(64), 2),
+                new BigDecimal(BigInteger.TWO.pow(200).negate(), 30));
+        BinaryWriter out = new BinaryWriter(16);
+        values.forEach(out::writeDecimal);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        for (BigDecimal value : values) {
+            // equals compare aussi l'échelle : 0.00 doit rester 0.00
+            assertThat(in.readDecimal()).isEqualTo(value);
+        }
+        assertEnd(in);
+    }
+
+    @Test
+    void roundTripsDateTimes() {
+        List<LocalDateTime> values = Arrays.asList(
+                null,
+                LocalDateTime.MIN,
+                LocalDateTime.MAX,
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(2024, 2, 29, 12, 30, 0, 1));
+        BinaryWriter out = new BinaryWriter(16);
+        values.forEach(out::writeDateTime);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        for (LocalDateTime value : values) {
+            assertThat(in.readDateTime()).isEqualTo(value);
+        }
+        assertEnd(in);
+    }
+
+    @Test
+    void distinguishesNullAndEmptyStrings() {
+        BinaryWriter out = new BinaryWriter(4);
+        out.writeString(null);
+        out.writeString("");
+        out.writeString("Café 🚀 — commande");
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readString()).isNull();
+        assertThat(in.readString()).isEmpty();
+        assertThat(in.readString()).isEqualTo("Café 🚀 — commande");
+        assertEnd(in);
+    }
+
+    @Test
+    void encodesCanonicalUuidsOnSixteenBytesAndKeepsOtherIdsAsText() {
+        String uuid = UUID.randomUUID().toString();
+        BinaryWriter compact = new BinaryWriter(4);
+        compact.writeId(uuid);
+        assertThat(compact.toByteArray()).hasSize(17);
+
+        List<String> ids = Arrays.asList(null, uuid, uuid.toUpperCase(), "user-42", "",
+                "00000000-0000-0000-0000-000000000000");
+        BinaryWriter out = new BinaryWriter(4);
+        ids.forEach(out::writeId);
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        for (String id : ids) {
+            assertThat(in.readId()).isEqualTo(id);
+        }
+        assertEnd(in);
+    }
+
+    @Test
+    void distinguishesNullAndEmptyCollections() {
+        BinaryWriter out = new BinaryWriter(2);
+        out.writeSize(null);
+        out.writeSize(List.of());
+        out.writeSize(List.of("a", "b"));
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        assertThat(in.readSize()).isEqualTo(-1);
+        assertThat(in.readSize()).isZero();
+        assertThat(in.readSize()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        BinaryWriter out = new BinaryWriter(4);
+        out.writeString("truncated");
+        byte[] bytes = out.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        assertThatThrownBy(() -> new BinaryReader(truncated).readString())
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new BinaryReader(new byte[]{(byte) 0x80, (byte) 0x80}).readVarInt())
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static void assertEnd(BinaryReader in) {
+        assertThatThrownBy(in::readByte).isInstanceOf(SerializationException.class);
+    }
+}
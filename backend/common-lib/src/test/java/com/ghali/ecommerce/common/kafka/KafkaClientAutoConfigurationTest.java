@@ -0,0 +1,88 @@
+package com.ghali.ecommerce.common.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaClientAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(KafkaClientAutoConfiguration.class))
+            .withUserConfiguration(ServiceFactories.class);
+
+    @Test
+    void appliesTheHighThroughputProfileByDefault() {
+        contextRunner.run(context -> {
+            Map<String, Object> producer = context.getBean(DefaultKafkaProducerFactory.class).getConfigurationProperties();
+            Map<String, Object> consumer = context.getBean(DefaultKafkaConsumerFactory.class).getConfigurationProperties();
+
+            assertThat(producer)
+                    .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd")
+                    .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 20)
+                    .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            assertThat(consumer).containsEntry(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 65536);
+        });
+    }
+
+    @Test
+    void appliesTheChosenProfileAndTypedOverrides() {
+        contextRunner
+                .withPropertyValues(
+                        "ecommerce.kafka.profile=low-latency",
+                        "ecommerce.kafka.producer.compression=none",
+                        "ecommerce.kafka.consumer.fetch-min-bytes=2048",
+                        "ecommerce.kafka.binary-topics=order-events,product-events")
+                .run(context -> {
+                    Map<String, Object> producer = context.getBean(DefaultKafkaProducerFactory.class).getConfigurationProperties();
+                    Map<String, Object> consumer = context.getBean(DefaultKafkaConsumerFactory.class).getConfigurationProperties();
+
+                    assertThat(producer)
+                            .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 0)
+                            .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none")
+                            .containsEntry(KafkaEventSerializer.BINARY_TOPICS_CONFIG, List.of("order-events", "product-events"));
+                    assertThat(consumer)
+                            .containsEntry(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 2048)
+                            .containsEntry(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+                });
+    }
+
+    @Test
+    void keepsWhatTheServiceFactoryAlreadySets() {
+        contextRunner.run(context -> {
+            Map<String, Object> producer = context.getBean(DefaultKafkaProducerFactory.class).getConfigurationProperties();
+            Map<String, Object> consumer = context.getBean(DefaultKafkaConsumerFactory.class).getConfigurationProperties();
+
+            assertThat(producer).containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 1024);
+            assertThat(consumer).containsEntry(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 42);
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class ServiceFactories {
+
+        @Bean
+        DefaultKafkaProducerFactory<String, Object> producerFactory() {
+            return new DefaultKafkaProducerFactory<>(Map.of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                    ProducerConfig.BATCH_SIZE_CONFIG, 1024));
+        }
+
+        @Bean
+        DefaultKafkaConsumerFactory<String, Object> consumerFactory() {
+            return new DefaultKafkaConsumerFactory<>(Map.of(
+                    ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 42));
+        }
+    }
+}
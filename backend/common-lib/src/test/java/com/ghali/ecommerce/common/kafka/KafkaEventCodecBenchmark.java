@@ -0,0 +1,102 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par événement du codec binaire contre le JSON (JsonSerializer + en-têtes de type),
+ * tel que configuré dans les services. La taille en octets est affichée au début de chaque essai.
+ *
+ * mvn -Pbenchmark -pl backend/common-lib verify -Djmh.include=KafkaEventCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaEventCodecBenchmark {
+
+    private static final String BINARY_TOPIC = "order-events";
+    private static final String JSON_TOPIC = "json-events";
+
+    @Param({"order", "product"})
+    public String payload;
+
+    private KafkaEventSerializer serializer;
+    private KafkaEventDeserializer<Object> deserializer;
+    private KafkaEvent<?> event;
+
+    private byte[] binary;
+    private RecordHeaders binaryHeaders;
+    private byte[] json;
+    private RecordHeaders jsonHeaders;
+
+    @Setup
+    public void setUp() {
+        serializer = new KafkaEventSerializer();
+        serializer.configure(Map.of(KafkaEventSerializer.BINARY_TOPICS_CONFIG, BINARY_TOPIC), false);
+        deserializer = new KafkaEventDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        // Commande type : 3 articles et une adresse de livraison
+        event = "order".equals(payload) ? KafkaEventFixtures.orderEvent(3) : KafkaEventFixtures.productEvent();
+
+        binaryHeaders = new RecordHeaders();
+        binary = serializer.serialize(BINARY_TOPIC, binaryHeaders, event);
+        jsonHeaders = new RecordHeaders();
+        json = serializer.serialize(JSON_TOPIC, jsonHeaders, event);
+        System.out.printf("%n[%s] bytes/event: binary=%d (+%d header bytes), json=%d (+%d header bytes)%n",
+                payload, binary.length, headerBytes(binaryHeaders), json.length, headerBytes(jsonHeaders));
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return serializer.serialize(BINARY_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return serializer.serialize(JSON_TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return deserializer.deserialize(BINARY_TOPIC, new RecordHeaders(binaryHeaders.toArray()), binary);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        // JsonDeserializer retire les en-têtes de type qu'il lit : copie à chaque appel
+        return deserializer.deserialize(JSON_TOPIC, new RecordHeaders(jsonHeaders.toArray()), json);
+    }
+
+    private static int headerBytes(RecordHeaders headers) {
+        int size = 0;
+        for (var header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
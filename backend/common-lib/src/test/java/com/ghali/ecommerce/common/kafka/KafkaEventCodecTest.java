@@ -0,0 +1,210 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.OrderItemDTO;
+import com.ghali.ecommerce.common.dto.ProductDTO;
+import com.ghali.ecommerce.common.dto.ShippingAddressDTO;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KafkaEventCodecTest {
+
+    @Test
+    void roundTripsACompleteOrderEvent() {
+        KafkaEvent<OrderDTO> event = KafkaEventFixtures.orderEvent(3);
+
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsAnOrderWithOnlyNulls() {
+        KafkaEvent<OrderDTO> event = new KafkaEvent<>();
+        event.setPayload(new OrderDTO());
+
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsNullAndExtremeOrderValues() {
+        List<OrderItemDTO> items = new ArrayList<>();
+        items.add(new OrderItemDTO());
+        items.add(OrderItemDTO.builder()
+                .id(Long.MAX_VALUE)
+                .productId(Long.MIN_VALUE)
+                .productName("")
+                .quantity(Integer.MIN_VALUE)
+                .unitPrice(new BigDecimal(BigInteger.TWO.pow(80), 2))
+                .totalPrice(new BigDecimal("-0.0001"))
+                .build());
+        OrderDTO order = OrderDTO.builder()
+                .id(-1L)
+                .orderNumber("")
+                // Identifiant non UUID : transmis tel quel
+                .customerId("legacy-customer-7")
+                .status(OrderDTO.OrderStatus.CANCELLED)
+                .totalAmount(new BigDecimal("1E+12"))
+                .items(items)
+                .shippingAddress(new ShippingAddressDTO())
+                .createdAt(LocalDateTime.MIN)
+                .updatedAt(LocalDateTime.MAX)
+                .build();
+        KafkaEvent<OrderDTO> event = KafkaEventFixtures.event("ORDER_CANCELLED", null, order);
+        event.setEventId("not-a-uuid");
+        event.setUserId(null);
+
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void keepsEmptyAndMissingItemListsApart() {
+        KafkaEvent<OrderDTO> empty = KafkaEventFixtures.orderEvent(0);
+        KafkaEvent<OrderDTO> missing = KafkaEventFixtures.orderEvent(0);
+        missing.getPayload().setItems(null);
+
+        assertThat(decodedOrder(empty).getItems()).isEmpty();
+        assertThat(decodedOrder(missing).getItems()).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderDTO.OrderStatus.class)
+    void roundTripsEveryOrderStatus(OrderDTO.OrderStatus status) {
+        KafkaEvent<OrderDTO> event = KafkaEventFixtures.orderEvent(1);
+        event.getPayload().setStatus(status);
+
+        assertThat(decodedOrder(event).getStatus()).isEqualTo(status);
+    }
+
+    @Test
+    void rejectsAnUnknownStatusCode() {
+        KafkaEvent<OrderDTO> event = new KafkaEvent<>();
+        event.setPayload(OrderDTO.builder().status(OrderDTO.OrderStatus.PENDING).build());
+        byte[] data = KafkaEventCodec.encode(event, "order");
+        // Enveloppe (5 champs) puis id, orderNumber, customerId, email, langue : un octet chacun quand null
+        int statusOffset = 10;
+        assertThat(data[statusOffset]).isEqualTo((byte) 1);
+        data[statusOffset] = 42;
+
+        assertThatThrownBy(() -> KafkaEventCodec.decode(data, "order", KafkaEventCodec.SCHEMA_VERSION))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("42");
+    }
+
+    @Test
+    void roundTripsACompleteProductEvent() {
+        KafkaEvent<ProductDTO> event = KafkaEventFixtures.productEvent();
+
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsNullAndExtremeProductValues() {
+        ProductDTO product = ProductDTO.builder()
+                .id(Long.MIN_VALUE)
+                .price(new BigDecimal("-0.01"))
+                .stockQuantity(Integer.MAX_VALUE)
+                .images(List.of())
+                .tags(Arrays.asList("", null, "🚀"))
+                .active(false)
+                .rating(Double.NaN)
+                .reviewCount(Integer.MIN_VALUE)
+                .build();
+        KafkaEvent<ProductDTO> event = KafkaEventFixtures.event("PRODUCT_DELETED", "product-service", product);
+
+        KafkaEvent<Object> decoded = roundTrip(event);
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(((ProductDTO) decoded.getPayload()).getDescription()).isNull();
+        assertThat(((ProductDTO) decoded.getPayload()).getImages()).isEmpty();
+    }
+
+    @Test
+    void roundTripsAnEventWithoutPayload() {
+        KafkaEvent<Object> event = KafkaEventFixtures.event("PING", "billing-service", null);
+
+        assertThat(KafkaEventCodec.payloadType(event)).isEqualTo("none");
+        assertThat(roundTrip(event)).isEqualTo(event);
+    }
+
+    @Test
+    void hasNoBinarySchemaForOtherPayloads() {
+        assertThat(KafkaEventCodec.payloadType(KafkaEventFixtures.event("X", "s", "text"))).isNull();
+        assertThat(KafkaEventCodec.payloadType("not an event")).isNull();
+    }
+
+    @Test
+    void rejectsUnsupportedSchemaVersionsAndPayloadTypes() {
+        byte[] data = KafkaEventCodec.encode(KafkaEventFixtures.productEvent(), "product");
+
+        assertThatThrownBy(() -> KafkaEventCodec.decode(data, "product", KafkaEventCodec.SCHEMA_VERSION + 1))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> KafkaEventCodec.decode(data, "product", 0))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> KafkaEventCodec.decode(data, "invoice", KafkaEventCodec.SCHEMA_VERSION))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void serializesBinaryTopicsWithSchemaHeadersAndOthersAsJson() {
+        KafkaEventSerializer serializer = new KafkaEventSerializer();
+        serializer.configure(Map.of(KafkaEventSerializer.BINARY_TOPICS_CONFIG, "order-events, product-events"), false);
+        KafkaEventDeserializer<Object> deserializer = new KafkaEventDeserializer<>();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        KafkaEvent<OrderDTO> event = KafkaEventFixtures.orderEvent(2);
+
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        byte[] binary = serializer.serialize("order-events", binaryHeaders, event);
+        assertThat(new String(binaryHeaders.lastHeader(KafkaEventCodec.HEADER_ENCODING).value(), StandardCharsets.UTF_8))
+                .isEqualTo(KafkaEventCodec.ENCODING_BINARY);
+        assertThat(binaryHeaders.lastHeader(KafkaEventCodec.HEADER_SCHEMA_VERSION).value())
+                .containsExactly(KafkaEventCodec.SCHEMA_VERSION);
+        assertThat(deserializer.deserialize("order-events", binaryHeaders, binary)).isEqualTo(event);
+
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json = serializer.serialize("notification-events", jsonHeaders, event);
+        assertThat(jsonHeaders.lastHeader(KafkaEventCodec.HEADER_ENCODING)).isNull();
+        // JSON : le payload générique revient en Map, seule l'enveloppe est comparée ici
+        KafkaEvent<?> fromJson = (KafkaEvent<?>) deserializer.deserialize("notification-events", jsonHeaders, json);
+        assertThat(fromJson.getEventId()).isEqualTo(event.getEventId());
+        assertThat(fromJson.getTimestamp()).isEqualTo(event.getTimestamp());
+
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void rejectsBinaryEventsWithoutSchemaHeaders() {
+        KafkaEventDeserializer<Object> deserializer = new KafkaEventDeserializer<>(new JsonDeserializer<>());
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaEventCodec.HEADER_ENCODING, KafkaEventCodec.ENCODING_BINARY.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> deserializer.deserialize("order-events", headers, new byte[]{0}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static OrderDTO decodedOrder(KafkaEvent<OrderDTO> event) {
+        return (OrderDTO) roundTrip(event).getPayload();
+    }
+
+    private static KafkaEvent<Object> roundTrip(KafkaEvent<?> event) {
+        String payloadType = KafkaEventCodec.payloadType(event);
+        return KafkaEventCodec.decode(KafkaEventCodec.encode(event, payloadType), payloadType,
+                KafkaEventCodec.SCHEMA_VERSION);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.OrderItemDTO;
+import com.ghali.ecommerce.common.dto.ProductDTO;
+import com.ghali.ecommerce.common.dto.ShippingAddressDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Événements représentatifs des topics order-events et product-events
+ */
+final class KafkaEventFixtures {
+
+    private KafkaEventFixtures() {
+    }
+
+    static KafkaEvent<OrderDTO> orderEvent(int itemCount) {
+        List<OrderItemDTO> items = new ArrayList<>(itemCount);
+        for (int i = 1; i <= itemCount; i++) {
+            items.add(OrderItemDTO.builder()
+                    .id(10_000L + i)
+                    .productId(500L + i)
+                    .productName("Produit de démonstration " + i)
+                    .productSku("SKU-" + (1000 + i))
+                    .quantity(i)
+                    .unitPrice(new BigDecimal("199.90"))
+                    .totalPrice(new BigDecimal("199.90").multiply(BigDecimal.valueOf(i)))
+                    .build());
+        }
+        OrderDTO order = OrderDTO.builder()
+                .id(123_456L)
+                .orderNumber("CMD-2024-000123")
+                .customerId(UUID.randomUUID().toString())
+                .customerEmail("client.fidele@example.com")
+                .customerLanguage("fr")
+                .status(OrderDTO.OrderStatus.CONFIRMED)
+                .totalAmount(new BigDecimal("1249.50"))
+                .items(items)
+                .shippingAddress(ShippingAddressDTO.builder()
+                        .fullName("Amina El Idrissi")
+                        .addressLine1("12 boulevard Zerktouni")
+                        .city("Casablanca")
+                        .zipCode("20000")
+                        .country("Maroc")
+                        .phone("+212600000000")
+                        .build())
+                .createdAt(LocalDateTime.of(2024, 5, 14, 10, 15, 30, 123_000_000))
+                .updatedAt(LocalDateTime.of(2024, 5, 14, 10, 16, 2))
+                .build();
+        return event("ORDER_CONFIRMED", "order-service", order);
+    }
+
+    static KafkaEvent<ProductDTO> productEvent() {
+        ProductDTO product = ProductDTO.builder()
+                .id(42L)
+                .sku("SKU-1042")
+                .name("Casque audio sans fil")
+                .description("Réduction de bruit active, 30 h d'autonomie, charge rapide USB-C.")
+                .price(new BigDecimal("899.00"))
+                .stockQuantity(120)
+                .category("Électronique")
+                .images(List.of("https://cdn.example.com/p/42/1.jpg", "https://cdn.example.com/p/42/2.jpg"))
+                .tags(List.of("audio", "bluetooth", "nouveauté"))
+                .active(true)
+                .rating(4.6)
+                .reviewCount(318)
+                .build();
+        return event("PRODUCT_UPDATED", "product-service", product);
+    }
+
+    static <T> KafkaEvent<T> event(String type, String source, T payload) {
+        KafkaEvent<T> event = new KafkaEvent<>();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setEventType(type);
+        event.setTimestamp(LocalDateTime.of(2024, 5, 14, 10, 16, 2, 456_789_000));
+        event.setSource(source);
+        event.setUserId(UUID.randomUUID().toString());
+        event.setPayload(payload);
+        return event;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ghali.ecommerce.common.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit d'envoi (événements/s) vers un broker Kafka embarqué, selon le profil
+ * de réglage des producers ; DEFAULTS correspond aux réglages Kafka d'origine
+ * (sans linger ni compression). Chaque invocation envoie EVENTS commandes
+ * et attend leur acquittement.
+ *
+ * mvn -Pbenchmark -pl backend/common-lib verify -Djmh.include=KafkaThroughputBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KafkaThroughputBenchmark {
+
+    private static final int EVENTS = 5_000;
+    private static final int PARTITIONS = 3;
+
+    @Param({"DEFAULTS", "LOW_LATENCY", "HIGH_THROUGHPUT"})
+    public String profile;
+
+    @Param({"json", "binary"})
+    public String encoding;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private KafkaTemplate<String, Object> template;
+    private String topic;
+    private List<KafkaEvent<OrderDTO>> events;
+
+    @Setup
+    public void setUp() {
+        topic = "order-events-" + profile.toLowerCase() + "-" + encoding;
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, topic);
+        broker.afterPropertiesSet();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaEventSerializer.class);
+        if ("binary".equals(encoding)) {
+            config.put(KafkaEventSerializer.BINARY_TOPICS_CONFIG, topic);
+        }
+        if (!"DEFAULTS".equals(profile)) {
+            KafkaClientProperties properties = new KafkaClientProperties();
+            properties.setProfile(KafkaTuningProfile.valueOf(profile));
+            KafkaClientAutoConfiguration.producerSettings(properties).forEach(config::putIfAbsent);
+        }
+        producerFactory = new DefaultKafkaProducerFactory<>(config);
+        template = new KafkaTemplate<>(producerFactory);
+
+        // Commandes de 1 à 5 articles, clé = numéro de commande comme dans order-service
+        events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            KafkaEvent<OrderDTO> event = KafkaEventFixtures.orderEvent(1 + i % 5);
+            event.getPayload().setOrderNumber("CMD-2024-" + String.format("%06d", i));
+            events.add(event);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        producerFactory.destroy();
+        broker.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void send() {
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            KafkaEvent<OrderDTO> event = events.get(i);
+            acks[i] = template.send(topic, event.getPayload().getOrderNumber(), event);
+        }
+        CompletableFuture.allOf(acks).join();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ghali.ecommerce.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NGramIndexTest {
+
+    @Test
+    void ranksExactThenPrefixThenWordPrefixThenSubstring() {
+        NGramIndex index = new NGramIndex(10);
+        index.put(1, "xmartinx");
+        index.put(2, "paul martin");
+        index.put(3, "martinez");
+        index.put(4, "Martin");
+
+        SearchHits hits = index.search("martin", 0, 10);
+
+        assertThat(hits.ids()).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(hits.capped()).isFalse();
+    }
+
+    @Test
+    void keepsTheBestMatchesWhenCapped() {
+        NGramIndex index = new NGramIndex(2);
+        for (long id = 1; id <= 50; id++) {
+            index.put(id, "client durand " + id);
+        }
+        index.put(100, "durand");
+        index.put(101, "durandal");
+
+        SearchHits hits = index.search("durand", 0, 10);
+
+        assertThat(hits.ids()).containsExactly(100L, 101L);
+        assertThat(hits.totalMatches()).isEqualTo(2);
+        assertThat(hits.capped()).isTrue();
+    }
+
+    @Test
+    void shortQueriesAreRankedBeforeBeingBounded() {
+        NGramIndex index = new NGramIndex(3);
+        // Insérés d'abord : de simples sous-chaînes, écartées par le classement
+        for (long id = 1; id <= 20; id++) {
+            index.put(id, "xxab" + id);
+        }
+        index.put(30, "ab");
+        index.put(31, "abc");
+        index.put(32, "x ab");
+
+        SearchHits hits = index.search("ab", 0, 10);
+
+        assertThat(hits.ids()).containsExactly(30L, 31L, 32L);
+        assertThat(hits.capped()).isTrue();
+    }
+
+    @Test
+    void pagesThroughRetainedMatches() {
+        NGramIndex index = new NGramIndex(100);
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "dupont", "email" + id);
+        }
+
+        List<Long> first = index.search("dupont", 0, 2).ids();
+        List<Long> last = index.search("dupont", 2, 2).ids();
+
+        assertThat(first).containsExactly(1L, 2L);
+        assertThat(last).containsExactly(5L);
+    }
+
+    @Test
+    void ignoresAccentsAndRemovedDocuments() {
+        NGramIndex index = new NGramIndex(10);
+        index.put(1, "Hélène Lefèvre");
+        index.put(2, "Helene Petit");
+        index.remove(2);
+
+        assertThat(index.search("helene", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
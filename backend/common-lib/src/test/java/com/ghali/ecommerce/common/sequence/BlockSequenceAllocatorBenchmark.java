@@ -0,0 +1,67 @@
+package com.ghali.ecommerce.common.sequence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de numérotation sous contention (8 threads, une instance) : blockSize = 1
+ * équivaut à un verrou de ligne par numéro, comme l'ancienne numérotation
+ *
+ * La table de segments est sur H2 en mémoire : sans aller-retour réseau, le coût
+ * d'une réservation (et donc l'écart entre les tailles de bloc) est sous-estimé.
+ *
+ * mvn -Pbenchmark -pl backend/common-lib verify -Djmh.include=BlockSequenceAllocatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class BlockSequenceAllocatorBenchmark {
+
+    private static final String TABLE = "number_segments";
+    private static final int YEAR = 2026;
+
+    @Param({"1", "100", "1000"})
+    public int blockSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private BlockSequenceAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sequences-" + blockSize + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE
+                + " (sequence_year INT PRIMARY KEY, next_value BIGINT, updated_at TIMESTAMP)");
+        allocator = new BlockSequenceAllocator(dataSource, TABLE, blockSize, (jdbc, year) -> null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE " + TABLE);
+    }
+
+    @Benchmark
+    public long next() {
+        return allocator.next(YEAR);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ghali.ecommerce.common.sequence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plusieurs instances (une par réplica de service) tirent en parallèle dans la même
+ * table de segments : aucune valeur n'est attribuée deux fois et chaque bloc est
+ * distribué sans trou, à partir de son début
+ */
+class BlockSequenceAllocatorTest {
+
+    private static final String TABLE = "number_segments";
+    private static final int YEAR = 2026;
+    private static final int BLOCK_SIZE = 50;
+    private static final int INSTANCES = 2;
+    private static final int THREADS = 16;
+    private static final int ALLOCATIONS_PER_THREAD = 2_000;
+
+    // Dernier numéro attribué avant la table de segments
+    private static final long SEEDED_MAX = 41;
+
+    private JdbcDataSource dataSource;
+    private final List<BlockSequenceAllocator> allocators = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sequences;DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(dataSource).execute("CREATE TABLE " + TABLE
+                + " (sequence_year INT PRIMARY KEY, next_value BIGINT, updated_at TIMESTAMP)");
+        for (int i = 0; i < INSTANCES; i++) {
+            allocators.add(new BlockSequenceAllocator(dataSource, TABLE, BLOCK_SIZE, (jdbc, year) -> SEEDED_MAX));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(dataSource).execute("DROP TABLE " + TABLE);
+    }
+
+    @Test
+    void concurrentAllocationsAreUniqueAndBlocksHaveNoGaps() throws Exception {
+        List<Long> values = allocateConcurrently();
+
+        int expected = THREADS * ALLOCATIONS_PER_THREAD;
+        Set<Long> distinct = new HashSet<>(values);
+        assertThat(values).hasSize(expected);
+        assertThat(distinct).hasSize(expected);
+        assertThat(values).allSatisfy(value -> assertThat(value).isGreaterThan(SEEDED_MAX));
+
+        // Valeurs regroupées par bloc réservé (les blocs sont alignés sur le seed)
+        Map<Long, List<Long>> blocks = new TreeMap<>();
+        for (long value : distinct) {
+            blocks.computeIfAbsent((value - SEEDED_MAX - 1) / BLOCK_SIZE, k -> new ArrayList<>()).add(value);
+        }
+        int partialBlocks = 0;
+        for (Map.Entry<Long, List<Long>> block : blocks.entrySet()) {
+            long start = SEEDED_MAX + 1 + block.getKey() * BLOCK_SIZE;
+            List<Long> blockValues = block.getValue();
+            // Distribué dans l'ordre : les valeurs prises forment un début de bloc contigu
+            assertThat(blockValues).allSatisfy(value -> assertThat(value).isLessThan(start + blockValues.size()));
+            if (blockValues.size() < BLOCK_SIZE) {
+                partialBlocks++;
+            }
+        }
+        // Seul le bloc courant de chaque instance peut être entamé
+        assertThat(partialBlocks).isLessThanOrEqualTo(INSTANCES);
+
+        long nextValue = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT next_value FROM " + TABLE + " WHERE sequence_year = ?", Long.class, YEAR);
+        assertThat(nextValue).isEqualTo(SEEDED_MAX + 1 + (long) blocks.size() * BLOCK_SIZE);
+    }
+
+    @Test
+    void instancesLeaseDisjointBlocks() {
+        BlockSequenceAllocator first = allocators.get(0);
+        assertThat(first.next(YEAR)).isEqualTo(SEEDED_MAX + 1);
+
+        // La seconde instance reçoit le bloc suivant, la première continue le sien
+        BlockSequenceAllocator second = allocators.get(1);
+        assertThat(second.next(YEAR)).isEqualTo(SEEDED_MAX + 1 + BLOCK_SIZE);
+        assertThat(first.next(YEAR)).isEqualTo(SEEDED_MAX + 2);
+    }
+
+    private List<Long> allocateConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<List<Long>>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                BlockSequenceAllocator allocator = allocators.get(t % INSTANCES);
+                tasks.add(() -> {
+                    List<Long> taken = new ArrayList<>(ALLOCATIONS_PER_THREAD);
+                    for (int i = 0; i < ALLOCATIONS_PER_THREAD; i++) {
+                        taken.add(allocator.next(YEAR));
+                    }
+                    return taken;
+                });
+            }
+
+            List<Long> values = new ArrayList<>();
+            for (Future<List<Long>> result : executor.invokeAll(tasks)) {
+                values.addAll(result.get());
+            }
+            return values;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
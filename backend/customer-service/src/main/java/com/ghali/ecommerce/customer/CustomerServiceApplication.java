@@ -3,6 +3,8 @@ package com.ghali.ecommerce.customer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Service de gestion des clients acheteurs
@@ -10,6 +12,8 @@ import org.springframework.cache.annotation.EnableCaching;
  */
 @SpringBootApplication
 @EnableCaching
+@EnableKafka
+@EnableScheduling
 public class CustomerServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,136 @@
+package com.ghali.ecommerce.customer.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.kafka.KafkaEventDeserializer;
+import com.ghali.ecommerce.common.kafka.KafkaEventSerializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration Kafka pour le customer service (statistiques de commandes)
+ */
+@Configuration
+@EnableKafka
+public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${customers.kafka.listener-concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${customers.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.topics.order-events-dlt:customer-order-events-dlt}")
+    private String deadLetterTopic;
+
+    @Value("${customers.kafka.retry.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${customers.kafka.retry.initial-interval-ms:1000}")
+    private long retryInitialIntervalMs;
+
+    @Value("${customers.kafka.retry.max-interval-ms:30000}")
+    private long retryMaxIntervalMs;
+
+    @Bean
+    public ConsumerFactory<String, KafkaEvent<OrderDTO>> consumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        // Taille maximale d'un lot : une transaction de mise à jour des statistiques par lot
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        JsonDeserializer<KafkaEvent<OrderDTO>> valueDeserializer =
+                new JsonDeserializer<>(new TypeReference<KafkaEvent<OrderDTO>>() {
+                }, false);
+        valueDeserializer.addTrustedPackages("*");
+
+        // Événements binaires (en-tête ecommerce-encoding) ou JSON selon le producer
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new KafkaEventDeserializer<>(valueDeserializer)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        // Événements d'une commande sur une même partition : traités dans l'ordre par un seul thread
+        factory.setConcurrency(listenerConcurrency);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * Lot en échec (interblocage, conflit de clé avec un autre consumer, base indisponible) :
+     * rejoué avec un délai croissant, puis ses événements partent dans le topic dead-letter
+     * au lieu de bloquer la partition
+     */
+    @Bean
+    public DefaultErrorHandler errorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(retryInitialIntervalMs);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+
+        // Partition -1 : choisie par le producer, le topic dead-letter n'a pas à reprendre
+        // le nombre de partitions de order-events
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterTemplate(),
+                (record, exception) -> new TopicPartition(deadLetterTopic, -1));
+        return new DefaultErrorHandler(recoverer, backOff);
+    }
+
+    /**
+     * Producer du topic dead-letter : événements réencodés comme à l'origine, messages
+     * illisibles (ErrorHandlingDeserializer) republiés avec leurs octets d'origine
+     */
+    @Bean
+    public ProducerFactory<String, Object> deadLetterProducerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+
+        Map<Class<?>, Serializer<?>> valueSerializers = new LinkedHashMap<>();
+        valueSerializers.put(byte[].class, new ByteArraySerializer());
+        valueSerializers.put(KafkaEvent.class, new KafkaEventSerializer());
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(),
+                new DelegatingByTypeSerializer(valueSerializers));
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterTemplate() {
+        return new KafkaTemplate<>(deadLetterProducerFactory());
+    }
+}
@@ -1,11 +1,16 @@
 package com.ghali.ecommerce.customer.controller;
 
+import com.ghali.ecommerce.common.dto.CustomerAddressDTO;
+import com.ghali.ecommerce.common.dto.CustomerDTO;
+import com.ghali.ecommerce.common.dto.LeaderboardEntryDTO;
 import com.ghali.ecommerce.customer.model.Customer;
 import com.ghali.ecommerce.customer.model.CustomerAddress;
+import com.ghali.ecommerce.customer.repository.CustomerRepository;
 import com.ghali.ecommerce.customer.service.CustomerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -31,11 +36,11 @@ public class CustomerController {
      * Obtenir le profil du client connecté
      */
     @GetMapping("/me")
-    public ResponseEntity<Customer> getMyProfile(Authentication authentication) {
+    public ResponseEntity<CustomerDTO> getMyProfile(Authentication authentication) {
         String keycloakId = extractKeycloakId(authentication);
         log.info("👤 GET /api/customers/me - Keycloak ID: {}", keycloakId);
         
-        Customer customer = customerService.getCustomerByKeycloakId(keycloakId);
+        CustomerDTO customer = customerService.getProfile(keycloakId);
         return ResponseEntity.ok(customer);
     }
 
@@ -43,14 +48,14 @@ public class CustomerController {
      * Mettre à jour le profil du client connecté
      */
     @PutMapping("/me")
-    public ResponseEntity<Customer> updateMyProfile(
+    public ResponseEntity<CustomerDTO> updateMyProfile(
             @Valid @RequestBody Customer customerData,
             Authentication authentication
     ) {
         String keycloakId = extractKeycloakId(authentication);
         log.info("🔄 PUT /api/customers/me - Updating profile");
         
-        Customer updatedCustomer = customerService.updateCustomer(keycloakId, customerData);
+        CustomerDTO updatedCustomer = customerService.updateCustomer(keycloakId, customerData);
         return ResponseEntity.ok(updatedCustomer);
     }
 
@@ -58,12 +63,12 @@ public class CustomerController {
      * Obtenir les adresses du client connecté
      */
     @GetMapping("/me/addresses")
-    public ResponseEntity<List<CustomerAddress>> getMyAddresses(Authentication authentication) {
+    public ResponseEntity<List<CustomerAddressDTO>> getMyAddresses(Authentication authentication) {
         String keycloakId = extractKeycloakId(authentication);
         log.info("📍 GET /api/customers/me/addresses");
         
-        Customer customer = customerService.getCustomerByKeycloakId(keycloakId);
-        List<CustomerAddress> addresses = customerService.getCustomerAddresses(customer.getId());
+        CustomerDTO customer = customerService.getProfile(keycloakId);
+        List<CustomerAddressDTO> addresses = customerService.getCustomerAddresses(customer.getId());
         return ResponseEntity.ok(addresses);
     }
 
@@ -71,16 +76,15 @@ public class CustomerController {
      * Ajouter une adresse pour le client connecté
      */
     @PostMapping("/me/addresses")
-    public ResponseEntity<CustomerAddress> addAddress(
+    public ResponseEntity<CustomerAddressDTO> addAddress(
             @Valid @RequestBody CustomerAddress address,
             Authentication authentication
     ) {
         String keycloakId = extractKeycloakId(authentication);
         log.info("📍 POST /api/customers/me/addresses - Adding address");
         
-        Customer customer = customerService.getCustomerByKeycloakId(keycloakId);
-        CustomerAddress savedAddress = customerService.addAddress(customer.getId(), address);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedAddress);
+        CustomerAddress savedAddress = customerService.addAddress(keycloakId, address);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedAddress.toDTO());
     }
 
     /**
@@ -94,8 +98,7 @@ public class CustomerController {
         String keycloakId = extractKeycloakId(authentication);
         log.info("📍 PUT /api/customers/me/addresses/{}/default", addressId);
         
-        Customer customer = customerService.getCustomerByKeycloakId(keycloakId);
-        customerService.setDefaultAddress(customer.getId(), addressId);
+        customerService.setDefaultAddress(keycloakId, addressId);
         return ResponseEntity.ok().build();
     }
 
@@ -103,9 +106,13 @@ public class CustomerController {
      * Supprimer une adresse
      */
     @DeleteMapping("/me/addresses/{addressId}")
-    public ResponseEntity<Void> deleteAddress(@PathVariable Long addressId) {
+    public ResponseEntity<Void> deleteAddress(
+            @PathVariable Long addressId,
+            Authentication authentication
+    ) {
+        String keycloakId = extractKeycloakId(authentication);
         log.info("🗑️ DELETE /api/customers/me/addresses/{}", addressId);
-        customerService.deleteAddress(addressId);
+        customerService.deleteAddress(keycloakId, addressId);
         return ResponseEntity.noContent().build();
     }
 
@@ -115,9 +122,14 @@ public class CustomerController {
      * Rechercher des clients (ADMIN)
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Customer>> searchCustomers(@RequestParam String keyword) {
-        log.info("🔍 GET /api/customers/search?keyword={}", keyword);
-        List<Customer> customers = customerService.searchCustomers(keyword);
+    public ResponseEntity<Page<CustomerRepository.SummaryView>> searchCustomers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        log.info("🔍 GET /api/customers/search?keyword={}&page={}&size={}", keyword, page, size);
+        Page<CustomerRepository.SummaryView> customers = customerService.searchCustomers(keyword, Math.max(page, 0),
+                Math.max(1, Math.min(size, 100)));
         return ResponseEntity.ok(customers);
     }
 
@@ -125,21 +137,53 @@ public class CustomerController {
      * Obtenir les meilleurs clients (ADMIN)
      */
     @GetMapping("/top")
-    public ResponseEntity<List<Customer>> getTopCustomers(
-            @RequestParam(defaultValue = "5") int minOrders
+    public ResponseEntity<List<LeaderboardEntryDTO>> getTopCustomers(
+            @RequestParam(defaultValue = "5") int minOrders,
+            @RequestParam(defaultValue = "10") int limit
     ) {
         log.info("🏆 GET /api/customers/top");
-        List<Customer> customers = customerService.getTopCustomers(minOrders);
+        List<LeaderboardEntryDTO> customers = customerService.getTopCustomers(minOrders, limit);
         return ResponseEntity.ok(customers);
     }
 
+    /**
+     * Classement des clients par montant dépensé, paginé (ADMIN)
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "0") int minOrders
+    ) {
+        log.info("🏆 GET /api/customers/leaderboard?page={}&size={}&minOrders={}", page, size, minOrders);
+        return ResponseEntity.ok(customerService.getLeaderboard(page, size, minOrders));
+    }
+
+    /**
+     * Position d'un client dans le classement (ADMIN)
+     */
+    @GetMapping("/leaderboard/{customerId}")
+    public ResponseEntity<LeaderboardEntryDTO> getLeaderboardEntry(@PathVariable Long customerId) {
+        log.info("🏆 GET /api/customers/leaderboard/{}", customerId);
+        return ResponseEntity.ok(customerService.getLeaderboardEntry(customerId));
+    }
+
+    /**
+     * Recharger le classement depuis la base (ADMIN)
+     */
+    @PostMapping("/leaderboard/rebuild")
+    public ResponseEntity<Long> rebuildLeaderboard() {
+        log.info("🔄 POST /api/customers/leaderboard/rebuild");
+        return ResponseEntity.ok(customerService.rebuildLeaderboard());
+    }
+
     /**
      * Obtenir un client par ID (ADMIN)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
+    public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable Long id) {
         log.info("👤 GET /api/customers/{}", id);
-        Customer customer = customerService.getCustomerById(id);
+        CustomerDTO customer = customerService.getCustomerDetails(id);
         return ResponseEntity.ok(customer);
     }
 
@@ -0,0 +1,96 @@
+package com.ghali.ecommerce.customer.kafka;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.customer.leaderboard.CustomerLeaderboard;
+import com.ghali.ecommerce.customer.service.CustomerStatsProjector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Consumer Kafka des événements de commande : statistiques clients
+ * Seuls ORDER_DELIVERED et ORDER_CANCELLED modifient les statistiques ; les livraisons
+ * reçues avant la création du client sont comptées périodiquement (applyPendingStats)
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderStatsConsumer {
+
+    private static final Set<String> STATS_EVENTS = Set.of("ORDER_DELIVERED", "ORDER_CANCELLED");
+
+    private final CustomerStatsProjector customerStatsProjector;
+    private final CustomerLeaderboard customerLeaderboard;
+    private final CacheManager cacheManager;
+
+    @Value("${customers.stats.pending-batch-size:500}")
+    private int pendingBatchSize;
+
+    @KafkaListener(
+        topics = "${kafka.topics.order-events}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeOrderEvents(List<KafkaEvent<OrderDTO>> events) {
+        List<KafkaEvent<OrderDTO>> statsEvents = new ArrayList<>();
+        for (KafkaEvent<OrderDTO> event : events) {
+            // Message illisible (ErrorHandlingDeserializer) : ignoré
+            if (event == null || event.getPayload() == null) {
+                log.warn("⚠️ Skipping unreadable order event");
+                continue;
+            }
+            OrderDTO order = event.getPayload();
+            if (STATS_EVENTS.contains(event.getEventType()) && order.getId() != null && order.getCustomerId() != null) {
+                statsEvents.add(event);
+            }
+        }
+        if (statsEvents.isEmpty()) {
+            return;
+        }
+
+        // Une erreur (interblocage...) fait rejouer le lot entier : la transaction a été annulée
+        publish(customerStatsProjector.apply(statsEvents));
+    }
+
+    /**
+     * Compte les livraisons en attente dont le client a été créé depuis
+     */
+    @Scheduled(fixedDelayString = "${customers.stats.pending-interval-ms:60000}",
+            initialDelayString = "${customers.stats.pending-interval-ms:60000}")
+    public void applyPendingStats() {
+        try {
+            CustomerStatsProjector.Result result;
+            do {
+                result = customerStatsProjector.applyPending(pendingBatchSize);
+                publish(result);
+            } while (!result.keycloakIds().isEmpty());
+        } catch (RuntimeException e) {
+            // Les lignes restent en attente : reprises au prochain passage
+            log.warn("⚠️ Could not apply pending order stats: {}", e.getMessage());
+        }
+    }
+
+    private void publish(CustomerStatsProjector.Result result) {
+        Cache customers = cacheManager.getCache("customers");
+        if (customers != null) {
+            result.keycloakIds().forEach(customers::evict);
+        }
+        try {
+            customerLeaderboard.update(result.standings());
+        } catch (RuntimeException e) {
+            // Statistiques déjà validées en base : le lot n'est pas rejoué, le classement
+            // se rattrape par la réconciliation périodique (CustomerLeaderboard.reconcile)
+            log.warn("⚠️ Could not update customer leaderboard: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.ghali.ecommerce.customer.leaderboard;
+
+import com.ghali.ecommerce.common.dto.LeaderboardEntryDTO;
+import com.ghali.ecommerce.customer.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Classement des clients par montant dépensé, dans un sorted set Redis
+ *
+ * - customers:leaderboard : score = total_spent, membre = ID client (O(log n) par mise à jour)
+ * - customers:leaderboard:orders : nombre de commandes, pour le filtre minOrders
+ * - customers:leaderboard:versions : stats_version du client ; une mise à jour n'est
+ *   appliquée que si sa version est plus récente, l'ordre d'arrivée est donc sans effet
+ * - tenu à jour par CustomerStatsProjector, chargé depuis la base (lecture en flux) au
+ *   premier démarrage ou après la perte des clés Redis ; le rechargement remplit des
+ *   clés temporaires renommées ensuite sur les clés en service (les clients disparus
+ *   de la base disparaissent du classement)
+ * - réconcilié périodiquement avec les clients modifiés récemment : une mise à jour
+ *   Redis échouée (Redis indisponible) est rattrapée sans rejouer les événements
+ *
+ * Les pages ne chargent que les clients affichés, en projection légère (sans adresses).
+ * Avec minOrders, le classement est parcouru par tranches jusqu'à remplir la page
+ * (au plus max-filter-scan clients examinés).
+ */
+@Component
+@Slf4j
+public class CustomerLeaderboard {
+
+    private static final String RANKING_KEY = "customers:leaderboard";
+    private static final String ORDERS_KEY = "customers:leaderboard:orders";
+    private static final String VERSIONS_KEY = "customers:leaderboard:versions";
+    private static final String LOADED_KEY = "customers:leaderboard:loaded";
+    private static final String REBUILD_KEY_PREFIX = "customers:leaderboard:rebuild:";
+    private static final List<String> LIVE_KEYS = List.of(RANKING_KEY, ORDERS_KEY, VERSIONS_KEY);
+
+    private static final String SELECT_ALL_SQL = "SELECT id, total_spent, total_orders, stats_version FROM customers";
+    private static final String SELECT_CHANGED_SQL = SELECT_ALL_SQL + " WHERE updated_at >= ?";
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    // Clés d'un rechargement interrompu : supprimées par Redis
+    private static final Duration REBUILD_KEY_TTL = Duration.ofHours(1);
+
+    // ARGV : (id, score, commandes, version) répétés ; ignore les versions déjà dépassées
+    private static final RedisScript<Long> UPDATE_IF_NEWER = new DefaultRedisScript<>("""
+            local applied = 0
+            for i = 1, #ARGV, 4 do
+                local current = redis.call('HGET', KEYS[3], ARGV[i])
+                if not current or tonumber(current) < tonumber(ARGV[i + 3]) then
+                    redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i])
+                    redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 2])
+                    redis.call('HSET', KEYS[3], ARGV[i], ARGV[i + 3])
+                    applied = applied + 1
+                end
+            end
+            return applied
+            """, Long.class);
+
+    // KEYS : 3 clés temporaires, 3 clés en service, LOADED_KEY ; ARGV : horodatage du chargement
+    private static final RedisScript<Long> SWAP = new DefaultRedisScript<>("""
+            for i = 1, 3 do
+                if redis.call('EXISTS', KEYS[i]) == 1 then
+                    redis.call('RENAME', KEYS[i], KEYS[i + 3])
+                    redis.call('PERSIST', KEYS[i + 3])
+                else
+                    redis.call('DEL', KEYS[i + 3])
+                end
+            end
+            redis.call('SET', KEYS[7], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Value("${customers.leaderboard.max-filter-scan:100000}")
+    private int maxFilterScan;
+
+    @Value("${customers.leaderboard.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${customers.leaderboard.reconcile-overlap-seconds:60}")
+    private long reconcileOverlapSeconds;
+
+    private volatile LocalDateTime lastReconcile;
+
+    public CustomerLeaderboard(StringRedisTemplate redisTemplate, CustomerRepository customerRepository,
+                               DataSource dataSource) {
+        this.redisTemplate = redisTemplate;
+        this.customerRepository = customerRepository;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL : lecture en flux plutôt que tous les clients en mémoire
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Charge le classement s'il n'existe pas encore dans Redis
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIfMissing() {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(LOADED_KEY))) {
+            rebuild();
+        } else {
+            lastReconcile = LocalDateTime.now().minusSeconds(reconcileOverlapSeconds);
+        }
+    }
+
+    /**
+     * Recharge les statistiques de tous les clients dans des clés temporaires puis les
+     * renomme sur les clés en service ; les clients modifiés pendant le chargement sont
+     * relus avant l'échange, le reste est rattrapé par reconcile()
+     */
+    public long rebuild() {
+        log.info("🔄 Loading customer leaderboard from database");
+        LocalDateTime startedAt = LocalDateTime.now();
+        String prefix = REBUILD_KEY_PREFIX + UUID.randomUUID() + ":";
+        List<String> tempKeys = List.of(prefix + "ranking", prefix + "orders", prefix + "versions");
+
+        long loaded = load(tempKeys, SELECT_ALL_SQL);
+        load(tempKeys, SELECT_CHANGED_SQL, Timestamp.valueOf(startedAt.minusSeconds(reconcileOverlapSeconds)));
+
+        List<String> keys = new ArrayList<>(tempKeys);
+        keys.addAll(LIVE_KEYS);
+        keys.add(LOADED_KEY);
+        redisTemplate.execute(SWAP, keys, String.valueOf(System.currentTimeMillis()));
+        lastReconcile = startedAt;
+        log.info("✅ Customer leaderboard loaded with {} customers", loaded);
+        return loaded;
+    }
+
+    /**
+     * Réapplique les statistiques des clients modifiés depuis la dernière réconciliation
+     * (versions comparées : sans effet sur les entrées déjà à jour) ; recharge tout si
+     * les clés Redis ont été perdues
+     */
+    @Scheduled(fixedDelayString = "${customers.leaderboard.reconcile-interval-ms:60000}",
+            initialDelayString = "${customers.leaderboard.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            // Jamais chargé par cette instance (échec au démarrage) ou clés perdues
+            if (lastReconcile == null || !Boolean.TRUE.equals(redisTemplate.hasKey(LOADED_KEY))) {
+                rebuild();
+                return;
+            }
+            LocalDateTime startedAt = LocalDateTime.now();
+            long reloaded = load(LIVE_KEYS, SELECT_CHANGED_SQL,
+                    Timestamp.valueOf(lastReconcile.minusSeconds(reconcileOverlapSeconds)));
+            lastReconcile = startedAt;
+            log.debug("🔄 Customer leaderboard reconciled with {} recently updated customers", reloaded);
+        } catch (RuntimeException e) {
+            // lastReconcile inchangé : la même période est relue au prochain passage
+            log.warn("⚠️ Could not reconcile customer leaderboard: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Applique les nouvelles statistiques de clients (un seul aller-retour Redis)
+     */
+    public void update(List<Standing> standings) {
+        update(standings, LIVE_KEYS);
+    }
+
+    private long load(List<String> keys, String sql, Object... args) {
+        List<Standing> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+        long[] loaded = {0};
+        streamingJdbcTemplate.query(sql, rs -> {
+            chunk.add(new Standing(rs.getLong("id"), rs.getBigDecimal("total_spent"),
+                    rs.getInt("total_orders"), rs.getLong("stats_version")));
+            if (chunk.size() == LOAD_CHUNK_SIZE) {
+                loaded[0] += write(chunk, keys);
+                chunk.clear();
+            }
+        }, args);
+        loaded[0] += write(chunk, keys);
+        return loaded[0];
+    }
+
+    private int write(List<Standing> chunk, List<String> keys) {
+        update(chunk, keys);
+        if (keys != LIVE_KEYS) {
+            keys.forEach(key -> redisTemplate.expire(key, REBUILD_KEY_TTL));
+        }
+        return chunk.size();
+    }
+
+    private void update(List<Standing> standings, List<String> keys) {
+        if (standings.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[standings.size() * 4];
+        int i = 0;
+        for (Standing standing : standings) {
+            BigDecimal spent = standing.totalSpent() != null ? standing.totalSpent() : BigDecimal.ZERO;
+            args[i++] = String.valueOf(standing.customerId());
+            args[i++] = spent.toPlainString();
+            args[i++] = String.valueOf(standing.totalOrders());
+            args[i++] = String.valueOf(standing.version());
+        }
+        redisTemplate.execute(UPDATE_IF_NEWER, keys, args);
+    }
+
+    /**
+     * Page du classement (clients ayant au moins minOrders commandes)
+     */
+    public List<LeaderboardEntryDTO> page(int page, int size, int minOrders) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        long offset = (long) Math.max(page, 0) * pageSize;
+        List<Long> customerIds = minOrders <= 0
+                ? range(offset, pageSize)
+                : filteredRange(offset, pageSize, minOrders);
+        return toEntries(customerIds, offset + 1);
+    }
+
+    /**
+     * Position d'un client dans le classement complet, ou null s'il n'y figure pas
+     */
+    public LeaderboardEntryDTO rankOf(Long customerId) {
+        Long rank = redisTemplate.opsForZSet().reverseRank(RANKING_KEY, String.valueOf(customerId));
+        if (rank == null) {
+            return null;
+        }
+        List<LeaderboardEntryDTO> entries = toEntries(List.of(customerId), rank + 1);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    private List<Long> range(long offset, int count) {
+        Set<String> members = redisTemplate.opsForZSet().reverseRange(RANKING_KEY, offset, offset + count - 1);
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * Parcourt le classement par tranches en ne gardant que les clients assez fidèles
+     */
+    private List<Long> filteredRange(long offset, int count, int minOrders) {
+        List<Long> customerIds = new ArrayList<>(count);
+        int chunkSize = Math.max(count * 4, 200);
+        long matched = 0;
+        for (long start = 0; start < maxFilterScan && customerIds.size() < count; start += chunkSize) {
+            List<Long> chunk = range(start, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Object> orders = redisTemplate.opsForHash().multiGet(ORDERS_KEY,
+                    chunk.stream().map(String::valueOf).collect(Collectors.toList()));
+            for (int i = 0; i < chunk.size() && customerIds.size() < count; i++) {
+                Object value = orders.get(i);
+                if (value != null && Integer.parseInt(value.toString()) >= minOrders) {
+                    if (matched >= offset) {
+                        customerIds.add(chunk.get(i));
+                    }
+                    matched++;
+                }
+            }
+        }
+        return customerIds;
+    }
+
+    private List<LeaderboardEntryDTO> toEntries(List<Long> customerIds, long firstRank) {
+        if (customerIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CustomerRepository.StatsView> views = new HashMap<>();
+        customerRepository.findStatsViewsByIdIn(customerIds).forEach(view -> views.put(view.getId(), view));
+
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(customerIds.size());
+        for (int i = 0; i < customerIds.size(); i++) {
+            Long customerId = customerIds.get(i);
+            CustomerRepository.StatsView view = views.get(customerId);
+            if (view == null) {
+                continue;
+            }
+            entries.add(LeaderboardEntryDTO.builder()
+                    .rank(firstRank + i)
+                    .customerId(customerId)
+                    .fullName(fullName(view))
+                    .email(view.getEmail())
+                    .totalSpent(view.getTotalSpent())
+                    .totalOrders(view.getTotalOrders())
+                    .loyaltyPoints(view.getLoyaltyPoints())
+                    .build());
+        }
+        return entries;
+    }
+
+    private static String fullName(CustomerRepository.StatsView view) {
+        if (view.getFirstName() != null && view.getLastName() != null) {
+            return view.getFirstName() + " " + view.getLastName();
+        }
+        return view.getEmail();
+    }
+
+    /**
+     * Statistiques d'un client à une version donnée (stats_version)
+     */
+    public record Standing(Long customerId, BigDecimal totalSpent, int totalOrders, long version) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.ghali.ecommerce.customer.model;
 
+import com.ghali.ecommerce.common.dto.CustomerDTO;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -14,6 +15,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Entité Customer - Client acheteur
@@ -23,7 +25,8 @@ import java.util.List;
 @Table(name = "customers", indexes = {
     @Index(name = "idx_keycloak_id", columnList = "keycloak_id", unique = true),
     @Index(name = "idx_email", columnList = "email", unique = true),
-    @Index(name = "idx_phone", columnList = "phone")
+    @Index(name = "idx_phone", columnList = "phone"),
+    @Index(name = "idx_updated_at", columnList = "updated_at")
 })
 @Data
 @Builder
@@ -90,6 +93,11 @@ public class Customer {
     @Builder.Default
     private Integer loyaltyPoints = 0;
 
+    // Incrémentée à chaque mise à jour des statistiques (ordre des écritures du classement)
+    @Column(name = "stats_version")
+    @Builder.Default
+    private Long statsVersion = 0L;
+
     // Status compte
     @Column(nullable = false)
     @Builder.Default
@@ -151,8 +159,41 @@ public class Customer {
     public void updateOrderStats(BigDecimal orderAmount) {
         this.totalOrders++;
         this.totalSpent = this.totalSpent.add(orderAmount);
-        // Points de fidélité: 1 point par 10 MAD
-        int pointsEarned = orderAmount.divide(BigDecimal.TEN, RoundingMode.DOWN).intValue();
-        this.loyaltyPoints += pointsEarned;
+        this.loyaltyPoints += loyaltyPointsFor(orderAmount);
+    }
+
+    /**
+     * Points de fidélité: 1 point par 10 MAD
+     */
+    public static int loyaltyPointsFor(BigDecimal orderAmount) {
+        return orderAmount.divide(BigDecimal.TEN, RoundingMode.DOWN).intValue();
+    }
+
+    /**
+     * Vue de détail du profil ; les adresses doivent être chargées
+     */
+    public CustomerDTO toDTO() {
+        return CustomerDTO.builder()
+                .id(id)
+                .keycloakId(keycloakId)
+                .email(email)
+                .firstName(firstName)
+                .lastName(lastName)
+                .phone(phone)
+                .dateOfBirth(dateOfBirth)
+                .gender(gender != null ? gender.name() : null)
+                .profilePictureUrl(profilePictureUrl)
+                .newsletterSubscribed(newsletterSubscribed)
+                .preferredLanguage(preferredLanguage)
+                .addresses(addresses.stream().map(CustomerAddress::toDTO).collect(Collectors.toList()))
+                .totalOrders(totalOrders)
+                .totalSpent(totalSpent)
+                .loyaltyPoints(loyaltyPoints)
+                .active(active)
+                .verifiedEmail(verifiedEmail)
+                .verifiedPhone(verifiedPhone)
+                .createdAt(createdAt)
+                .lastLogin(lastLogin)
+                .build();
     }
 }
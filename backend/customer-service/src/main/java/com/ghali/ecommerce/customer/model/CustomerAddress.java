@@ -1,5 +1,6 @@
 package com.ghali.ecommerce.customer.model;
 
+import com.ghali.ecommerce.common.dto.CustomerAddressDTO;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -81,4 +82,20 @@ public class CustomerAddress {
         sb.append(", ").append(country);
         return sb.toString();
     }
+
+    public CustomerAddressDTO toDTO() {
+        return CustomerAddressDTO.builder()
+                .id(id)
+                .label(label)
+                .fullName(fullName)
+                .addressLine1(addressLine1)
+                .addressLine2(addressLine2)
+                .city(city)
+                .state(state)
+                .zipCode(zipCode)
+                .country(country)
+                .phone(phone)
+                .isDefault(isDefault)
+                .build();
+    }
 }
@@ -0,0 +1,53 @@
+package com.ghali.ecommerce.customer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entité CustomerOrderContribution - Part d'une commande livrée dans les statistiques du client
+ * Une livraison redélivrée n'est comptée qu'une fois, une annulation ne retire que ce qui
+ * a été ajouté ; la ligne d'une commande annulée est conservée (cancelled) pour qu'une
+ * livraison rejouée ensuite reste sans effet ; une livraison reçue avant la création du
+ * client reste en attente (pending) jusqu'à ce que sa ligne existe
+ */
+@Entity
+@Table(name = "customer_order_contributions", indexes = {
+    @Index(name = "idx_contribution_keycloak_id", columnList = "keycloak_id"),
+    @Index(name = "idx_contribution_pending", columnList = "pending, keycloak_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOrderContribution {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "keycloak_id", nullable = false, length = 100)
+    private String keycloakId;
+
+    @Column(name = "amount", precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "loyalty_points", nullable = false)
+    private Integer loyaltyPoints;
+
+    @Column(name = "cancelled", nullable = false)
+    @Builder.Default
+    private Boolean cancelled = false;
+
+    @Column(name = "pending", nullable = false)
+    @Builder.Default
+    private Boolean pending = false;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -1,11 +1,15 @@
 package com.ghali.ecommerce.customer.repository;
 
 import com.ghali.ecommerce.customer.model.Customer;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +18,15 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByKeycloakId(String keycloakId);
 
+    /**
+     * Client et ses adresses en une seule requête (vue de détail)
+     */
+    @EntityGraph(attributePaths = "addresses")
+    Optional<Customer> findWithAddressesByKeycloakId(String keycloakId);
+
+    @EntityGraph(attributePaths = "addresses")
+    Optional<Customer> findWithAddressesById(Long id);
+
     Optional<Customer> findByEmail(String email);
 
     Optional<Customer> findByPhone(String phone);
@@ -22,14 +35,56 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findByNewsletterSubscribedTrue();
 
-    @Query("SELECT c FROM Customer c WHERE c.totalOrders >= :minOrders ORDER BY c.totalSpent DESC")
-    List<Customer> findTopCustomers(@Param("minOrders") int minOrders);
+    /**
+     * Statistiques des clients affichés dans le classement (sans charger les entités)
+     */
+    @Query("SELECT c.id AS id, c.firstName AS firstName, c.lastName AS lastName, c.email AS email, " +
+           "c.totalSpent AS totalSpent, c.totalOrders AS totalOrders, c.loyaltyPoints AS loyaltyPoints " +
+           "FROM Customer c WHERE c.id IN :ids")
+    List<StatsView> findStatsViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lignes résumées des résultats de recherche (sans adresses)
+     */
+    @Query("SELECT c.id AS id, c.firstName AS firstName, c.lastName AS lastName, c.email AS email, " +
+           "c.phone AS phone, c.active AS active, c.totalOrders AS totalOrders, c.createdAt AS createdAt " +
+           "FROM Customer c WHERE c.id IN :ids")
+    List<SummaryView> findSummaryViewsByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT c FROM Customer c WHERE c.loyaltyPoints >= :minPoints")
     List<Customer> findByLoyaltyPointsGreaterThanEqual(@Param("minPoints") int minPoints);
 
-    @Query("SELECT c FROM Customer c WHERE LOWER(c.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-           "OR LOWER(c.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-           "OR LOWER(c.email) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Customer> searchCustomers(@Param("keyword") String keyword);
+    interface StatsView {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getEmail();
+
+        BigDecimal getTotalSpent();
+
+        Integer getTotalOrders();
+
+        Integer getLoyaltyPoints();
+    }
+
+    interface SummaryView {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getEmail();
+
+        String getPhone();
+
+        Boolean getActive();
+
+        Integer getTotalOrders();
+
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -0,0 +1,63 @@
+package com.ghali.ecommerce.customer.search;
+
+import com.ghali.ecommerce.common.search.SearchHits;
+import com.ghali.ecommerce.common.search.TableSearchIndex;
+import com.ghali.ecommerce.customer.model.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Index de recherche des clients (nom complet, email) pour la recherche ADMIN
+ * Chargement, relecture périodique et mise à jour après commit : TableSearchIndex
+ */
+@Component
+public class CustomerSearchIndex {
+
+    private static final String SELECT_ALL_SQL = "SELECT id, first_name, last_name, email, updated_at FROM customers";
+
+    private final TableSearchIndex index;
+
+    public CustomerSearchIndex(DataSource dataSource,
+                               @Value("${customers.search.max-results:1000}") int maxResults,
+                               @Value("${customers.search.refresh-overlap-seconds:60}") long refreshOverlapSeconds) {
+        this.index = new TableSearchIndex("customers", dataSource, SELECT_ALL_SQL,
+                rs -> new String[]{
+                        TableSearchIndex.fullName(rs.getString("first_name"), rs.getString("last_name")),
+                        rs.getString("email")},
+                maxResults, refreshOverlapSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        index.load();
+    }
+
+    /**
+     * Relit les clients modifiés depuis la dernière synchronisation
+     */
+    @Scheduled(fixedDelayString = "${customers.search.refresh-interval-ms:30000}",
+            initialDelayString = "${customers.search.refresh-interval-ms:30000}")
+    public void refresh() {
+        index.refresh();
+    }
+
+    /**
+     * Indexe un client après le commit de la transaction en cours
+     */
+    public void index(Customer customer) {
+        index.put(customer.getId(), TableSearchIndex.fullName(customer.getFirstName(), customer.getLastName()),
+                customer.getEmail());
+    }
+
+    /**
+     * IDs des clients correspondant au mot-clé, du plus pertinent au moins pertinent
+     */
+    public SearchHits search(String keyword, int page, int size) {
+        return index.search(keyword, page, size);
+    }
+}
@@ -1,19 +1,31 @@
 package com.ghali.ecommerce.customer.service;
 
+import com.ghali.ecommerce.common.dto.CustomerAddressDTO;
+import com.ghali.ecommerce.common.dto.CustomerDTO;
+import com.ghali.ecommerce.common.dto.LeaderboardEntryDTO;
+import com.ghali.ecommerce.common.search.SearchHits;
+import com.ghali.ecommerce.customer.leaderboard.CustomerLeaderboard;
 import com.ghali.ecommerce.customer.model.Customer;
 import com.ghali.ecommerce.customer.model.CustomerAddress;
 import com.ghali.ecommerce.customer.repository.CustomerAddressRepository;
 import com.ghali.ecommerce.customer.repository.CustomerRepository;
+import com.ghali.ecommerce.customer.search.CustomerSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service de gestion des clients acheteurs
@@ -25,10 +37,27 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final CustomerAddressRepository addressRepository;
+    private final CustomerLeaderboard customerLeaderboard;
+    private final CustomerSearchIndex customerSearchIndex;
 
+    /**
+     * Profil du client (avec adresses), chargé en une requête et mis en cache
+     */
     @Cacheable(value = "customers", key = "#keycloakId")
-    public Customer getCustomerByKeycloakId(String keycloakId) {
+    public CustomerDTO getProfile(String keycloakId) {
         log.info("👤 Fetching customer by Keycloak ID: {}", keycloakId);
+        return customerRepository.findWithAddressesByKeycloakId(keycloakId)
+                .map(Customer::toDTO)
+                .orElseThrow(() -> new RuntimeException("Customer not found with Keycloak ID: " + keycloakId));
+    }
+
+    public CustomerDTO getCustomerDetails(Long id) {
+        return customerRepository.findWithAddressesById(id)
+                .map(Customer::toDTO)
+                .orElseThrow(() -> new RuntimeException("Customer not found with ID: " + id));
+    }
+
+    public Customer getCustomerByKeycloakId(String keycloakId) {
         return customerRepository.findByKeycloakId(keycloakId)
                 .orElseThrow(() -> new RuntimeException("Customer not found with Keycloak ID: " + keycloakId));
     }
@@ -43,13 +72,41 @@ public class CustomerService {
                 .orElseThrow(() -> new RuntimeException("Customer not found with email: " + email));
     }
 
-    public List<Customer> searchCustomers(String keyword) {
+    /**
+     * Recherche par sous-chaîne dans le nom et l'email (index en mémoire), page par page
+     */
+    public Page<CustomerRepository.SummaryView> searchCustomers(String keyword, int page, int size) {
         log.info("🔍 Searching customers with keyword: {}", keyword);
-        return customerRepository.searchCustomers(keyword);
+        SearchHits hits = customerSearchIndex.search(keyword, page, size);
+        Map<Long, CustomerRepository.SummaryView> customers = hits.ids().isEmpty()
+                ? Map.of()
+                : customerRepository.findSummaryViewsByIdIn(hits.ids()).stream()
+                        .collect(Collectors.toMap(CustomerRepository.SummaryView::getId, Function.identity()));
+        List<CustomerRepository.SummaryView> content = hits.ids().stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, PageRequest.of(page, size), hits.totalMatches());
+    }
+
+    public List<LeaderboardEntryDTO> getTopCustomers(int minOrders, int limit) {
+        return customerLeaderboard.page(0, limit, minOrders);
+    }
+
+    public List<LeaderboardEntryDTO> getLeaderboard(int page, int size, int minOrders) {
+        return customerLeaderboard.page(page, size, minOrders);
+    }
+
+    public LeaderboardEntryDTO getLeaderboardEntry(Long customerId) {
+        LeaderboardEntryDTO entry = customerLeaderboard.rankOf(customerId);
+        if (entry == null) {
+            throw new RuntimeException("Customer not ranked with ID: " + customerId);
+        }
+        return entry;
     }
 
-    public List<Customer> getTopCustomers(int minOrders) {
-        return customerRepository.findTopCustomers(minOrders);
+    public long rebuildLeaderboard() {
+        return customerLeaderboard.rebuild();
     }
 
     @Transactional
@@ -63,16 +120,18 @@ public class CustomerService {
         }
 
         Customer savedCustomer = customerRepository.save(customer);
+        customerSearchIndex.index(savedCustomer);
         log.info("✅ Customer created: {}", savedCustomer.getId());
         return savedCustomer;
     }
 
     @Transactional
     @CacheEvict(value = "customers", key = "#keycloakId")
-    public Customer updateCustomer(String keycloakId, Customer customerData) {
+    public CustomerDTO updateCustomer(String keycloakId, Customer customerData) {
         log.info("🔄 Updating customer: {}", keycloakId);
         
-        Customer existingCustomer = getCustomerByKeycloakId(keycloakId);
+        Customer existingCustomer = customerRepository.findWithAddressesByKeycloakId(keycloakId)
+                .orElseThrow(() -> new RuntimeException("Customer not found with Keycloak ID: " + keycloakId));
         
         if (customerData.getFirstName() != null) {
             existingCustomer.setFirstName(customerData.getFirstName());
@@ -97,8 +156,9 @@ public class CustomerService {
         }
 
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        customerSearchIndex.index(updatedCustomer);
         log.info("✅ Customer updated: {}", updatedCustomer.getId());
-        return updatedCustomer;
+        return updatedCustomer.toDTO();
     }
 
     @Transactional
@@ -108,19 +168,12 @@ public class CustomerService {
         customerRepository.save(customer);
     }
 
-    @Transactional
-    @CacheEvict(value = "customers", key = "#keycloakId")
-    public void updateOrderStats(String keycloakId, BigDecimal orderAmount) {
-        log.info("📊 Updating order stats for customer: {}", keycloakId);
-        Customer customer = getCustomerByKeycloakId(keycloakId);
-        customer.updateOrderStats(orderAmount);
-        customerRepository.save(customer);
-    }
-
     // === Gestion des Adresses ===
 
-    public List<CustomerAddress> getCustomerAddresses(Long customerId) {
-        return addressRepository.findByCustomerId(customerId);
+    public List<CustomerAddressDTO> getCustomerAddresses(Long customerId) {
+        return addressRepository.findByCustomerId(customerId).stream()
+                .map(CustomerAddress::toDTO)
+                .collect(Collectors.toList());
     }
 
     public CustomerAddress getDefaultAddress(Long customerId) {
@@ -128,13 +181,15 @@ public class CustomerService {
                 .orElse(null);
     }
 
+    // Les adresses font partie du profil en cache : chaque modification l'invalide
     @Transactional
-    public CustomerAddress addAddress(Long customerId, CustomerAddress address) {
-        log.info("📍 Adding address for customer: {}", customerId);
-        Customer customer = getCustomerById(customerId);
+    @CacheEvict(value = "customers", key = "#keycloakId")
+    public CustomerAddress addAddress(String keycloakId, CustomerAddress address) {
+        Customer customer = getCustomerByKeycloakId(keycloakId);
+        log.info("📍 Adding address for customer: {}", customer.getId());
         
         // Si c'est la première adresse ou marquée par défaut
-        List<CustomerAddress> existingAddresses = addressRepository.findByCustomerId(customerId);
+        List<CustomerAddress> existingAddresses = addressRepository.findByCustomerId(customer.getId());
         if (existingAddresses.isEmpty() || address.getIsDefault()) {
             // Retirer le défaut des autres adresses
             existingAddresses.forEach(addr -> {
@@ -151,7 +206,9 @@ public class CustomerService {
     }
 
     @Transactional
-    public void setDefaultAddress(Long customerId, Long addressId) {
+    @CacheEvict(value = "customers", key = "#keycloakId")
+    public void setDefaultAddress(String keycloakId, Long addressId) {
+        Long customerId = getCustomerByKeycloakId(keycloakId).getId();
         log.info("📍 Setting default address {} for customer {}", addressId, customerId);
         
         // Retirer le défaut de toutes les adresses
@@ -163,7 +220,8 @@ public class CustomerService {
     }
 
     @Transactional
-    public void deleteAddress(Long addressId) {
+    @CacheEvict(value = "customers", key = "#keycloakId")
+    public void deleteAddress(String keycloakId, Long addressId) {
         log.info("🗑️ Deleting address: {}", addressId);
         addressRepository.deleteById(addressId);
     }
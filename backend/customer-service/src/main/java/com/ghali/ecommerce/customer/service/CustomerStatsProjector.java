@@ -0,0 +1,286 @@
+package com.ghali.ecommerce.customer.service;
+
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.customer.leaderboard.CustomerLeaderboard;
+import com.ghali.ecommerce.customer.model.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Projection des événements de commande sur les statistiques clients
+ * (total_orders, total_spent, loyalty_points)
+ *
+ * - ORDER_DELIVERED ajoute la commande, ORDER_CANCELLED retire une commande comptée
+ * - l'état de chaque commande est gardé dans customer_order_contributions : les
+ *   redélivrances Kafka sont sans effet
+ * - les variations d'un lot sont cumulées par client puis appliquées par des UPDATE
+ *   additifs (total = total + ?) en une seule transaction ; les lignes clients sont
+ *   verrouillées dans l'ordre des keycloakId pour éviter les interblocages
+ * - une livraison dont le client n'existe pas encore est enregistrée en attente
+ *   (pending) au lieu d'être perdue : applyPending() la compte dès que la ligne client
+ *   existe ; un UPDATE qui ne touche aucune ligne annule le lot (rejoué par Kafka)
+ *
+ * Les transactions tournent en READ COMMITTED : la lecture FOR UPDATE des contributions
+ * ne verrouille que les lignes existantes (pas de verrou d'intervalle sur les order_id
+ * absents, qui interbloquait les consumers insérant des commandes voisines). Deux lots
+ * insérant la même nouvelle commande se heurtent sur la clé primaire : le second est
+ * annulé puis rejoué par le gestionnaire d'erreurs du listener, et voit alors la ligne.
+ */
+@Component
+@Slf4j
+public class CustomerStatsProjector {
+
+    private static final String SELECT_CONTRIBUTIONS_SQL = "SELECT order_id, keycloak_id, amount, loyalty_points, "
+            + "cancelled, pending FROM customer_order_contributions WHERE order_id IN (:orderIds) FOR UPDATE";
+    private static final String LOCK_CUSTOMERS_SQL = "SELECT keycloak_id FROM customers "
+            + "WHERE keycloak_id IN (:keycloakIds) ORDER BY keycloak_id FOR UPDATE";
+    private static final String INSERT_CONTRIBUTION_SQL = "INSERT INTO customer_order_contributions "
+            + "(order_id, keycloak_id, amount, loyalty_points, cancelled, pending, applied_at) "
+            + "VALUES (:orderId, :keycloakId, :amount, :loyaltyPoints, :cancelled, :pending, :appliedAt)";
+    private static final String CANCEL_CONTRIBUTION_SQL =
+            "UPDATE customer_order_contributions SET cancelled = TRUE, pending = FALSE WHERE order_id = :orderId";
+    private static final String SELECT_PENDING_SQL = "SELECT c.order_id, c.keycloak_id, c.amount, c.loyalty_points "
+            + "FROM customer_order_contributions c JOIN customers cu ON cu.keycloak_id = c.keycloak_id "
+            + "WHERE c.pending = TRUE AND c.cancelled = FALSE ORDER BY c.keycloak_id LIMIT :limit FOR UPDATE";
+    private static final String RELEASE_PENDING_SQL = "UPDATE customer_order_contributions SET pending = FALSE, "
+            + "applied_at = :appliedAt WHERE order_id = :orderId";
+    private static final String UPDATE_STATS_SQL = "UPDATE customers SET total_orders = total_orders + :orders, "
+            + "total_spent = total_spent + :spent, loyalty_points = loyalty_points + :points, "
+            + "stats_version = COALESCE(stats_version, 0) + 1, updated_at = :now "
+            + "WHERE keycloak_id = :keycloakId";
+    private static final String SELECT_STANDINGS_SQL =
+            "SELECT id, total_spent, total_orders, stats_version FROM customers WHERE keycloak_id IN (:keycloakIds)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CustomerStatsProjector(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applique un lot d'événements de commande
+     *
+     * @return les nouvelles statistiques des clients modifiés, et leurs keycloakId
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Result apply(List<KafkaEvent<OrderDTO>> events) {
+        Map<Long, OrderDTO> orders = new LinkedHashMap<>();
+        for (KafkaEvent<OrderDTO> event : events) {
+            orders.putIfAbsent(event.getPayload().getId(), event.getPayload());
+        }
+        Map<Long, Contribution> known = loadContributions(orders.keySet());
+        Set<String> existing = lockCustomers(orders.values().stream()
+                .map(OrderDTO::getCustomerId)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        Map<Long, Contribution> created = new LinkedHashMap<>();
+        List<Long> cancelled = new ArrayList<>();
+        // Clé triée : ordre de verrouillage des lignes clients
+        Map<String, StatsDelta> deltas = new TreeMap<>();
+
+        for (KafkaEvent<OrderDTO> event : events) {
+            OrderDTO order = event.getPayload();
+            Contribution contribution = known.get(order.getId());
+            boolean delivered = "ORDER_DELIVERED".equals(event.getEventType());
+
+            if (delivered && contribution == null) {
+                BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+                // Client pas encore créé : la livraison attend sa ligne (applyPending)
+                boolean pending = !existing.contains(order.getCustomerId());
+                contribution = new Contribution(order.getCustomerId(), amount, Customer.loyaltyPointsFor(amount),
+                        false, pending);
+                known.put(order.getId(), contribution);
+                created.put(order.getId(), contribution);
+                if (!pending) {
+                    deltas.computeIfAbsent(contribution.keycloakId, id -> new StatsDelta()).add(contribution, 1);
+                }
+            } else if (!delivered && contribution == null) {
+                // Annulée avant livraison : marquée pour ignorer une livraison rejouée
+                contribution = new Contribution(order.getCustomerId(), BigDecimal.ZERO, 0, true, false);
+                known.put(order.getId(), contribution);
+                created.put(order.getId(), contribution);
+            } else if (!delivered && !contribution.cancelled) {
+                boolean counted = !contribution.pending;
+                contribution.cancelled = true;
+                contribution.pending = false;
+                if (!created.containsKey(order.getId())) {
+                    cancelled.add(order.getId());
+                }
+                if (counted) {
+                    deltas.computeIfAbsent(contribution.keycloakId, id -> new StatsDelta()).add(contribution, -1);
+                }
+            }
+        }
+
+        write(created, cancelled, deltas);
+        if (deltas.isEmpty()) {
+            return new Result(List.of(), List.of());
+        }
+        List<String> keycloakIds = new ArrayList<>(deltas.keySet());
+        log.debug("📊 Order stats updated for {} customers from {} events", keycloakIds.size(), events.size());
+        return new Result(keycloakIds, loadStandings(keycloakIds));
+    }
+
+    /**
+     * Compte les livraisons en attente dont la ligne client existe désormais
+     *
+     * @param limit nombre maximal de commandes traitées dans la transaction
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Result applyPending(int limit) {
+        List<Long> released = new ArrayList<>();
+        Map<String, StatsDelta> deltas = new TreeMap<>();
+        jdbcTemplate.query(SELECT_PENDING_SQL, new MapSqlParameterSource("limit", limit), rs -> {
+            Contribution contribution = new Contribution(rs.getString("keycloak_id"), rs.getBigDecimal("amount"),
+                    rs.getInt("loyalty_points"), false, false);
+            released.add(rs.getLong("order_id"));
+            deltas.computeIfAbsent(contribution.keycloakId, id -> new StatsDelta()).add(contribution, 1);
+        });
+        if (released.isEmpty()) {
+            return new Result(List.of(), List.of());
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(RELEASE_PENDING_SQL, released.stream()
+                .map(orderId -> new MapSqlParameterSource("orderId", orderId).addValue("appliedAt", now))
+                .toArray(MapSqlParameterSource[]::new));
+        updateStats(deltas, now);
+        List<String> keycloakIds = new ArrayList<>(deltas.keySet());
+        log.info("📊 {} pending deliveries counted for {} customers", released.size(), keycloakIds.size());
+        return new Result(keycloakIds, loadStandings(keycloakIds));
+    }
+
+    private Map<Long, Contribution> loadContributions(Iterable<Long> orderIds) {
+        Map<Long, Contribution> contributions = new HashMap<>();
+        jdbcTemplate.query(SELECT_CONTRIBUTIONS_SQL, new MapSqlParameterSource("orderIds", orderIds), rs -> {
+            contributions.put(rs.getLong("order_id"), new Contribution(
+                    rs.getString("keycloak_id"),
+                    rs.getBigDecimal("amount"),
+                    rs.getInt("loyalty_points"),
+                    rs.getBoolean("cancelled"),
+                    rs.getBoolean("pending")));
+        });
+        return contributions;
+    }
+
+    /**
+     * Verrouille les lignes des clients (ordre des keycloakId) et renvoie ceux qui existent
+     */
+    private Set<String> lockCustomers(Set<String> keycloakIds) {
+        if (keycloakIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(LOCK_CUSTOMERS_SQL,
+                new MapSqlParameterSource("keycloakIds", keycloakIds), String.class));
+    }
+
+    private void write(Map<Long, Contribution> created, List<Long> cancelled, Map<String, StatsDelta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (!created.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CONTRIBUTION_SQL, created.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource("orderId", entry.getKey())
+                            .addValue("keycloakId", entry.getValue().keycloakId)
+                            .addValue("amount", entry.getValue().amount)
+                            .addValue("loyaltyPoints", entry.getValue().loyaltyPoints)
+                            .addValue("cancelled", entry.getValue().cancelled)
+                            .addValue("pending", entry.getValue().pending)
+                            .addValue("appliedAt", now))
+                    .toArray(MapSqlParameterSource[]::new));
+        }
+        if (!cancelled.isEmpty()) {
+            jdbcTemplate.batchUpdate(CANCEL_CONTRIBUTION_SQL, cancelled.stream()
+                    .map(orderId -> new MapSqlParameterSource("orderId", orderId))
+                    .toArray(MapSqlParameterSource[]::new));
+        }
+        // Une livraison puis son annulation dans le même lot s'annulent
+        deltas.values().removeIf(StatsDelta::isZero);
+        updateStats(deltas, now);
+    }
+
+    /**
+     * UPDATE additifs ; une ligne client absente annule la transaction plutôt que de
+     * garder une contribution qui n'a été comptée nulle part
+     */
+    private void updateStats(Map<String, StatsDelta> deltas, Timestamp now) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<String> keycloakIds = new ArrayList<>(deltas.keySet());
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATS_SQL, keycloakIds.stream()
+                .map(keycloakId -> new MapSqlParameterSource("keycloakId", keycloakId)
+                        .addValue("orders", deltas.get(keycloakId).orders)
+                        .addValue("spent", deltas.get(keycloakId).spent)
+                        .addValue("points", deltas.get(keycloakId).points)
+                        .addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new));
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new IllegalStateException("Customer not found for stats update: " + keycloakIds.get(i));
+            }
+        }
+    }
+
+    private List<CustomerLeaderboard.Standing> loadStandings(List<String> keycloakIds) {
+        return jdbcTemplate.query(SELECT_STANDINGS_SQL, new MapSqlParameterSource("keycloakIds", keycloakIds),
+                (rs, rowNum) -> new CustomerLeaderboard.Standing(rs.getLong("id"), rs.getBigDecimal("total_spent"),
+                        rs.getInt("total_orders"), rs.getLong("stats_version")));
+    }
+
+    /**
+     * @param keycloakIds clients dont les statistiques ont changé (entrées de cache à invalider)
+     * @param standings   leurs nouvelles statistiques (classement des clients)
+     */
+    public record Result(List<String> keycloakIds, List<CustomerLeaderboard.Standing> standings) {
+    }
+
+    private static final class Contribution {
+        private final String keycloakId;
+        private final BigDecimal amount;
+        private final int loyaltyPoints;
+        private boolean cancelled;
+        private boolean pending;
+
+        private Contribution(String keycloakId, BigDecimal amount, int loyaltyPoints, boolean cancelled,
+                             boolean pending) {
+            this.keycloakId = keycloakId;
+            this.amount = amount;
+            this.loyaltyPoints = loyaltyPoints;
+            this.cancelled = cancelled;
+            this.pending = pending;
+        }
+    }
+
+    private static final class StatsDelta {
+        private int orders;
+        private BigDecimal spent = BigDecimal.ZERO;
+        private int points;
+
+        private void add(Contribution contribution, int sign) {
+            orders += sign;
+            spent = sign > 0 ? spent.add(contribution.amount) : spent.subtract(contribution.amount);
+            points += sign * contribution.loyaltyPoints;
+        }
+
+        private boolean isZero() {
+            return orders == 0 && spent.signum() == 0 && points == 0;
+        }
+    }
+}
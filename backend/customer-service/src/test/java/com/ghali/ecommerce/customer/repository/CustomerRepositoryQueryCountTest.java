@@ -0,0 +1,102 @@
+package com.ghali.ecommerce.customer.repository;
+
+import com.ghali.ecommerce.common.dto.CustomerDTO;
+import com.ghali.ecommerce.customer.model.Customer;
+import com.ghali.ecommerce.customer.model.CustomerAddress;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes des lectures exposées par CustomerController : une régression N+1
+ * (adresses chargées client par client) fait échouer le build
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class CustomerRepositoryQueryCountTest {
+
+    private static final int CUSTOMERS = 5;
+    private static final int ADDRESSES_PER_CUSTOMER = 2;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = Customer.builder()
+                    .keycloakId("kc-" + i)
+                    .email("client" + i + "@example.com")
+                    .firstName("Client")
+                    .lastName(String.valueOf(i))
+                    .build();
+            for (int j = 0; j < ADDRESSES_PER_CUSTOMER; j++) {
+                customer.addAddress(CustomerAddress.builder()
+                        .fullName("Client " + i)
+                        .addressLine1(j + " rue des Tests")
+                        .city("Rabat")
+                        .build());
+            }
+            entityManager.persist(customer);
+            ids.add(customer.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void profileLoadsAddressesInTheSameQuery() {
+        CustomerDTO profile = customerRepository.findWithAddressesByKeycloakId("kc-0").orElseThrow().toDTO();
+
+        assertThat(profile.getAddresses()).hasSize(ADDRESSES_PER_CUSTOMER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void customerDetailsLoadAddressesInTheSameQuery() {
+        CustomerDTO details = customerRepository.findWithAddressesById(ids.get(0)).orElseThrow().toDTO();
+
+        assertThat(details.getAddresses()).hasSize(ADDRESSES_PER_CUSTOMER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void searchResultPageIsOneQueryWithoutLoadingEntities() {
+        List<CustomerRepository.SummaryView> rows = customerRepository.findSummaryViewsByIdIn(ids);
+
+        assertThat(rows).hasSize(CUSTOMERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void leaderboardPageIsOneQueryWithoutLoadingEntities() {
+        List<CustomerRepository.StatsView> rows = customerRepository.findStatsViewsByIdIn(ids);
+
+        assertThat(rows).hasSize(CUSTOMERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -1,5 +1,9 @@
 package com.ghali.ecommerce.notification.config;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.kafka.KafkaEventDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +13,8 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -28,25 +34,44 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${notification.kafka.listener-concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${notification.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, KafkaEvent<OrderDTO>> consumerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.ghali.ecommerce.common.dto.KafkaEvent");
-        
-        return new DefaultKafkaConsumerFactory<>(config);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Offsets validés par le container après envoi des emails, jamais automatiquement
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        // Payload typé en OrderDTO ; un message illisible arrive à null au lieu de bloquer la partition
+        JsonDeserializer<KafkaEvent<OrderDTO>> valueDeserializer =
+                new JsonDeserializer<>(new TypeReference<KafkaEvent<OrderDTO>>() {
+                }, false);
+        valueDeserializer.addTrustedPackages("*");
+
+        // Événements binaires (en-tête ecommerce-encoding) ou JSON selon le producer
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new KafkaEventDeserializer<>(valueDeserializer)));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = 
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaEvent<OrderDTO>> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        // Acquittements manuels depuis les threads d'envoi, dans le désordre : le container
+        // ne valide un offset qu'une fois tous les précédents acquittés, et met la partition
+        // en pause tant que le poll précédent n'est pas entièrement traité (une tentative
+        // d'envoi par email au plus : les retries passent par la table email_retries)
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
         return factory;
     }
 }
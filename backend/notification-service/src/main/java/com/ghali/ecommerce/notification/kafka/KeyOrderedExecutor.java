@@ -0,0 +1,85 @@
+package com.ghali.ecommerce.notification.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exécuteur parallèle ordonné par clé
+ *
+ * Les tâches d'une même clé (numéro de commande) s'exécutent l'une après l'autre,
+ * dans l'ordre de soumission ; les clés différentes avancent en parallèle sur le
+ * pool de workers. Le nombre de tâches en cours est borné : submit() bloque le
+ * thread du listener quand la limite est atteinte (contre-pression sur le poll).
+ */
+@Component
+@Slf4j
+public class KeyOrderedExecutor {
+
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    @Value("${notification.delivery.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    public KeyOrderedExecutor(@Value("${notification.delivery.workers:32}") int workerCount,
+                              @Value("${notification.delivery.max-in-flight:1000}") int maxInFlight,
+                              MeterRegistry meterRegistry) {
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("notification-delivery-"));
+        this.permits = new Semaphore(maxInFlight);
+        Gauge.builder("notification.delivery.in-flight", permits, p -> maxInFlight - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Soumet une tâche derrière celles déjà en attente pour la même clé
+     *
+     * @return complété quand la tâche est terminée (en succès ou en échec)
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<Void> future;
+        try {
+            future = key == null
+                    ? CompletableFuture.runAsync(task, workers)
+                    // Un échec de la tâche précédente ne bloque pas les suivantes
+                    : tails.compute(key, (k, tail) -> tail == null
+                            ? CompletableFuture.runAsync(task, workers)
+                            : tail.handle((result, error) -> null).thenRunAsync(task, workers));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        CompletableFuture<Void> submitted = future;
+        return submitted.whenComplete((result, error) -> {
+            permits.release();
+            // Dernière tâche de la clé : l'entrée est retirée pour garder la map bornée
+            if (key != null) {
+                tails.remove(key, submitted);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("⚠️ Notification deliveries still running after {} ms, forcing shutdown", shutdownTimeoutMs);
+            workers.shutdownNow();
+        }
+    }
+}
@@ -3,14 +3,29 @@ package com.ghali.ecommerce.notification.kafka;
 import com.ghali.ecommerce.common.dto.KafkaEvent;
 import com.ghali.ecommerce.common.dto.OrderDTO;
 import com.ghali.ecommerce.notification.service.EmailService;
+import com.ghali.ecommerce.notification.service.NotificationDigestBuffer;
+import com.ghali.ecommerce.notification.template.NotificationTemplates;
+import com.ghali.ecommerce.notification.template.RenderedNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Consumer Kafka pour les événements de commande
  * Pattern inspiré du projet Kafka original
+ *
+ * Le listener ne fait que transmettre les événements à l'exécuteur ordonné par
+ * numéro de commande : un serveur SMTP lent n'immobilise plus la partition.
+ * Chaque message est acquitté une fois son email envoyé, sauvegardé pour une
+ * nouvelle tentative (email_retries) ou mis en dead-letter : le container ne valide
+ * jamais l'offset d'un email qui n'est pas en lieu sûr, et une commande n'attend
+ * que la première tentative, jamais le délai des retries.
+ * Un email retenté peut donc partir après l'email suivant de la même commande.
+ * En mode digest, l'événement est acquitté dès qu'il est mis en attente.
  */
 @Component
 @Slf4j
@@ -18,96 +33,101 @@ import org.springframework.stereotype.Component;
 public class OrderEventConsumer {
 
     private final EmailService emailService;
+    private final KeyOrderedExecutor deliveryExecutor;
+    private final NotificationTemplates notificationTemplates;
+    private final NotificationDigestBuffer digestBuffer;
 
     @KafkaListener(
         topics = "${kafka.topics.order-events}",
         groupId = "${spring.kafka.consumer.group-id}",
         containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeOrderEvent(KafkaEvent<OrderDTO> event) {
+    public void consumeOrderEvent(KafkaEvent<OrderDTO> event, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        // Message illisible (ErrorHandlingDeserializer) : acquitté et ignoré
+        if (event == null || event.getPayload() == null) {
+            log.warn("⚠️ Skipping unreadable order event");
+            acknowledgment.acknowledge();
+            return;
+        }
         log.info("📬 Received order event: {} - Order: {}", 
             event.getEventType(), event.getPayload().getOrderNumber());
-        
+
+        deliveryExecutor.submit(event.getPayload().getOrderNumber(), () -> processOrderEvent(event))
+                .whenComplete((result, error) -> acknowledgment.acknowledge());
+    }
+
+    private void processOrderEvent(KafkaEvent<OrderDTO> event) {
         try {
+            if (digestBuffer.isEnabled()) {
+                // Fusionné avec les autres événements de la commande, envoyé en fin de fenêtre
+                digestBuffer.hold(event);
+                return;
+            }
+
             OrderDTO order = event.getPayload();
+            CompletableFuture<Void> delivery = null;
             
             switch (event.getEventType()) {
                 case "ORDER_CREATED":
-                    handleOrderCreated(order);
+                    delivery = handleOrderCreated(order);
                     break;
                 case "ORDER_CONFIRMED":
-                    handleOrderConfirmed(order);
+                    delivery = handleOrderConfirmed(order);
                     break;
                 case "ORDER_SHIPPED":
-                    handleOrderShipped(order);
+                    delivery = handleOrderShipped(order);
                     break;
                 case "ORDER_DELIVERED":
-                    handleOrderDelivered(order);
+                    delivery = handleOrderDelivered(order);
                     break;
                 case "ORDER_CANCELLED":
-                    handleOrderCancelled(order);
+                    delivery = handleOrderCancelled(order);
                     break;
                 default:
                     log.warn("Unknown event type: {}", event.getEventType());
             }
+
+            // Attendre la première tentative : envoyé, confié à email_retries ou en dead-letter
+            if (delivery != null) {
+                delivery.join();
+            }
         } catch (Exception e) {
             log.error("Error processing order event: {}", e.getMessage(), e);
         }
     }
 
-    private void handleOrderCreated(OrderDTO order) {
+    private CompletableFuture<Void> handleOrderCreated(OrderDTO order) {
         log.info("🎉 Processing ORDER_CREATED for: {}", order.getOrderNumber());
-        String subject = "Confirmation de commande - " + order.getOrderNumber();
-        String body = buildOrderCreatedEmail(order);
-        emailService.sendEmail(order.getCustomerEmail(), subject, body);
+        return sendTemplatedEmail("ORDER_CREATED", order);
     }
 
-    private void handleOrderConfirmed(OrderDTO order) {
+    private CompletableFuture<Void> handleOrderConfirmed(OrderDTO order) {
         log.info("✅ Processing ORDER_CONFIRMED for: {}", order.getOrderNumber());
-        String subject = "Commande confirmée - " + order.getOrderNumber();
-        String body = "Votre commande a été confirmée et est en cours de traitement.";
-        emailService.sendEmail(order.getCustomerEmail(), subject, body);
+        return sendTemplatedEmail("ORDER_CONFIRMED", order);
     }
 
-    private void handleOrderShipped(OrderDTO order) {
+    private CompletableFuture<Void> handleOrderShipped(OrderDTO order) {
         log.info("📦 Processing ORDER_SHIPPED for: {}", order.getOrderNumber());
-        String subject = "Commande expédiée - " + order.getOrderNumber();
-        String body = "Votre commande a été expédiée et sera bientôt livrée.";
-        emailService.sendEmail(order.getCustomerEmail(), subject, body);
+        return sendTemplatedEmail("ORDER_SHIPPED", order);
     }
 
-    private void handleOrderDelivered(OrderDTO order) {
+    private CompletableFuture<Void> handleOrderDelivered(OrderDTO order) {
         log.info("✨ Processing ORDER_DELIVERED for: {}", order.getOrderNumber());
-        String subject = "Commande livrée - " + order.getOrderNumber();
-        String body = "Votre commande a été livrée. Merci pour votre achat !";
-        emailService.sendEmail(order.getCustomerEmail(), subject, body);
+        return sendTemplatedEmail("ORDER_DELIVERED", order);
     }
 
-    private void handleOrderCancelled(OrderDTO order) {
+    private CompletableFuture<Void> handleOrderCancelled(OrderDTO order) {
         log.info("❌ Processing ORDER_CANCELLED for: {}", order.getOrderNumber());
-        String subject = "Commande annulée - " + order.getOrderNumber();
-        String body = "Votre commande a été annulée.";
-        emailService.sendEmail(order.getCustomerEmail(), subject, body);
+        return sendTemplatedEmail("ORDER_CANCELLED", order);
     }
 
-    private String buildOrderCreatedEmail(OrderDTO order) {
-        return String.format("""
-            Bonjour,
-            
-            Nous avons bien reçu votre commande #%s.
-            
-            Montant total: %.2f MAD
-            Nombre d'articles: %d
-            
-            Nous vous tiendrons informé de l'évolution de votre commande.
-            
-            Merci pour votre confiance !
-            
-            L'équipe E-Commerce
-            """, 
-            order.getOrderNumber(), 
-            order.getTotalAmount(), 
-            order.getItems().size()
-        );
+    private CompletableFuture<Void> sendTemplatedEmail(String eventType, OrderDTO order) {
+        RenderedNotification notification = notificationTemplates.render(eventType, order.getCustomerLanguage(), order);
+        if (notification == null) {
+            log.warn("⚠️ No notification template for {}", eventType);
+            return null;
+        }
+        return emailService.sendEmail(order.getCustomerEmail(), notification.subject(), notification.body());
     }
 }
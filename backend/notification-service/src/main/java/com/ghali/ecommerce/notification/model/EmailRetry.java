@@ -0,0 +1,50 @@
+package com.ghali.ecommerce.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email en attente d'une nouvelle tentative d'envoi
+ * Persisté dès le premier échec temporaire : l'événement Kafka peut être acquitté
+ */
+@Entity
+@Table(name = "email_retries", indexes = {
+    @Index(name = "idx_next_attempt_at", columnList = "next_attempt_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailRetry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String recipient;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "from_address", length = 200)
+    private String fromAddress;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Prochaine tentative ; repoussée pendant qu'une instance traite l'email
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+}
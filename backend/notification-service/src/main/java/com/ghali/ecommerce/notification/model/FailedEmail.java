@@ -0,0 +1,53 @@
+package com.ghali.ecommerce.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email abandonné après épuisement des tentatives (dead-letter)
+ * Conservé pour analyse ou renvoi manuel
+ */
+@Entity
+@Table(name = "email_dead_letters", indexes = {
+    @Index(name = "idx_failed_at", columnList = "failed_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailedEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String recipient;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (failedAt == null) {
+            failedAt = LocalDateTime.now();
+        }
+    }
+}
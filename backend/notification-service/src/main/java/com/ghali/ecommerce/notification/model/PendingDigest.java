@@ -0,0 +1,33 @@
+package com.ghali.ecommerce.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Digest de notifications en attente, sauvegardé à l'arrêt du service
+ * et rechargé au démarrage suivant
+ */
+@Entity
+@Table(name = "pending_notification_digests")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingDigest {
+
+    @Id
+    @Column(name = "order_number", length = 50)
+    private String orderNumber;
+
+    // Événements reçus (JSON, dans l'ordre d'arrivée)
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String events;
+
+    @Column(name = "first_event_at", nullable = false)
+    private LocalDateTime firstEventAt;
+}
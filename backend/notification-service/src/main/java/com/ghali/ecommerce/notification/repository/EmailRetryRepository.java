@@ -0,0 +1,21 @@
+package com.ghali.ecommerce.notification.repository;
+
+import com.ghali.ecommerce.notification.model.EmailRetry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailRetryRepository extends JpaRepository<EmailRetry, Long> {
+
+    /**
+     * Emails à retenter, verrouillés ; les lignes déjà prises par une autre instance sont sautées
+     */
+    @Query(value = "SELECT * FROM email_retries WHERE next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailRetry> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,9 @@
+package com.ghali.ecommerce.notification.repository;
+
+import com.ghali.ecommerce.notification.model.FailedEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FailedEmailRepository extends JpaRepository<FailedEmail, Long> {
+}
@@ -0,0 +1,27 @@
+package com.ghali.ecommerce.notification.repository;
+
+import com.ghali.ecommerce.notification.model.PendingDigest;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PendingDigestRepository extends JpaRepository<PendingDigest, String> {
+
+    /**
+     * Digests sauvegardés, verrouillés ; ceux déjà réclamés par une autre instance sont sautés
+     */
+    @Query(value = "SELECT * FROM pending_notification_digests ORDER BY first_event_at " +
+                   "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PendingDigest> claimAll();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM PendingDigest d WHERE d.orderNumber = :orderNumber")
+    Optional<PendingDigest> findForUpdate(@Param("orderNumber") String orderNumber);
+}
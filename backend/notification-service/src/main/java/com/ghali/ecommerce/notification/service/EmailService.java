@@ -3,34 +3,33 @@ package com.ghali.ecommerce.notification.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service d'envoi d'emails
+ * L'envoi effectif (connexions, regroupement, retries) est confié au MailDeliveryEngine
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final MailDeliveryEngine deliveryEngine;
+
+    /**
+     * @return complété à l'envoi, ou en erreur si l'email a fini en dead-letter
+     */
+    public CompletableFuture<Void> sendEmail(String to, String subject, String body) {
+        log.info("📧 Sending email to: {}", to);
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(body);
+        message.setFrom("noreply@ecommerce-ghali.com");
 
-    public void sendEmail(String to, String subject, String body) {
-        try {
-            log.info("📧 Sending email to: {}", to);
-            
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            message.setFrom("noreply@ecommerce-ghali.com");
-            
-            mailSender.send(message);
-            
-            log.info("✅ Email sent successfully to: {}", to);
-        } catch (Exception e) {
-            log.error("❌ Failed to send email to {}: {}", to, e.getMessage());
-        }
+        return deliveryEngine.submit(message);
     }
 }
@@ -0,0 +1,433 @@
+package com.ghali.ecommerce.notification.service;
+
+import com.ghali.ecommerce.notification.model.EmailRetry;
+import com.ghali.ecommerce.notification.model.FailedEmail;
+import com.ghali.ecommerce.notification.repository.EmailRetryRepository;
+import com.ghali.ecommerce.notification.repository.FailedEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moteur d'envoi des emails
+ *
+ * - les messages sont mis en file et envoyés par des workers, un par connexion du pool
+ * - chaque worker regroupe jusqu'à batch-size messages et les envoie sur la même connexion
+ * - un échec temporaire est confié à la table email_retries, retentée avec un délai
+ *   exponentiel (retry-initial-delay-ms, doublé à chaque tentative, plafonné à
+ *   retry-max-delay-ms) : l'appelant n'attend que la première tentative
+ * - après max-attempts, ou pour une adresse refusée définitivement (5xx), le message
+ *   part en dead-letter (table email_dead_letters) ; un refus 4xx est retenté
+ *
+ * Les emails à retenter sont réservés par SELECT ... FOR UPDATE SKIP LOCKED puis
+ * repoussés de retry-lease-ms : plusieurs instances se partagent la table, et un
+ * email réservé par une instance arrêtée en cours d'envoi redevient disponible.
+ */
+@Component
+@Slf4j
+public class MailDeliveryEngine {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final JavaMailSenderImpl mailSender;
+    private final SmtpTransportPool transportPool;
+    private final FailedEmailRepository failedEmailRepository;
+    private final EmailRetryRepository emailRetryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingEmail> queue;
+    // Emails pris par un worker et pas encore terminés
+    private final Set<PendingEmail> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final int senderCount;
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadLetterCounter;
+    private final Timer batchTimer;
+
+    @Value("${notification.mail.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notification.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notification.mail.retry-initial-delay-ms:1000}")
+    private long retryInitialDelayMs;
+
+    @Value("${notification.mail.retry-max-delay-ms:60000}")
+    private long retryMaxDelayMs;
+
+    @Value("${notification.mail.retry-lease-ms:300000}")
+    private long retryLeaseMs;
+
+    @Value("${notification.mail.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private volatile boolean running = true;
+
+    public MailDeliveryEngine(JavaMailSenderImpl mailSender,
+                              SmtpTransportPool transportPool,
+                              FailedEmailRepository failedEmailRepository,
+                              EmailRetryRepository emailRetryRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${notification.mail.pool-size:4}") int poolSize,
+                              @Value("${notification.mail.queue-capacity:10000}") int queueCapacity,
+                              MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.transportPool = transportPool;
+        this.failedEmailRepository = failedEmailRepository;
+        this.emailRetryRepository = emailRetryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.senderCount = poolSize;
+        this.senders = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("smtp-sender-"));
+
+        this.sentCounter = meterRegistry.counter("notification.email.sent");
+        this.retryCounter = meterRegistry.counter("notification.email.retries");
+        this.deadLetterCounter = meterRegistry.counter("notification.email.dead-lettered");
+        this.batchTimer = Timer.builder("notification.email.batch").register(meterRegistry);
+        Gauge.builder("notification.email.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        // Part des envois qui ont réutilisé une connexion déjà ouverte
+        Gauge.builder("notification.smtp.connection.reuse.ratio", this, MailDeliveryEngine::connectionReuseRatio)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < senderCount; i++) {
+            senders.submit(this::sendLoop);
+        }
+    }
+
+    /**
+     * Met un email en file d'envoi (bloque si la file est pleine)
+     *
+     * @return complété à l'envoi ou à la mise en table de retry, en erreur quand le message
+     *         part en dead-letter ou n'a pu être ni envoyé ni sauvegardé
+     */
+    public CompletableFuture<Void> submit(SimpleMailMessage message) {
+        PendingEmail email = new PendingEmail(message, new CompletableFuture<>(), 0, null);
+        if (!running) {
+            email.result.completeExceptionally(new IllegalStateException("Mail delivery engine is stopped"));
+            return email.result;
+        }
+        try {
+            queue.put(email);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            email.result.completeExceptionally(e);
+        }
+        return email.result;
+    }
+
+    /**
+     * Laisse les workers vider la file, puis sauvegarde dans email_retries ce qui n'a pu
+     * être envoyé ; toute livraison encore en cours se termine (en erreur au besoin)
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        senders.shutdown();
+        if (!senders.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            senders.shutdownNow();
+            senders.awaitTermination(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        IllegalStateException stopped = new IllegalStateException("Mail delivery engine stopped before sending");
+        List<PendingEmail> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(email -> storeForRetry(email, stopped, 0));
+        if (!remaining.isEmpty()) {
+            log.warn("⚠️ {} queued emails saved for retry at shutdown", remaining.size());
+        }
+        // Worker bloqué malgré l'interruption : ses emails seront repris via Kafka ou le bail
+        inFlight.forEach(email -> email.result.completeExceptionally(stopped));
+    }
+
+    private void sendLoop() {
+        List<PendingEmail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEmail first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                inFlight.addAll(batch);
+                batchTimer.record(() -> sendBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("❌ Unexpected error in mail sender: {}", e.getMessage(), e);
+                // Les emails déjà envoyés (ou déjà traités) du lot ne sont pas renvoyés
+                batch.stream()
+                        .filter(email -> !email.result.isDone())
+                        .forEach(email -> scheduleRetry(email, e));
+            } finally {
+                batch.forEach(inFlight::remove);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Envoie le lot sur une seule connexion ; en cas d'erreur de connexion, le reste
+     * du lot est retenté plus tard
+     */
+    private void sendBatch(List<PendingEmail> batch) {
+        Transport transport;
+        try {
+            transport = transportPool.borrow();
+        } catch (MessagingException e) {
+            log.warn("⚠️ SMTP connection failed: {}", e.getMessage());
+            batch.forEach(email -> scheduleRetry(email, e));
+            return;
+        }
+
+        // Connexion rendue au pool seulement si le lot s'est terminé sans erreur de connexion
+        boolean reusable = false;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingEmail email = batch.get(i);
+                try {
+                    MimeMessage mimeMessage = toMimeMessage(email.message);
+                    transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                    delivered(email);
+                } catch (SendFailedException e) {
+                    if (isTransient(e)) {
+                        // Refus temporaire (4xx : boîte pleine, greylisting...) : retenté plus tard
+                        log.warn("⚠️ SMTP temporarily refused {}: {}", recipient(email), e.getMessage());
+                        scheduleRetry(email, e);
+                    } else {
+                        // Adresse refusée par le serveur : inutile de retenter
+                        deadLetter(email, e);
+                    }
+                    if (!transport.isConnected()) {
+                        batch.subList(i + 1, batch.size()).forEach(pending -> scheduleRetry(pending, e));
+                        return;
+                    }
+                } catch (MessagingException e) {
+                    log.warn("⚠️ SMTP error while sending to {}: {}", recipient(email), e.getMessage());
+                    batch.subList(i, batch.size()).forEach(pending -> scheduleRetry(pending, e));
+                    return;
+                }
+            }
+            reusable = true;
+        } finally {
+            if (reusable) {
+                transportPool.release(transport);
+            } else {
+                transportPool.invalidate(transport);
+            }
+        }
+    }
+
+    /**
+     * Codes SMTP 4xx (de l'envoi ou d'un destinataire) : échec temporaire
+     */
+    private static boolean isTransient(SendFailedException error) {
+        Exception cause = error;
+        while (cause != null) {
+            int code = cause instanceof SMTPSendFailedException e ? e.getReturnCode()
+                    : cause instanceof SMTPAddressFailedException e ? e.getReturnCode()
+                    : cause instanceof SMTPSenderFailedException e ? e.getReturnCode()
+                    : 0;
+            if (code >= 400 && code < 500) {
+                return true;
+            }
+            cause = cause instanceof MessagingException m ? m.getNextException() : null;
+        }
+        return false;
+    }
+
+    /**
+     * Remet en file les emails dont la prochaine tentative est due, dans la limite
+     * de la place libre dans la file
+     */
+    @Scheduled(fixedDelayString = "${notification.mail.retry-poll-interval-ms:1000}")
+    public void retryDue() {
+        int limit = Math.min(queue.remainingCapacity(), batchSize * senderCount);
+        if (!running || limit == 0) {
+            return;
+        }
+        List<EmailRetry> due;
+        try {
+            due = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<EmailRetry> rows = emailRetryRepository.lockDue(now, limit);
+                rows.forEach(row -> row.setNextAttemptAt(now.plus(retryLeaseMs, ChronoUnit.MILLIS)));
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Could not load emails to retry: {}", e.getMessage());
+            return;
+        }
+        for (EmailRetry row : due) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(row.getRecipient());
+            message.setSubject(row.getSubject());
+            message.setText(row.getBody());
+            message.setFrom(row.getFromAddress());
+            // File pleine : la réservation expire et l'email sera repris plus tard
+            if (!queue.offer(new PendingEmail(message, new CompletableFuture<>(), row.getAttempts(), row.getId()))) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Échec temporaire : l'email est sauvegardé dans email_retries (ou sa ligne
+     * reprogrammée), ce qui termine la livraison côté appelant
+     */
+    private void scheduleRetry(PendingEmail email, Exception error) {
+        email.attempts++;
+        if (email.attempts >= maxAttempts) {
+            deadLetter(email, error);
+            return;
+        }
+        long delay = Math.min(retryMaxDelayMs, retryInitialDelayMs << Math.min(email.attempts - 1, 30));
+        if (storeForRetry(email, error, delay)) {
+            retryCounter.increment();
+            log.info("🔁 Retrying email to {} in {} ms (attempt {})", recipient(email), delay, email.attempts + 1);
+        }
+    }
+
+    private boolean storeForRetry(PendingEmail email, Exception error, long delay) {
+        try {
+            EmailRetry row = email.retryId == null
+                    ? EmailRetry.builder()
+                            .recipient(recipient(email))
+                            .subject(email.message.getSubject())
+                            .body(email.message.getText())
+                            .fromAddress(email.message.getFrom())
+                            .build()
+                    : emailRetryRepository.findById(email.retryId).orElseThrow();
+            row.setAttempts(email.attempts);
+            row.setLastError(truncate(error.getMessage()));
+            row.setNextAttemptAt(LocalDateTime.now().plus(delay, ChronoUnit.MILLIS));
+            emailRetryRepository.save(row);
+        } catch (RuntimeException e) {
+            // Une ligne existante reste réservée et sera reprise à l'expiration du bail
+            log.error("❌ Could not store email to {} for retry: {}", recipient(email), e.getMessage());
+            email.result.completeExceptionally(error);
+            return false;
+        }
+        email.result.complete(null);
+        return true;
+    }
+
+    private void delivered(PendingEmail email) {
+        sentCounter.increment();
+        email.result.complete(null);
+        log.info("✅ Email sent successfully to: {}", recipient(email));
+        if (email.retryId != null) {
+            try {
+                emailRetryRepository.deleteById(email.retryId);
+            } catch (RuntimeException e) {
+                // La ligne sera reprise à l'expiration du bail : l'email partirait deux fois
+                log.error("❌ Could not remove sent email {} from retries: {}", email.retryId, e.getMessage());
+            }
+        }
+    }
+
+    private void deadLetter(PendingEmail email, Exception error) {
+        deadLetterCounter.increment();
+        log.error("❌ Failed to send email to {} after {} attempts: {}",
+                recipient(email), Math.max(email.attempts, 1), error.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                failedEmailRepository.save(FailedEmail.builder()
+                        .recipient(recipient(email))
+                        .subject(email.message.getSubject())
+                        .body(email.message.getText())
+                        .attempts(Math.max(email.attempts, 1))
+                        .lastError(truncate(error.getMessage()))
+                        .build());
+                if (email.retryId != null) {
+                    emailRetryRepository.deleteById(email.retryId);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("❌ Could not store dead-lettered email to {}: {}", recipient(email), e.getMessage());
+        }
+        email.result.completeExceptionally(error);
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mimeMessage));
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    private double connectionReuseRatio() {
+        double sent = sentCounter.count();
+        if (sent == 0) {
+            return 0;
+        }
+        return Math.max(0, 1 - transportPool.getConnectionsOpened() / sent);
+    }
+
+    private static String recipient(PendingEmail email) {
+        String[] to = email.message.getTo();
+        return to == null || to.length == 0 ? "" : String.join(",", to);
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= 1000 ? value : value.substring(0, 1000);
+    }
+
+    private static final class PendingEmail {
+        private final SimpleMailMessage message;
+        private final CompletableFuture<Void> result;
+        private int attempts;
+        // Ligne email_retries de l'email (null avant le premier échec)
+        private final Long retryId;
+
+        private PendingEmail(SimpleMailMessage message, CompletableFuture<Void> result, int attempts, Long retryId) {
+            this.message = message;
+            this.result = result;
+            this.attempts = attempts;
+            this.retryId = retryId;
+        }
+    }
+}
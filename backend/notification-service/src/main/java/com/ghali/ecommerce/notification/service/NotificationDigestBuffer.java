@@ -0,0 +1,311 @@
+package com.ghali.ecommerce.notification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.notification.model.PendingDigest;
+import com.ghali.ecommerce.notification.repository.PendingDigestRepository;
+import com.ghali.ecommerce.notification.template.NotificationTemplates;
+import com.ghali.ecommerce.notification.template.RenderedNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Regroupement des notifications d'une commande (mode digest)
+ *
+ * Les événements d'une même commande reçus pendant hold-window-ms sont fusionnés
+ * en un seul email : sujet du dernier événement, corps des événements à la suite.
+ * Une livraison ou une annulation envoie le digest sans attendre la fin de la fenêtre.
+ *
+ * Le nombre de commandes en attente est borné (max-pending-orders) : au-delà, la
+ * plus ancienne est envoyée tout de suite. À l'arrêt, les digests en attente sont
+ * sauvegardés en base (fusionnés avec un digest déjà sauvegardé pour la commande)
+ * puis réclamés au démarrage par une seule instance ; un crash perd en revanche les
+ * événements de la fenêtre en cours (déjà acquittés côté Kafka).
+ *
+ * Désactivé par défaut : chaque email est retardé de hold-window-ms.
+ */
+@Component
+@Slf4j
+public class NotificationDigestBuffer {
+
+    private static final Set<String> FLUSH_IMMEDIATELY = Set.of("ORDER_DELIVERED", "ORDER_CANCELLED");
+    private static final TypeReference<List<KafkaEvent<OrderDTO>>> EVENTS_TYPE = new TypeReference<>() {
+    };
+
+    private final EmailService emailService;
+    private final NotificationTemplates notificationTemplates;
+    private final PendingDigestRepository pendingDigestRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    // Ordre d'insertion = ordre d'ouverture des fenêtres (la plus ancienne en tête)
+    private final Map<String, Digest> pending = new LinkedHashMap<>();
+
+    private final Counter heldCounter;
+    private final Counter digestCounter;
+
+    @Value("${notification.digest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${notification.digest.hold-window-ms:120000}")
+    private long holdWindowMs;
+
+    @Value("${notification.digest.max-pending-orders:10000}")
+    private int maxPendingOrders;
+
+    public NotificationDigestBuffer(EmailService emailService,
+                                    NotificationTemplates notificationTemplates,
+                                    PendingDigestRepository pendingDigestRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.emailService = emailService;
+        this.notificationTemplates = notificationTemplates;
+        this.pendingDigestRepository = pendingDigestRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.heldCounter = meterRegistry.counter("notification.digest.events.held");
+        this.digestCounter = meterRegistry.counter("notification.digest.emails");
+        Gauge.builder("notification.digest.pending", this, NotificationDigestBuffer::pendingCount)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ajoute l'événement au digest de sa commande (ouvre la fenêtre si besoin)
+     */
+    public void hold(KafkaEvent<OrderDTO> event) {
+        String orderNumber = event.getPayload().getOrderNumber();
+        List<Digest> ready = new ArrayList<>(1);
+        synchronized (this) {
+            Digest digest = pending.get(orderNumber);
+            if (digest == null) {
+                if (pending.size() >= maxPendingOrders) {
+                    ready.add(removeOldest());
+                }
+                digest = new Digest(System.currentTimeMillis());
+                pending.put(orderNumber, digest);
+            }
+            digest.events.add(event);
+            if (FLUSH_IMMEDIATELY.contains(event.getEventType())) {
+                ready.add(pending.remove(orderNumber));
+            }
+        }
+        heldCounter.increment();
+        ready.forEach(this::send);
+    }
+
+    /**
+     * Envoie les digests dont la fenêtre est écoulée
+     */
+    @Scheduled(fixedDelayString = "${notification.digest.flush-interval-ms:1000}")
+    public void flushExpired() {
+        long expiredBefore = System.currentTimeMillis() - holdWindowMs;
+        List<Digest> ready = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Digest> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                Digest digest = iterator.next();
+                // Les fenêtres suivantes ont été ouvertes plus tard
+                if (digest.openedAt > expiredBefore) {
+                    break;
+                }
+                ready.add(digest);
+                iterator.remove();
+            }
+        }
+        ready.forEach(this::send);
+    }
+
+    /**
+     * Recharge les digests sauvegardés au dernier arrêt ; leur fenêtre reprend
+     * là où elle s'était arrêtée. Les lignes sont verrouillées et supprimées dans la
+     * même transaction : deux instances qui démarrent ensemble ne les reprennent pas
+     * toutes les deux.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        List<PendingDigest> saved = transactionTemplate.execute(status -> {
+            List<PendingDigest> claimed = pendingDigestRepository.claimAll();
+            pendingDigestRepository.deleteAllInBatch(claimed);
+            return claimed;
+        });
+        if (saved.isEmpty()) {
+            return;
+        }
+        Map<String, Digest> restored = new LinkedHashMap<>();
+        for (PendingDigest row : saved) {
+            try {
+                Digest digest = new Digest(row.getFirstEventAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                digest.events.addAll(objectMapper.readValue(row.getEvents(), EVENTS_TYPE));
+                restored.put(row.getOrderNumber(), digest);
+            } catch (Exception e) {
+                log.error("❌ Could not restore notification digest for order {}: {}",
+                        row.getOrderNumber(), e.getMessage());
+            }
+        }
+        synchronized (this) {
+            // Les fenêtres restaurées sont plus anciennes : elles passent en tête, et un
+            // événement reçu depuis le démarrage complète le digest restauré de sa commande
+            pending.forEach((orderNumber, digest) -> {
+                Digest previous = restored.get(orderNumber);
+                if (previous != null) {
+                    previous.events.addAll(digest.events);
+                } else {
+                    restored.put(orderNumber, digest);
+                }
+            });
+            pending.clear();
+            pending.putAll(restored);
+        }
+        log.info("✅ Restored {} pending notification digests", saved.size());
+    }
+
+    /**
+     * Sauvegarde les digests en attente plutôt que de les envoyer avant la fin de leur fenêtre
+     */
+    @PreDestroy
+    public void spill() {
+        List<PendingDigest> rows = new ArrayList<>();
+        synchronized (this) {
+            pending.forEach((orderNumber, digest) -> {
+                try {
+                    rows.add(PendingDigest.builder()
+                            .orderNumber(orderNumber)
+                            .events(objectMapper.writeValueAsString(digest.events))
+                            .firstEventAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(digest.openedAt), ZoneId.systemDefault()))
+                            .build());
+                } catch (Exception e) {
+                    log.error("❌ Could not save notification digest for order {}: {}", orderNumber, e.getMessage());
+                }
+            });
+            pending.clear();
+        }
+        for (PendingDigest row : rows) {
+            try {
+                saveMerged(row);
+            } catch (RuntimeException e) {
+                log.error("❌ Could not save notification digest for order {}: {}", row.getOrderNumber(), e.getMessage());
+            }
+        }
+        if (!rows.isEmpty()) {
+            log.info("💾 Saved {} pending notification digests", rows.size());
+        }
+    }
+
+    /**
+     * Enregistre le digest ; si la commande en a déjà un (sauvegardé par une autre
+     * instance), les événements sont fusionnés au lieu d'écraser la ligne
+     */
+    private void saveMerged(PendingDigest row) {
+        try {
+            mergeInto(row);
+        } catch (DataIntegrityViolationException e) {
+            // Ligne insérée entre-temps par une autre instance : on fusionne avec elle
+            mergeInto(row);
+        }
+    }
+
+    private void mergeInto(PendingDigest row) {
+        transactionTemplate.executeWithoutResult(status -> {
+            PendingDigest existing = pendingDigestRepository.findForUpdate(row.getOrderNumber()).orElse(null);
+            if (existing == null) {
+                pendingDigestRepository.saveAndFlush(row);
+                return;
+            }
+            try {
+                List<KafkaEvent<OrderDTO>> events = new ArrayList<>(objectMapper.readValue(existing.getEvents(), EVENTS_TYPE));
+                events.addAll(objectMapper.readValue(row.getEvents(), EVENTS_TYPE));
+                events.sort(Comparator.comparing(KafkaEvent::getTimestamp,
+                        Comparator.nullsLast(Comparator.naturalOrder())));
+                existing.setEvents(objectMapper.writeValueAsString(events));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            if (row.getFirstEventAt().isBefore(existing.getFirstEventAt())) {
+                existing.setFirstEventAt(row.getFirstEventAt());
+            }
+        });
+    }
+
+    private Digest removeOldest() {
+        Iterator<Digest> iterator = pending.values().iterator();
+        Digest oldest = iterator.next();
+        iterator.remove();
+        return oldest;
+    }
+
+    private void send(Digest digest) {
+        StringBuilder body = new StringBuilder();
+        String subject = null;
+        OrderDTO latest = null;
+        for (KafkaEvent<OrderDTO> event : digest.events) {
+            OrderDTO order = event.getPayload();
+            RenderedNotification notification =
+                    notificationTemplates.render(event.getEventType(), order.getCustomerLanguage(), order);
+            if (notification == null) {
+                continue;
+            }
+            if (body.length() > 0) {
+                body.append('\n');
+            }
+            body.append(notification.body());
+            subject = notification.subject();
+            latest = order;
+        }
+        if (latest == null) {
+            return;
+        }
+
+        digestCounter.increment();
+        String orderNumber = latest.getOrderNumber();
+        log.info("📨 Sending digest of {} events for order: {}", digest.events.size(), orderNumber);
+        emailService.sendEmail(latest.getCustomerEmail(), subject, body.toString())
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("❌ Digest email for order {} failed: {}", orderNumber, error.getMessage());
+                    }
+                });
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private static final class Digest {
+        private final long openedAt;
+        private final List<KafkaEvent<OrderDTO>> events = new ArrayList<>(4);
+
+        private Digest(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
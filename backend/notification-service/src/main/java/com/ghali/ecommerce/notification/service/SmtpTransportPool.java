@@ -0,0 +1,99 @@
+package com.ghali.ecommerce.notification.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de connexions SMTP persistantes
+ *
+ * Les connexions sont ouvertes à la demande (jusqu'à pool-size) puis réutilisées
+ * d'un envoi à l'autre ; une connexion fermée par le serveur (isConnected() fait
+ * un NOOP) est rouverte à l'emprunt suivant.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<Transport> idle;
+    private final Counter connectionsOpened;
+    private final AtomicLong openCount = new AtomicLong();
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender,
+                             @Value("${notification.mail.pool-size:4}") int poolSize,
+                             MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.idle = new LinkedBlockingQueue<>(poolSize);
+        this.connectionsOpened = meterRegistry.counter("notification.smtp.connections.opened");
+    }
+
+    /**
+     * Emprunte une connexion ouverte (à rendre par release() ou invalidate())
+     */
+    public Transport borrow() throws MessagingException {
+        Transport transport = idle.poll();
+        if (transport != null && transport.isConnected()) {
+            return transport;
+        }
+        close(transport);
+        return connect();
+    }
+
+    public void release(Transport transport) {
+        // Pool plein (ne devrait pas arriver avec un emprunt par worker) : connexion fermée
+        if (!idle.offer(transport)) {
+            close(transport);
+        }
+    }
+
+    /**
+     * Ferme une connexion en erreur au lieu de la remettre dans le pool
+     */
+    public void invalidate(Transport transport) {
+        close(transport);
+    }
+
+    public long getConnectionsOpened() {
+        return openCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        connectionsOpened.increment();
+        openCount.incrementAndGet();
+        log.debug("🔌 Opened SMTP connection to {}:{}", mailSender.getHost(), mailSender.getPort());
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+}
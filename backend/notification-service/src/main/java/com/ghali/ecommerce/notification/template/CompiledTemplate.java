@@ -0,0 +1,54 @@
+package com.ghali.ecommerce.notification.template;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template pré-analysé : suite de segments (texte fixe ou variable)
+ * L'analyse des {{variables}} n'a lieu qu'au chargement, le rendu ne fait que concaténer
+ */
+final class CompiledTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final OrderTemplateVariables.Writer[] segments;
+
+    private CompiledTemplate(OrderTemplateVariables.Writer[] segments) {
+        this.segments = segments;
+    }
+
+    static CompiledTemplate compile(String source) {
+        List<OrderTemplateVariables.Writer> segments = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                segments.add(literal(source.substring(position)));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed template variable at offset " + open);
+            }
+            if (open > position) {
+                segments.add(literal(source.substring(position, open)));
+            }
+            segments.add(OrderTemplateVariables.resolve(source.substring(open + OPEN.length(), close).trim()));
+            position = close + CLOSE.length();
+        }
+        return new CompiledTemplate(segments.toArray(OrderTemplateVariables.Writer[]::new));
+    }
+
+    void render(OrderDTO order, StringBuilder out) {
+        for (OrderTemplateVariables.Writer segment : segments) {
+            segment.write(order, out);
+        }
+    }
+
+    private static OrderTemplateVariables.Writer literal(String text) {
+        return (order, out) -> out.append(text);
+    }
+}
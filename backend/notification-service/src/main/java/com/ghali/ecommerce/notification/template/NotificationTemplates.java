@@ -0,0 +1,140 @@
+package com.ghali.ecommerce.notification.template;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Templates de notification (sujet + corps) par type d'événement et langue
+ *
+ * Fichiers {EVENT_TYPE}.{langue}.txt dans notification.templates.location :
+ * la première ligne est le sujet, le corps suit la ligne vide. Les templates sont
+ * compilés au chargement et rechargés quand un fichier change (hot reload).
+ * Une langue absente retombe sur le français.
+ */
+@Component
+@Slf4j
+public class NotificationTemplates {
+
+    private static final String DEFAULT_LANGUAGE = "fr";
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    @Value("${notification.templates.location:classpath:notification-templates/}")
+    private String location;
+
+    private volatile Map<String, Template> templates = Map.of();
+    private volatile String signature = "";
+
+    @PostConstruct
+    public void load() throws IOException {
+        Resource[] resources = resources();
+        templates = compile(resources);
+        signature = signature(resources);
+        log.info("✅ Loaded {} notification templates from {}", templates.size(), location);
+    }
+
+    /**
+     * Recharge les templates si un fichier a été ajouté, modifié ou supprimé ;
+     * un template invalide est signalé et les précédents restent en place
+     */
+    @Scheduled(fixedDelayString = "${notification.templates.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        try {
+            Resource[] resources = resources();
+            String current = signature(resources);
+            if (current.equals(signature)) {
+                return;
+            }
+            templates = compile(resources);
+            signature = current;
+            log.info("🔄 Reloaded {} notification templates", templates.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Failed to reload notification templates, keeping previous ones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return la notification rendue, ou null si aucun template n'existe pour ce type
+     */
+    public RenderedNotification render(String eventType, String language, OrderDTO order) {
+        Map<String, Template> current = templates;
+        Template template = current.get(key(eventType, normalize(language)));
+        if (template == null) {
+            template = current.get(key(eventType, DEFAULT_LANGUAGE));
+        }
+        if (template == null) {
+            return null;
+        }
+
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        template.subject.render(order, out);
+        String subject = out.toString();
+        out.setLength(0);
+        template.body.render(order, out);
+        return new RenderedNotification(subject, out.toString());
+    }
+
+    private Resource[] resources() throws IOException {
+        return resourceResolver.getResources(location + "*.txt");
+    }
+
+    private Map<String, Template> compile(Resource[] resources) throws IOException {
+        Map<String, Template> compiled = new HashMap<>();
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            String content = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+            int subjectEnd = content.indexOf('\n');
+            String subject = subjectEnd < 0 ? content : content.substring(0, subjectEnd);
+            String body = subjectEnd < 0 ? "" : content.substring(subjectEnd + 1).stripLeading();
+            try {
+                compiled.put(filename.substring(0, filename.length() - ".txt".length()).toLowerCase(Locale.ROOT),
+                        new Template(CompiledTemplate.compile(subject.strip()), CompiledTemplate.compile(body)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid template " + filename + ": " + e.getMessage(), e);
+            }
+        }
+        return Map.copyOf(compiled);
+    }
+
+    private static String signature(Resource[] resources) throws IOException {
+        StringBuilder signature = new StringBuilder();
+        for (Resource resource : resources) {
+            signature.append(resource.getFilename()).append(':')
+                    .append(resource.lastModified()).append(':')
+                    .append(resource.contentLength()).append(';');
+        }
+        return signature.toString();
+    }
+
+    private static String key(String eventType, String language) {
+        return eventType.toLowerCase(Locale.ROOT) + "." + language;
+    }
+
+    private static String normalize(String language) {
+        if (language == null || language.isBlank()) {
+            return DEFAULT_LANGUAGE;
+        }
+        // "fr-FR", "en_US" -> "fr", "en"
+        int separator = language.indexOf('-') >= 0 ? language.indexOf('-') : language.indexOf('_');
+        String code = separator > 0 ? language.substring(0, separator) : language;
+        return code.toLowerCase(Locale.ROOT);
+    }
+
+    private record Template(CompiledTemplate subject, CompiledTemplate body) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.ghali.ecommerce.notification.template;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Variables disponibles dans les templates de commande ({{nom}})
+ * Chaque variable écrit directement sa valeur dans le StringBuilder de rendu
+ */
+final class OrderTemplateVariables {
+
+    @FunctionalInterface
+    interface Writer {
+        void write(OrderDTO order, StringBuilder out);
+    }
+
+    private static final Map<String, Writer> VARIABLES = Map.of(
+            "orderNumber", (order, out) -> out.append(order.getOrderNumber()),
+            "customerEmail", (order, out) -> out.append(order.getCustomerEmail()),
+            "status", (order, out) -> out.append(order.getStatus()),
+            "itemCount", (order, out) -> out.append(order.getItems() == null ? 0 : order.getItems().size()),
+            "totalAmount", OrderTemplateVariables::writeAmount
+    );
+
+    private OrderTemplateVariables() {
+    }
+
+    static Writer resolve(String name) {
+        Writer writer = VARIABLES.get(name);
+        if (writer == null) {
+            throw new IllegalArgumentException("Unknown template variable: " + name);
+        }
+        return writer;
+    }
+
+    private static void writeAmount(OrderDTO order, StringBuilder out) {
+        BigDecimal amount = order.getTotalAmount();
+        out.append(amount == null ? "0.00" : amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+    }
+}
@@ -0,0 +1,7 @@
+package com.ghali.ecommerce.notification.template;
+
+/**
+ * Notification prête à envoyer
+ */
+public record RenderedNotification(String subject, String body) {
+}
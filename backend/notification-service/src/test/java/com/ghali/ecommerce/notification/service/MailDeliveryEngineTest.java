@@ -0,0 +1,213 @@
+package com.ghali.ecommerce.notification.service;
+
+import com.ghali.ecommerce.notification.repository.EmailRetryRepository;
+import com.ghali.ecommerce.notification.repository.FailedEmailRepository;
+import com.icegreen.greenmail.Managers;
+import com.icegreen.greenmail.imap.ImapHostManager;
+import com.icegreen.greenmail.mail.MailAddress;
+import com.icegreen.greenmail.server.AbstractServer;
+import com.icegreen.greenmail.smtp.SmtpManager;
+import com.icegreen.greenmail.smtp.SmtpState;
+import com.icegreen.greenmail.user.UserManager;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Envoi contre un serveur SMTP GreenMail : un lot part sur une seule connexion,
+ * un refus 4xx va dans email_retries, un refus 5xx dans email_dead_letters
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+// Les workers d'envoi enregistrent retries et dead-letters dans leurs propres transactions
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailDeliveryEngineTest {
+
+    private static final String MAILBOX_FULL = "full@example.com";
+    private static final String UNKNOWN_USER = "unknown@example.com";
+
+    // Réponses RCPT TO scriptées par destinataire (les autres sont acceptés)
+    private static final Map<String, String> REFUSALS = Map.of(
+            MAILBOX_FULL, "452 4.2.2 Mailbox full",
+            UNKNOWN_USER, "550 5.1.1 No such user");
+
+    @Autowired
+    private EmailRetryRepository emailRetryRepository;
+
+    @Autowired
+    private FailedEmailRepository failedEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GreenMail greenMail;
+    private SmtpTransportPool transportPool;
+    private MailDeliveryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        greenMail = new ScriptedGreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setProtocol("smtp");
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        transportPool = new SmtpTransportPool(mailSender, 1, meterRegistry);
+        engine = new MailDeliveryEngine(mailSender, transportPool, failedEmailRepository, emailRetryRepository,
+                transactionManager, 1, 100, meterRegistry);
+        ReflectionTestUtils.setField(engine, "batchSize", 50);
+        ReflectionTestUtils.setField(engine, "maxAttempts", 5);
+        ReflectionTestUtils.setField(engine, "retryInitialDelayMs", 1000L);
+        ReflectionTestUtils.setField(engine, "retryMaxDelayMs", 60000L);
+        ReflectionTestUtils.setField(engine, "retryLeaseMs", 300000L);
+        ReflectionTestUtils.setField(engine, "shutdownTimeoutMs", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+        transportPool.shutdown();
+        greenMail.stop();
+        emailRetryRepository.deleteAll();
+        failedEmailRepository.deleteAll();
+    }
+
+    @Test
+    void batchIsSentOnOneReusedConnection() throws Exception {
+        // Mis en file avant le démarrage du worker : un seul lot
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(engine.submit(message("client" + i + "@example.com")));
+        }
+        engine.start();
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(10);
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(1);
+        assertThat(meterRegistry.get("notification.smtp.connection.reuse.ratio").gauge().value())
+                .isEqualTo(0.9);
+
+        // Lot suivant : la connexion du pool est reprise
+        engine.submit(message("client10@example.com")).get(10, TimeUnit.SECONDS);
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void temporaryRefusalIsStoredForRetry() throws Exception {
+        CompletableFuture<Void> refused = engine.submit(message(MAILBOX_FULL));
+        CompletableFuture<Void> accepted = engine.submit(message("client@example.com"));
+        engine.start();
+
+        // L'appelant n'attend que la première tentative
+        refused.get(10, TimeUnit.SECONDS);
+        accepted.get(10, TimeUnit.SECONDS);
+
+        assertThat(emailRetryRepository.findAll()).singleElement().satisfies(retry -> {
+            assertThat(retry.getRecipient()).isEqualTo(MAILBOX_FULL);
+            assertThat(retry.getAttempts()).isEqualTo(1);
+        });
+        assertThat(failedEmailRepository.count()).isZero();
+        // Le refus n'a pas coupé la connexion : le message suivant est parti dessus
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void permanentRefusalIsDeadLettered() throws Exception {
+        CompletableFuture<Void> refused = engine.submit(message(UNKNOWN_USER));
+        CompletableFuture<Void> accepted = engine.submit(message("client@example.com"));
+        engine.start();
+
+        Throwable error = refused.handle((ignored, e) -> e).get(10, TimeUnit.SECONDS);
+        accepted.get(10, TimeUnit.SECONDS);
+
+        assertThat(error).isNotNull();
+        assertThat(failedEmailRepository.findAll()).singleElement().satisfies(failed -> {
+            assertThat(failed.getRecipient()).isEqualTo(UNKNOWN_USER);
+            assertThat(failed.getAttempts()).isEqualTo(1);
+        });
+        assertThat(emailRetryRepository.count()).isZero();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(transportPool.getConnectionsOpened()).isEqualTo(1);
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@ecommerce.com");
+        message.setTo(to);
+        message.setSubject("Commande confirmée");
+        message.setText("Votre commande est confirmée");
+        return message;
+    }
+
+    /**
+     * GreenMail dont le serveur SMTP refuse les destinataires de REFUSALS au RCPT TO
+     */
+    private static final class ScriptedGreenMail extends GreenMail {
+
+        private ScriptedGreenMail(ServerSetup setup) {
+            super(setup);
+        }
+
+        @Override
+        protected Map<String, AbstractServer> createServices(ServerSetup[] config, Managers managers) {
+            return super.createServices(config, new ScriptedManagers(managers));
+        }
+    }
+
+    private static final class ScriptedManagers extends Managers {
+
+        private final Managers delegate;
+        private final SmtpManager smtpManager;
+
+        private ScriptedManagers(Managers delegate) {
+            this.delegate = delegate;
+            this.smtpManager = new SmtpManager(delegate.getImapHostManager(), delegate.getUserManager()) {
+                @Override
+                public String checkRecipient(SmtpState state, MailAddress rcpt) {
+                    return REFUSALS.get(rcpt.getEmail());
+                }
+            };
+        }
+
+        @Override
+        public SmtpManager getSmtpManager() {
+            return smtpManager;
+        }
+
+        @Override
+        public UserManager getUserManager() {
+            return delegate.getUserManager();
+        }
+
+        @Override
+        public ImapHostManager getImapHostManager() {
+            return delegate.getImapHostManager();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ghali.ecommerce.notification.template;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu d'un email ORDER_CREATED : templates pré-compilés contre l'ancien String.format
+ *
+ * mvn -Pbenchmark -pl backend/notification-service -am verify -Djmh.include=NotificationTemplateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTemplateBenchmark {
+
+    private NotificationTemplates templates;
+    private OrderDTO order;
+
+    @Setup
+    public void setUp() throws IOException {
+        templates = NotificationTemplatesTest.load("classpath:notification-templates/");
+        order = NotificationTemplatesTest.sampleOrder();
+    }
+
+    @Benchmark
+    public RenderedNotification compiledTemplate() {
+        return templates.render("ORDER_CREATED", order.getCustomerLanguage(), order);
+    }
+
+    @Benchmark
+    public RenderedNotification stringFormat() {
+        return new RenderedNotification("Confirmation de commande - " + order.getOrderNumber(),
+                NotificationTemplatesTest.legacyOrderCreatedBody(order));
+    }
+}
@@ -0,0 +1,133 @@
+package com.ghali.ecommerce.notification.template;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.common.dto.OrderItemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationTemplatesTest {
+
+    private NotificationTemplates templates;
+    private OrderDTO order;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        templates = load("classpath:notification-templates/");
+        order = sampleOrder();
+    }
+
+    @Test
+    void rendersOrderCreatedLikeTheFormerStringFormat() {
+        RenderedNotification notification = templates.render("ORDER_CREATED", "fr", order);
+
+        assertThat(notification.subject()).isEqualTo("Confirmation de commande - CMD-2024-000042");
+        assertThat(notification.body().strip()).isEqualTo(legacyOrderCreatedBody(order).strip());
+    }
+
+    @Test
+    void picksTheLanguageFromALocaleTag() {
+        assertThat(templates.render("ORDER_SHIPPED", "en-US", order).subject())
+                .isEqualTo("Order shipped - CMD-2024-000042");
+        assertThat(templates.render("ORDER_SHIPPED", "fr_FR", order).subject())
+                .isEqualTo("Commande expédiée - CMD-2024-000042");
+    }
+
+    @Test
+    void fallsBackToFrenchForUnknownOrMissingLanguage() {
+        assertThat(templates.render("ORDER_SHIPPED", "de", order).subject())
+                .isEqualTo("Commande expédiée - CMD-2024-000042");
+        assertThat(templates.render("ORDER_SHIPPED", null, order).subject())
+                .isEqualTo("Commande expédiée - CMD-2024-000042");
+    }
+
+    @Test
+    void returnsNullWithoutTemplate() {
+        assertThat(templates.render("ORDER_REFUNDED", "fr", order)).isNull();
+    }
+
+    @Test
+    void rendersMissingValuesWithoutFailing() {
+        order.setTotalAmount(null);
+        order.setItems(null);
+
+        String body = templates.render("ORDER_CREATED", "fr", order).body();
+
+        assertThat(body).contains("Montant total: 0.00 MAD").contains("Nombre d'articles: 0");
+    }
+
+    @Test
+    void reloadsChangedFilesAndKeepsPreviousTemplatesWhenInvalid(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("ORDER_SHIPPED.fr.txt");
+        Files.writeString(file, "Expédiée {{orderNumber}}\n\nEn route.");
+        NotificationTemplates reloadable = load(directory.toUri().toString());
+        assertThat(reloadable.render("ORDER_SHIPPED", "fr", order).subject()).isEqualTo("Expédiée CMD-2024-000042");
+
+        rewrite(file, "Partie {{orderNumber}}\n\nEn route.", 1);
+        reloadable.reloadIfChanged();
+        assertThat(reloadable.render("ORDER_SHIPPED", "fr", order).subject()).isEqualTo("Partie CMD-2024-000042");
+
+        rewrite(file, "Cassée {{orderNumber\n\nEn route.", 2);
+        reloadable.reloadIfChanged();
+        assertThat(reloadable.render("ORDER_SHIPPED", "fr", order).subject()).isEqualTo("Partie CMD-2024-000042");
+    }
+
+    static NotificationTemplates load(String location) throws IOException {
+        NotificationTemplates templates = new NotificationTemplates();
+        ReflectionTestUtils.setField(templates, "location", location);
+        templates.load();
+        return templates;
+    }
+
+    static OrderDTO sampleOrder() {
+        return OrderDTO.builder()
+                .orderNumber("CMD-2024-000042")
+                .customerEmail("client@example.com")
+                .customerLanguage("fr")
+                .status(OrderDTO.OrderStatus.PENDING)
+                .totalAmount(new BigDecimal("1249.5"))
+                .items(List.of(new OrderItemDTO(), new OrderItemDTO(), new OrderItemDTO()))
+                .build();
+    }
+
+    /**
+     * Rendu d'origine (OrderEventConsumer.buildOrderCreatedEmail), sert de référence
+     */
+    static String legacyOrderCreatedBody(OrderDTO order) {
+        return String.format(Locale.ROOT, """
+            Bonjour,
+            
+            Nous avons bien reçu votre commande #%s.
+            
+            Montant total: %.2f MAD
+            Nombre d'articles: %d
+            
+            Nous vous tiendrons informé de l'évolution de votre commande.
+            
+            Merci pour votre confiance !
+            
+            L'équipe E-Commerce
+            """,
+            order.getOrderNumber(),
+            order.getTotalAmount(),
+            order.getItems().size()
+        );
+    }
+
+    private static void rewrite(Path file, String content, int generation) throws IOException {
+        Files.writeString(file, content);
+        // La signature compare aussi la date de modification : on la fait avancer explicitement
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + generation * 1000L));
+    }
+}
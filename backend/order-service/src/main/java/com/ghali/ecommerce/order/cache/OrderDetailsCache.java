@@ -0,0 +1,67 @@
+package com.ghali.ecommerce.order.cache;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Cache local des commandes assemblées (OrderDTO avec items), par version de commande
+ *
+ * - chaque entrée porte la version (@Version) de la commande dont elle est issue ;
+ *   une lecture ne l'utilise que si la version en base est identique, une modification
+ *   faite par une autre instance n'est donc jamais masquée
+ * - les transitions de statut déposent le DTO déjà construit pour la réponse HTTP et
+ *   l'événement Kafka, après le commit
+ * - une entrée n'est jamais remplacée par une version plus ancienne
+ */
+@Component
+public class OrderDetailsCache {
+
+    private final Cache<Long, Entry> entries;
+
+    public OrderDetailsCache(@Value("${orders.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${orders.cache.expire-after-access:10m}") Duration expireAfterAccess) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    /**
+     * Commande en cache si elle correspond à la version donnée, null sinon
+     */
+    public OrderDTO get(Long orderId, long version) {
+        Entry entry = entries.getIfPresent(orderId);
+        return entry != null && entry.version() == version ? entry.order() : null;
+    }
+
+    public void put(long version, OrderDTO order) {
+        entries.asMap().merge(order.getId(), new Entry(version, order),
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+
+    /**
+     * Met en cache après le commit de la transaction en cours (rien en cas de rollback)
+     */
+    public void putAfterCommit(long version, OrderDTO order) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(version, order);
+                }
+            });
+        } else {
+            put(version, order);
+        }
+    }
+
+    private record Entry(long version, OrderDTO order) {
+    }
+}
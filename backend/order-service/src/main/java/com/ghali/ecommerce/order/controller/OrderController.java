@@ -2,6 +2,7 @@ package com.ghali.ecommerce.order.controller;
 
 import com.ghali.ecommerce.common.dto.OrderDTO;
 import com.ghali.ecommerce.order.model.Order;
+import com.ghali.ecommerce.order.repository.OrderRepository;
 import com.ghali.ecommerce.order.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -32,7 +33,7 @@ public class OrderController {
      * Mes commandes (CUSTOMER)
      */
     @GetMapping("/me")
-    public ResponseEntity<Page<Order>> getMyOrders(
+    public ResponseEntity<Page<OrderRepository.SummaryView>> getMyOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             Authentication authentication
@@ -41,7 +42,7 @@ public class OrderController {
         log.info("🛒 GET /api/orders/me for customer: {}", customerId);
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Order> orders = orderService.getOrdersByCustomer(customerId, pageable);
+        Page<OrderRepository.SummaryView> orders = orderService.getOrdersByCustomer(customerId, pageable);
 
         return ResponseEntity.ok(orders);
     }
@@ -50,16 +51,20 @@ public class OrderController {
      * Créer une commande (CUSTOMER)
      */
     @PostMapping
-    public ResponseEntity<Order> createOrder(
+    public ResponseEntity<OrderDTO> createOrder(
             @Valid @RequestBody Order order,
             Authentication authentication
     ) {
         String customerId = extractCustomerId(authentication);
         order.setCustomerId(customerId);
+        if (order.getCustomerLanguage() == null) {
+            // Langue du profil Keycloak (claim "locale") à défaut d'être fournie
+            order.setCustomerLanguage(extractLanguage(authentication));
+        }
 
         log.info("✨ POST /api/orders - Creating order for customer: {}", customerId);
 
-        Order createdOrder = orderService.createOrder(order);
+        OrderDTO createdOrder = orderService.createOrder(order);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
 
@@ -67,9 +72,9 @@ public class OrderController {
      * Obtenir une commande par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
         log.info("🛒 GET /api/orders/{}", id);
-        Order order = orderService.getOrderById(id);
+        OrderDTO order = orderService.getOrderDetails(id);
         return ResponseEntity.ok(order);
     }
 
@@ -77,9 +82,9 @@ public class OrderController {
      * Obtenir une commande par numéro
      */
     @GetMapping("/number/{orderNumber}")
-    public ResponseEntity<Order> getOrderByNumber(@PathVariable String orderNumber) {
+    public ResponseEntity<OrderDTO> getOrderByNumber(@PathVariable String orderNumber) {
         log.info("🛒 GET /api/orders/number/{}", orderNumber);
-        Order order = orderService.getOrderByNumber(orderNumber);
+        OrderDTO order = orderService.getOrderDetailsByNumber(orderNumber);
         return ResponseEntity.ok(order);
     }
 
@@ -89,14 +94,14 @@ public class OrderController {
      * Lister toutes les commandes par statut (ADMIN)
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<Page<Order>> getOrdersByStatus(
+    public ResponseEntity<Page<OrderRepository.SummaryView>> getOrdersByStatus(
             @PathVariable OrderDTO.OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
         log.info("📊 GET /api/orders/status/{}", status);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Order> orders = orderService.getOrdersByStatus(status, pageable);
+        Page<OrderRepository.SummaryView> orders = orderService.getOrdersByStatus(status, pageable);
         return ResponseEntity.ok(orders);
     }
 
@@ -104,9 +109,9 @@ public class OrderController {
      * Confirmer une commande (ADMIN) → Déclenche facturation
      */
     @PutMapping("/{id}/confirm")
-    public ResponseEntity<Order> confirmOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> confirmOrder(@PathVariable Long id) {
         log.info("✅ PUT /api/orders/{}/confirm", id);
-        Order order = orderService.confirmOrder(id);
+        OrderDTO order = orderService.confirmOrder(id);
         return ResponseEntity.ok(order);
     }
 
@@ -114,9 +119,9 @@ public class OrderController {
      * Expédier une commande (ADMIN)
      */
     @PutMapping("/{id}/ship")
-    public ResponseEntity<Order> shipOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> shipOrder(@PathVariable Long id) {
         log.info("📦 PUT /api/orders/{}/ship", id);
-        Order order = orderService.shipOrder(id);
+        OrderDTO order = orderService.shipOrder(id);
         return ResponseEntity.ok(order);
     }
 
@@ -124,9 +129,9 @@ public class OrderController {
      * Marquer comme livrée (ADMIN)
      */
     @PutMapping("/{id}/deliver")
-    public ResponseEntity<Order> deliverOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> deliverOrder(@PathVariable Long id) {
         log.info("✨ PUT /api/orders/{}/deliver", id);
-        Order order = orderService.deliverOrder(id);
+        OrderDTO order = orderService.deliverOrder(id);
         return ResponseEntity.ok(order);
     }
 
@@ -134,9 +139,9 @@ public class OrderController {
      * Annuler une commande (ADMIN)
      */
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> cancelOrder(@PathVariable Long id) {
         log.info("❌ PUT /api/orders/{}/cancel", id);
-        Order order = orderService.cancelOrder(id);
+        OrderDTO order = orderService.cancelOrder(id);
         return ResponseEntity.ok(order);
     }
 
@@ -149,4 +154,9 @@ public class OrderController {
         Jwt jwt = (Jwt) authentication.getPrincipal();
         return jwt.getSubject(); // Keycloak ID
     }
+
+    private String extractLanguage(Authentication authentication) {
+        Jwt jwt = (Jwt) authentication.getPrincipal();
+        return jwt.getClaimAsString("locale");
+    }
 }
@@ -0,0 +1,211 @@
+package com.ghali.ecommerce.order.kafka;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.order.model.OrderOutboxEvent;
+import com.ghali.ecommerce.order.repository.OrderOutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relais de l'outbox des commandes vers Kafka
+ *
+ * Chaque passage réserve un lot d'événements non publiés (par ID croissant) dans une
+ * courte transaction qui pose un bail (claimed_by / claimed_until) puis commite : aucun
+ * verrou n'est tenu pendant les envois. Le lot est envoyé sans attendre (le producer
+ * regroupe selon linger.ms / batch.size), puis une seconde courte transaction marque
+ * publiés les événements confirmés jusqu'au premier échec et rend le reste du lot.
+ *
+ * Tant qu'un bail court sur la tête de l'outbox, les autres relais n'envoient rien :
+ * ordre par commande préservé. Après un crash entre l'envoi et le marquage, le bail
+ * expire et le lot est republié avec les mêmes eventId (livraison au moins une fois).
+ */
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+
+    private static final TypeReference<KafkaEvent<OrderDTO>> EVENT_TYPE = new TypeReference<>() {
+    };
+
+    private final OrderOutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate claimTransaction;
+    private final String relayId = UUID.randomUUID().toString();
+
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final DistributionSummary batchSizes;
+    private final Timer relayTimer;
+    private final AtomicLong pending = new AtomicLong();
+
+    @Value("${orders.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    // Durée du bail d'un lot : au-delà de send-timeout-ms, sinon un lot lent est republié
+    @Value("${orders.outbox.claim-ttl-ms:120000}")
+    private long claimTtlMs;
+
+    @Value("${orders.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    public OrderOutboxRelay(OrderOutboxEventRepository outboxRepository,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.claimTransaction = new TransactionTemplate(transactionManager);
+        this.claimTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.publishedCounter = meterRegistry.counter("order.outbox.published");
+        this.failureCounter = meterRegistry.counter("order.outbox.failures");
+        this.batchSizes = DistributionSummary.builder("order.outbox.batch.size").register(meterRegistry);
+        this.relayTimer = Timer.builder("order.outbox.relay").register(meterRegistry);
+        Gauge.builder("order.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Publie les lots disponibles jusqu'à vider l'outbox (ou au premier échec)
+     */
+    @Scheduled(fixedDelayString = "${orders.outbox.poll-interval-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayTimer.record(this::relayBatch);
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Supprime les événements publiés depuis plus de retention-hours
+     */
+    @Scheduled(fixedDelayString = "${orders.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(before, batchSize));
+            total += deleted;
+        } while (deleted == batchSize);
+
+        pending.set(outboxRepository.countByPublishedAtIsNull());
+        if (total > 0) {
+            log.info("🧹 Removed {} published outbox events", total);
+        }
+    }
+
+    /**
+     * @return le nombre d'événements publiés (batchSize si d'autres peuvent attendre)
+     */
+    private int relayBatch() {
+        List<OrderOutboxEvent> batch = claimTransaction.execute(status -> claimNextBatch());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        batchSizes.record(batch.size());
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OrderOutboxEvent event : batch) {
+            sends.add(send(event));
+        }
+
+        // Ne marquer que le préfixe confirmé : un échec interrompt le lot pour garder l'ordre
+        List<Long> published = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutboxEvent event = batch.get(i);
+            try {
+                sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                published.add(event.getId());
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                failureCounter.increment();
+                log.error("❌ Failed to publish outbox event {} ({}) for order {}: {}",
+                        event.getEventId(), event.getEventType(), event.getMessageKey(), e.getMessage());
+                break;
+            }
+        }
+
+        // Le reste du lot est rendu : renvoyé dès le passage suivant, sans attendre le bail
+        List<Long> unpublished = batch.subList(published.size(), batch.size()).stream()
+                .map(OrderOutboxEvent::getId)
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!published.isEmpty()) {
+                outboxRepository.markPublished(published, LocalDateTime.now());
+            }
+            if (!unpublished.isEmpty()) {
+                outboxRepository.releaseClaim(unpublished);
+            }
+        });
+
+        if (!published.isEmpty()) {
+            publishedCounter.increment(published.size());
+            log.debug("📤 Relayed {} order events", published.size());
+        }
+        pending.set(Math.max(0, pending.get() - published.size()));
+        return published.size() == batch.size() ? published.size() : 0;
+    }
+
+    /**
+     * Réserve la tête de l'outbox pour ce relais (vide si un autre relais la tient encore)
+     */
+    private List<OrderOutboxEvent> claimNextBatch() {
+        List<OrderOutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            pending.set(0);
+            return batch;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean claimedElsewhere = batch.stream().anyMatch(event -> event.getClaimedUntil() != null
+                && event.getClaimedUntil().isAfter(now)
+                && !relayId.equals(event.getClaimedBy()));
+        if (claimedElsewhere) {
+            return List.of();
+        }
+
+        List<Long> ids = batch.stream().map(OrderOutboxEvent::getId).toList();
+        outboxRepository.claim(ids, relayId, now.plus(claimTtlMs, ChronoUnit.MILLIS));
+        return batch;
+    }
+
+    private CompletableFuture<?> send(OrderOutboxEvent event) {
+        try {
+            KafkaEvent<OrderDTO> payload = objectMapper.readValue(event.getPayload(), EVENT_TYPE);
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -6,11 +6,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Entité Order - Commande
@@ -40,6 +42,9 @@ public class Order {
     @Column(name = "customer_email", length = 200)
     private String customerEmail;
 
+    @Column(name = "customer_language", length = 10)
+    private String customerLanguage;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -73,6 +78,12 @@ public class Order {
     @Column(name = "delivered_at")
     private LocalDateTime deliveredAt;
 
+    // Incrémentée à chaque modification : verrouillage optimiste et clé du cache des détails
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -107,4 +118,23 @@ public class Order {
     public void cancelOrder() {
         this.status = OrderDTO.OrderStatus.CANCELLED;
     }
+
+    /**
+     * Vue de détail (réponses HTTP et événements Kafka) ; les items doivent être chargés
+     */
+    public OrderDTO toDTO() {
+        return OrderDTO.builder()
+                .id(id)
+                .orderNumber(orderNumber)
+                .customerId(customerId)
+                .customerEmail(customerEmail)
+                .customerLanguage(customerLanguage)
+                .status(status)
+                .totalAmount(totalAmount)
+                .items(items.stream().map(OrderItem::toDTO).collect(Collectors.toList()))
+                .shippingAddress(shippingAddress != null ? shippingAddress.toDTO() : null)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.ghali.ecommerce.order.model;
 
+import com.ghali.ecommerce.common.dto.OrderItemDTO;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -49,4 +50,16 @@ public class OrderItem {
             totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
         }
     }
+
+    public OrderItemDTO toDTO() {
+        return OrderItemDTO.builder()
+                .id(id)
+                .productId(productId)
+                .productName(productName)
+                .productSku(productSku)
+                .quantity(quantity)
+                .unitPrice(unitPrice)
+                .totalPrice(totalPrice)
+                .build();
+    }
 }
@@ -0,0 +1,39 @@
+package com.ghali.ecommerce.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité OrderNumberSegment - Séquence annuelle des numéros de commande
+ * Chaque instance réserve un bloc de numéros en avançant nextValue
+ * (lue et écrite en JDBC par BlockSequenceAllocator, l'entité porte le schéma)
+ */
+@Entity
+@Table(name = "order_number_segments")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderNumberSegment {
+
+    @Id
+    @Column(name = "sequence_year")
+    private Integer year;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
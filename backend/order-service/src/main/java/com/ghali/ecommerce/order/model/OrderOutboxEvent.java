@@ -0,0 +1,64 @@
+package com.ghali.ecommerce.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité OrderOutboxEvent - Événement Kafka en attente de publication
+ * Écrit dans la même transaction que la commande, publié par OrderOutboxRelay
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_outbox_published_at", columnList = "published_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", unique = true, nullable = false, length = 36)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    // Clé Kafka (numéro de commande) : garantit l'ordre par commande
+    @Column(name = "message_key", nullable = false, length = 50)
+    private String messageKey;
+
+    // KafkaEvent sérialisé en JSON
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    // Relais qui publie l'événement et fin de son bail : passé ce délai (crash du relais),
+    // l'événement est repris et republié avec le même eventId
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ghali.ecommerce.order.model;
 
+import com.ghali.ecommerce.common.dto.ShippingAddressDTO;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
@@ -37,4 +38,17 @@ public class ShippingAddress {
 
     @Column(name = "shipping_phone", length = 20)
     private String phone;
+
+    public ShippingAddressDTO toDTO() {
+        return ShippingAddressDTO.builder()
+                .fullName(fullName)
+                .addressLine1(addressLine1)
+                .addressLine2(addressLine2)
+                .city(city)
+                .state(state)
+                .zipCode(zipCode)
+                .country(country)
+                .phone(phone)
+                .build();
+    }
 }
@@ -0,0 +1,45 @@
+package com.ghali.ecommerce.order.repository;
+
+import com.ghali.ecommerce.order.model.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxEventRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    /**
+     * Prochains événements à publier, dans l'ordre d'écriture.
+     * FOR UPDATE, le temps de poser le bail seulement : deux relais ne réservent jamais
+     * la tête de l'outbox en même temps (ordre par commande préservé). Appelé en
+     * READ COMMITTED : pas de verrou d'intervalle, les écritures de commandes continuent.
+     */
+    @Query(value = "SELECT * FROM order_outbox WHERE published_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE",
+           nativeQuery = true)
+    List<OrderOutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.claimedBy = :relayId, e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("relayId") String relayId,
+              @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.claimedBy = NULL, e.claimedUntil = NULL WHERE e.id IN :ids")
+    int releaseClaim(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_outbox WHERE published_at < :before LIMIT :limit", nativeQuery = true)
+    int deletePublishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    long countByPublishedAtIsNull();
+}
@@ -4,22 +4,74 @@ import com.ghali.ecommerce.common.dto.OrderDTO;
 import com.ghali.ecommerce.order.model.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    /**
+     * Commande et ses items en une seule requête (vue de détail)
+     */
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = "items")
     Optional<Order> findByOrderNumber(String orderNumber);
 
-    List<Order> findByCustomerId(String customerId);
+    /**
+     * Version courante seulement (validation du cache des détails)
+     */
+    @Query("SELECT o.id AS id, o.version AS version FROM Order o WHERE o.id = :id")
+    Optional<VersionView> findVersionById(@Param("id") Long id);
 
-    Page<Order> findByCustomerId(String customerId, Pageable pageable);
+    @Query("SELECT o.id AS id, o.version AS version FROM Order o WHERE o.orderNumber = :orderNumber")
+    Optional<VersionView> findVersionByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    List<Order> findByCustomerId(String customerId);
 
     List<Order> findByStatus(OrderDTO.OrderStatus status);
 
-    Page<Order> findByStatus(OrderDTO.OrderStatus status, Pageable pageable);
+    /**
+     * Listes de commandes : une ligne résumée par commande, sans charger les items
+     */
+    @Query(value = "SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, " +
+                   "o.totalAmount AS totalAmount, SIZE(o.items) AS itemCount, o.createdAt AS createdAt " +
+                   "FROM Order o WHERE o.customerId = :customerId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.customerId = :customerId")
+    Page<SummaryView> findSummariesByCustomerId(@Param("customerId") String customerId, Pageable pageable);
+
+    @Query(value = "SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, " +
+                   "o.totalAmount AS totalAmount, SIZE(o.items) AS itemCount, o.createdAt AS createdAt " +
+                   "FROM Order o WHERE o.status = :status",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<SummaryView> findSummariesByStatus(@Param("status") OrderDTO.OrderStatus status, Pageable pageable);
+
+    interface VersionView {
+        Long getId();
+
+        Long getVersion();
+    }
+
+    interface SummaryView {
+        Long getId();
+
+        String getOrderNumber();
+
+        OrderDTO.OrderStatus getStatus();
+
+        BigDecimal getTotalAmount();
+
+        Integer getItemCount();
+
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -0,0 +1,51 @@
+package com.ghali.ecommerce.order.service;
+
+import com.ghali.ecommerce.common.sequence.BlockSequenceAllocator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Year;
+
+/**
+ * Allocation des numéros de commande ORD-YYYY-NNNNNN
+ *
+ * Les numéros sont réservés par blocs dans la table order_number_segments
+ * (BlockSequenceAllocator, sur une connexion dédiée : createOrder garde la sienne),
+ * puis distribués sans verrou. Un bloc réservé n'est jamais rendu :
+ * après un redémarrage les numéros non utilisés sont perdus mais jamais réutilisés.
+ */
+@Component
+public class OrderNumberAllocator {
+
+    private static final String PREFIX = "ORD";
+
+    // Plus grand numéro déjà attribué, en numérique : reste juste au-delà de 999999
+    private static final String MAX_ORDER_NUMBER_SQL =
+            "SELECT MAX(CAST(SUBSTRING_INDEX(order_number, '-', -1) AS UNSIGNED)) FROM orders "
+                    + "WHERE order_number LIKE ?";
+
+    private final BlockSequenceAllocator allocator;
+
+    public OrderNumberAllocator(DataSourceProperties dataSourceProperties,
+                                @Value("${orders.number.block-size:100}") int blockSize) {
+        this.allocator = new BlockSequenceAllocator(
+                BlockSequenceAllocator.dedicatedDataSource(dataSourceProperties, "order-number-allocator"),
+                "order_number_segments", blockSize,
+                (jdbc, year) -> jdbc.queryForObject(MAX_ORDER_NUMBER_SQL, Long.class, PREFIX + "-" + year + "-%"));
+    }
+
+    /**
+     * Retourne le prochain numéro de commande de l'année en cours
+     */
+    public String nextOrderNumber() {
+        int year = Year.now().getValue();
+        return String.format("%s-%d-%06d", PREFIX, year, allocator.next(year));
+    }
+
+    @PreDestroy
+    void close() {
+        allocator.close();
+    }
+}
@@ -1,6 +1,7 @@
 package com.ghali.ecommerce.order.service;
 
 import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.order.cache.OrderDetailsCache;
 import com.ghali.ecommerce.order.kafka.OrderEventProducer;
 import com.ghali.ecommerce.order.model.Order;
 import com.ghali.ecommerce.order.model.OrderItem;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.Year;
 
 /**
  * Service de gestion des commandes
@@ -25,31 +25,55 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderEventProducer orderEventProducer;
-
-    public Order getOrderById(Long id) {
-        return orderRepository.findById(id)
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final OrderDetailsCache orderDetailsCache;
+
+    /**
+     * Détail d'une commande : lecture de sa version seule si le DTO de cette version
+     * est en cache, sinon commande + items en une requête
+     */
+    public OrderDTO getOrderDetails(Long id) {
+        OrderRepository.VersionView current = orderRepository.findVersionById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + id));
+        return getOrderDetails(current);
     }
 
-    public Order getOrderByNumber(String orderNumber) {
-        return orderRepository.findByOrderNumber(orderNumber)
+    public OrderDTO getOrderDetailsByNumber(String orderNumber) {
+        OrderRepository.VersionView current = orderRepository.findVersionByOrderNumber(orderNumber)
                 .orElseThrow(() -> new RuntimeException("Order not found with number: " + orderNumber));
+        return getOrderDetails(current);
+    }
+
+    private OrderDTO getOrderDetails(OrderRepository.VersionView current) {
+        OrderDTO cached = orderDetailsCache.get(current.getId(), current.getVersion());
+        if (cached != null) {
+            return cached;
+        }
+        Order order = getOrderById(current.getId());
+        OrderDTO orderDTO = order.toDTO();
+        orderDetailsCache.put(order.getVersion(), orderDTO);
+        return orderDTO;
+    }
+
+    public Order getOrderById(Long id) {
+        return orderRepository.findWithItemsById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + id));
     }
 
-    public Page<Order> getOrdersByCustomer(String customerId, Pageable pageable) {
-        return orderRepository.findByCustomerId(customerId, pageable);
+    public Page<OrderRepository.SummaryView> getOrdersByCustomer(String customerId, Pageable pageable) {
+        return orderRepository.findSummariesByCustomerId(customerId, pageable);
     }
 
-    public Page<Order> getOrdersByStatus(OrderDTO.OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatus(status, pageable);
+    public Page<OrderRepository.SummaryView> getOrdersByStatus(OrderDTO.OrderStatus status, Pageable pageable) {
+        return orderRepository.findSummariesByStatus(status, pageable);
     }
 
     @Transactional
-    public Order createOrder(Order order) {
+    public OrderDTO createOrder(Order order) {
         log.info("🛒 Creating new order for customer: {}", order.getCustomerId());
 
         // Générer numéro de commande
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberAllocator.nextOrderNumber());
 
         // Calculer montant total
         BigDecimal total = order.getItems().stream()
@@ -60,75 +84,78 @@ public class OrderService {
         Order savedOrder = orderRepository.save(order);
 
         // Publier événement ORDER_CREATED
-        orderEventProducer.publishOrderEvent("ORDER_CREATED", savedOrder);
+        OrderDTO createdOrder = publish("ORDER_CREATED", savedOrder);
 
         log.info("✅ Order created: {}", savedOrder.getOrderNumber());
-        return savedOrder;
+        return createdOrder;
     }
 
     @Transactional
-    public Order confirmOrder(Long orderId) {
+    public OrderDTO confirmOrder(Long orderId) {
         log.info("✅ Confirming order: {}", orderId);
         Order order = getOrderById(orderId);
 
         order.confirmOrder();
-        Order confirmedOrder = orderRepository.save(order);
 
         // Publier événement ORDER_CONFIRMED → déclenche facturation
-        orderEventProducer.publishOrderEvent("ORDER_CONFIRMED", confirmedOrder);
+        OrderDTO confirmedOrder = publish("ORDER_CONFIRMED", order);
 
         log.info("✅ Order confirmed and invoice will be generated: {}", confirmedOrder.getOrderNumber());
         return confirmedOrder;
     }
 
     @Transactional
-    public Order shipOrder(Long orderId) {
+    public OrderDTO shipOrder(Long orderId) {
         log.info("📦 Shipping order: {}", orderId);
         Order order = getOrderById(orderId);
 
         order.shipOrder();
-        Order shippedOrder = orderRepository.save(order);
 
         // Publier événement ORDER_SHIPPED
-        orderEventProducer.publishOrderEvent("ORDER_SHIPPED", shippedOrder);
+        OrderDTO shippedOrder = publish("ORDER_SHIPPED", order);
 
         log.info("✅ Order shipped: {}", shippedOrder.getOrderNumber());
         return shippedOrder;
     }
 
     @Transactional
-    public Order deliverOrder(Long orderId) {
+    public OrderDTO deliverOrder(Long orderId) {
         log.info("✨ Delivering order: {}", orderId);
         Order order = getOrderById(orderId);
 
         order.deliverOrder();
-        Order deliveredOrder = orderRepository.save(order);
 
         // Publier événement ORDER_DELIVERED
-        orderEventProducer.publishOrderEvent("ORDER_DELIVERED", deliveredOrder);
+        OrderDTO deliveredOrder = publish("ORDER_DELIVERED", order);
 
         log.info("✅ Order delivered: {}", deliveredOrder.getOrderNumber());
         return deliveredOrder;
     }
 
     @Transactional
-    public Order cancelOrder(Long orderId) {
+    public OrderDTO cancelOrder(Long orderId) {
         log.info("❌ Cancelling order: {}", orderId);
         Order order = getOrderById(orderId);
 
         order.cancelOrder();
-        Order cancelledOrder = orderRepository.save(order);
 
         // Publier événement ORDER_CANCELLED
-        orderEventProducer.publishOrderEvent("ORDER_CANCELLED", cancelledOrder);
+        OrderDTO cancelledOrder = publish("ORDER_CANCELLED", order);
 
         log.info("✅ Order cancelled: {}", cancelledOrder.getOrderNumber());
         return cancelledOrder;
     }
 
-    private String generateOrderNumber() {
-        String year = String.valueOf(Year.now().getValue());
-        long count = orderRepository.count() + 1;
-        return String.format("ORD-%s-%06d", year, count);
+    /**
+     * Écrit la commande puis construit son DTO une seule fois : il sert à l'événement
+     * Kafka, à la réponse HTTP et au cache des détails (après le commit)
+     */
+    private OrderDTO publish(String eventType, Order order) {
+        // flush : version et updatedAt à jour dans le DTO
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        OrderDTO orderDTO = savedOrder.toDTO();
+        orderEventProducer.publishOrderEvent(eventType, orderDTO);
+        orderDetailsCache.putAfterCommit(savedOrder.getVersion(), orderDTO);
+        return orderDTO;
     }
 }
@@ -0,0 +1,146 @@
+package com.ghali.ecommerce.order.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ghali.ecommerce.common.dto.KafkaEvent;
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.order.model.OrderOutboxEvent;
+import com.ghali.ecommerce.order.repository.OrderOutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relais de l'outbox : aucun verrou pendant les envois, reprise après un crash
+ * entre l'envoi et le marquage (mêmes eventId republiés)
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+// Le relais gère ses propres transactions, comme sous @Scheduled
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxRelayTest {
+
+    private static final int EVENTS = 3;
+    private static final long CLAIM_TTL_MS = 1000;
+
+    @SpyBean
+    private OrderOutboxEventRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> eventIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < EVENTS; i++) {
+            OrderDTO order = OrderDTO.builder().orderNumber("ORD-2026-00000" + i).build();
+            KafkaEvent<OrderDTO> event = KafkaEvent.create("ORDER_CREATED", "order-service", order, null);
+            outboxRepository.save(OrderOutboxEvent.builder()
+                    .eventId(event.getEventId())
+                    .eventType(event.getEventType())
+                    .topic("order-events")
+                    .messageKey(order.getOrderNumber())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build());
+            eventIds.add(event.getEventId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void eventsSentBeforeACrashAreRedeliveredWithTheSameEventIds() throws Exception {
+        List<String> firstRun = new ArrayList<>();
+        OrderOutboxRelay crashing = relay(firstRun, -1);
+        // Arrêt brutal : les accusés Kafka sont reçus, le marquage n'a jamais lieu
+        doThrow(new IllegalStateException("relay killed")).when(outboxRepository)
+                .markPublished(anyCollection(), any());
+        assertThatThrownBy(crashing::relay).hasMessage("relay killed");
+        reset(outboxRepository);
+
+        assertThat(firstRun).containsExactlyElementsOf(eventIds);
+        assertThat(outboxRepository.countByPublishedAtIsNull()).isEqualTo(EVENTS);
+
+        // Bail encore valide : un autre relais ne touche pas à la tête de l'outbox
+        List<String> secondRun = new ArrayList<>();
+        OrderOutboxRelay restarted = relay(secondRun, -1);
+        restarted.relay();
+        assertThat(secondRun).isEmpty();
+
+        Thread.sleep(CLAIM_TTL_MS + 50);
+        restarted.relay();
+
+        assertThat(secondRun).containsExactlyElementsOf(eventIds);
+        assertThat(outboxRepository.countByPublishedAtIsNull()).isZero();
+    }
+
+    @Test
+    void failedSendReleasesTheRestOfTheBatchForTheNextPass() {
+        List<String> sent = new ArrayList<>();
+        // Le deuxième envoi échoue : seul le premier événement est marqué publié
+        relay(sent, 1).relay();
+
+        assertThat(outboxRepository.countByPublishedAtIsNull()).isEqualTo(EVENTS - 1);
+        assertThat(outboxRepository.findAll()).filteredOn(event -> event.getPublishedAt() == null)
+                .allSatisfy(event -> assertThat(event.getClaimedBy()).isNull());
+
+        // Relancé aussitôt, sans attendre l'expiration du bail
+        List<String> retried = new ArrayList<>();
+        relay(retried, -1).relay();
+
+        assertThat(retried).containsExactlyElementsOf(eventIds.subList(1, EVENTS));
+        assertThat(outboxRepository.countByPublishedAtIsNull()).isZero();
+    }
+
+    /**
+     * Relais dont les envois sont enregistrés dans sent ; l'envoi n° failAt échoue (-1 : aucun)
+     */
+    @SuppressWarnings("unchecked")
+    private OrderOutboxRelay relay(List<String> sent, int failAt) {
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            if (sent.size() == failAt) {
+                sent.add(null);
+                return CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"));
+            }
+            sent.add(((KafkaEvent<?>) invocation.getArgument(2)).getEventId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        OrderOutboxRelay relay = new OrderOutboxRelay(outboxRepository, kafkaTemplate, objectMapper,
+                transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 500);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(relay, "claimTtlMs", CLAIM_TTL_MS);
+        return relay;
+    }
+}
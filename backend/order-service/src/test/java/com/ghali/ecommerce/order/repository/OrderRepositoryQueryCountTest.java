@@ -0,0 +1,112 @@
+package com.ghali.ecommerce.order.repository;
+
+import com.ghali.ecommerce.common.dto.OrderDTO;
+import com.ghali.ecommerce.order.model.Order;
+import com.ghali.ecommerce.order.model.OrderItem;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes des lectures exposées par OrderController : une régression N+1
+ * (items chargés commande par commande) fait échouer le build
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class OrderRepositoryQueryCountTest {
+
+    private static final int ORDERS = 5;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private Order first;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderNumber("ORD-2026-" + i)
+                    .customerId("customer-1")
+                    .status(OrderDTO.OrderStatus.CONFIRMED)
+                    .totalAmount(new BigDecimal("30.00"))
+                    .build();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                order.addItem(OrderItem.builder()
+                        .productId((long) j)
+                        .productName("Produit " + j)
+                        .quantity(1)
+                        .unitPrice(BigDecimal.TEN)
+                        .build());
+            }
+            entityManager.persist(order);
+            if (first == null) {
+                first = order;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerOrderListIsOneQueryWithoutLoadingItems() {
+        Page<OrderRepository.SummaryView> page = orderRepository.findSummariesByCustomerId("customer-1",
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertThat(page.getContent()).hasSize(ORDERS)
+                .allSatisfy(view -> assertThat(view.getItemCount()).isEqualTo(ITEMS_PER_ORDER));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void statusListPagesWithOneCountQuery() {
+        Page<OrderRepository.SummaryView> page = orderRepository.findSummariesByStatus(
+                OrderDTO.OrderStatus.CONFIRMED, PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        // Page + COUNT(*), quel que soit le nombre de commandes de la page
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void orderDetailsLoadItemsInTheSameQuery() {
+        OrderDTO details = orderRepository.findWithItemsById(first.getId()).orElseThrow().toDTO();
+
+        assertThat(details.getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void orderDetailsByNumberLoadItemsInTheSameQuery() {
+        OrderDTO details = orderRepository.findByOrderNumber(first.getOrderNumber()).orElseThrow().toDTO();
+
+        assertThat(details.getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
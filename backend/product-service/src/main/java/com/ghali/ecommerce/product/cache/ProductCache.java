@@ -0,0 +1,272 @@
+package com.ghali.ecommerce.product.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ghali.ecommerce.common.cache.NearCacheRegistry;
+import com.ghali.ecommerce.common.dto.CursorPageDTO;
+import com.ghali.ecommerce.common.dto.ProductDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache Redis des produits
+ *
+ * - un espace de clés par type de recherche : products:id:{id} (ProductDTO)
+ *   et products:sku:{sku} (ID du produit), sans mélange de types de valeurs
+ * - invalidation ciblée par produit, après le commit de la transaction
+ * - chaque produit a un compteur de version (products:version:{id}) incrémenté à
+ *   chaque écriture ; une lecture n'écrit en cache que si la version n'a pas bougé
+ *   depuis son chargement, donc une lecture lente ne peut pas écraser une donnée plus récente
+ * - premières pages des listes (products:listing:{génération}:{liste}) : toute modification
+ *   du catalogue incrémente la génération ; le stock affiché peut dater de listing-ttl-ms
+ * - niveau L1 Caffeine (near-cache.caches.products) devant Redis, invalidé sur toutes
+ *   les instances par pub/sub ; sa durée de vie borne la fenêtre de données périmées
+ * - métriques product.cache.requests (hit/miss par namespace, l1 pour le niveau local),
+ *   product.cache.evictions, product.cache.stale.puts
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private static final String NEAR_CACHE_NAME = "products";
+    private static final String LISTING_NEAR_CACHE_NAME = "product-listings";
+
+    private static final String ID_PREFIX = "products:id:";
+    private static final String SKU_PREFIX = "products:sku:";
+    private static final String VERSION_PREFIX = "products:version:";
+    private static final String LISTING_PREFIX = "products:listing:";
+    private static final String LISTING_GENERATION_KEY = "products:listing:generation";
+
+    private static final TypeReference<CursorPageDTO<ProductDTO>> LISTING_TYPE = new TypeReference<>() {
+    };
+
+    // Écrit l'entrée seulement si la version du produit est celle lue avant le chargement
+    private static final RedisScript<Long> PUT_IF_VERSION = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[2]) or '0'
+            if current ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // Nouvelle version + suppression de l'entrée, atomiquement
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>("""
+            local version = redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            redis.call('DEL', KEYS[1])
+            return version
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NearCacheRegistry nearCache;
+
+    private final Counter localHits;
+    private final Counter idHits;
+    private final Counter idMisses;
+    private final Counter skuHits;
+    private final Counter skuMisses;
+    private final Counter listingHits;
+    private final Counter listingMisses;
+    private final Counter evictions;
+    private final Counter stalePuts;
+
+    @Value("${products.cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    // Les compteurs de version doivent survivre aux lectures en cours
+    @Value("${products.cache.version-ttl-ms:86400000}")
+    private long versionTtlMs;
+
+    // Borne la fraîcheur du stock dans les listes (les mouvements de stock n'invalident pas)
+    @Value("${products.cache.listing-ttl-ms:30000}")
+    private long listingTtlMs;
+
+    public ProductCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                        NearCacheRegistry nearCache, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.nearCache = nearCache;
+        this.localHits = requests(meterRegistry, "l1", "hit");
+        this.idHits = requests(meterRegistry, "id", "hit");
+        this.idMisses = requests(meterRegistry, "id", "miss");
+        this.skuHits = requests(meterRegistry, "sku", "hit");
+        this.skuMisses = requests(meterRegistry, "sku", "miss");
+        this.listingHits = requests(meterRegistry, "listing", "hit");
+        this.listingMisses = requests(meterRegistry, "listing", "miss");
+        this.evictions = meterRegistry.counter("product.cache.evictions");
+        this.stalePuts = meterRegistry.counter("product.cache.stale.puts");
+    }
+
+    /**
+     * Lecture d'un produit par ID, chargé via le loader en cas d'absence
+     */
+    public ProductDTO getById(Long id, Supplier<ProductDTO> loader) {
+        ProductDTO local = (ProductDTO) nearCache.get(NEAR_CACHE_NAME, id);
+        if (local != null) {
+            localHits.increment();
+            return local;
+        }
+
+        String idKey = ID_PREFIX + id;
+        String versionKey = VERSION_PREFIX + id;
+        try {
+            String cached = redisTemplate.opsForValue().get(idKey);
+            if (cached != null) {
+                idHits.increment();
+                ProductDTO product = objectMapper.readValue(cached, ProductDTO.class);
+                nearCache.put(NEAR_CACHE_NAME, id, product);
+                return product;
+            }
+            idMisses.increment();
+
+            String version = redisTemplate.opsForValue().get(versionKey);
+            ProductDTO product = loader.get();
+
+            Long written = redisTemplate.execute(PUT_IF_VERSION, List.of(idKey, versionKey),
+                    version != null ? version : "0",
+                    objectMapper.writeValueAsString(product),
+                    String.valueOf(ttlMs));
+            if (written == null || written == 0) {
+                stalePuts.increment();
+                log.debug("Product {} changed while loading, not cached", id);
+            } else {
+                nearCache.put(NEAR_CACHE_NAME, id, product);
+            }
+            return product;
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Unreadable cache entry for product {}: {}", id, e.getMessage());
+            return loader.get();
+        }
+    }
+
+    /**
+     * ID du produit associé à un SKU, ou null si absent du cache
+     */
+    public Long getIdBySku(String sku) {
+        String cached = redisTemplate.opsForValue().get(SKU_PREFIX + sku);
+        if (cached == null) {
+            skuMisses.increment();
+            return null;
+        }
+        skuHits.increment();
+        return Long.valueOf(cached);
+    }
+
+    public void putSku(String sku, Long id) {
+        // Le SKU d'un produit ne change pas : pas besoin de version
+        redisTemplate.opsForValue().set(SKU_PREFIX + sku, String.valueOf(id), Duration.ofMillis(ttlMs));
+    }
+
+    /**
+     * Première page d'une liste de produits, chargée via le loader en cas d'absence
+     */
+    public CursorPageDTO<ProductDTO> getListing(String listingKey, Supplier<CursorPageDTO<ProductDTO>> loader) {
+        @SuppressWarnings("unchecked")
+        CursorPageDTO<ProductDTO> local = (CursorPageDTO<ProductDTO>) nearCache.get(LISTING_NEAR_CACHE_NAME, listingKey);
+        if (local != null) {
+            listingHits.increment();
+            return local;
+        }
+
+        try {
+            String generation = redisTemplate.opsForValue().get(LISTING_GENERATION_KEY);
+            generation = generation != null ? generation : "0";
+            String pageKey = LISTING_PREFIX + generation + ":" + listingKey;
+
+            String cached = redisTemplate.opsForValue().get(pageKey);
+            if (cached != null) {
+                listingHits.increment();
+                CursorPageDTO<ProductDTO> page = objectMapper.readValue(cached, LISTING_TYPE);
+                nearCache.put(LISTING_NEAR_CACHE_NAME, listingKey, page);
+                return page;
+            }
+            listingMisses.increment();
+
+            CursorPageDTO<ProductDTO> page = loader.get();
+            Long written = redisTemplate.execute(PUT_IF_VERSION, List.of(pageKey, LISTING_GENERATION_KEY),
+                    generation, objectMapper.writeValueAsString(page), String.valueOf(listingTtlMs));
+            if (written != null && written == 1) {
+                nearCache.put(LISTING_NEAR_CACHE_NAME, listingKey, page);
+            }
+            return page;
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Unreadable cached listing {}: {}", listingKey, e.getMessage());
+            return loader.get();
+        }
+    }
+
+    /**
+     * Invalide toutes les listes après le commit de la transaction en cours
+     * (les anciennes générations expirent d'elles-mêmes)
+     */
+    public void invalidateListings() {
+        afterCommit(this::invalidateListingsNow);
+    }
+
+    /**
+     * Invalide un produit après le commit de la transaction en cours
+     * (immédiatement s'il n'y a pas de transaction)
+     */
+    public void invalidate(Long id) {
+        afterCommit(() -> invalidateNow(id));
+    }
+
+    public void invalidateAll(Iterable<Long> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    private void invalidateNow(Long id) {
+        try {
+            redisTemplate.execute(INVALIDATE, List.of(ID_PREFIX + id, VERSION_PREFIX + id),
+                    String.valueOf(versionTtlMs));
+            nearCache.invalidate(NEAR_CACHE_NAME, id);
+            evictions.increment();
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to invalidate cached product {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void invalidateListingsNow() {
+        try {
+            redisTemplate.opsForValue().increment(LISTING_GENERATION_KEY);
+            nearCache.invalidateAll(LISTING_NEAR_CACHE_NAME);
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to invalidate cached product listings: {}", e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String namespace, String result) {
+        return Counter.builder("product.cache.requests")
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,14 +1,22 @@
 package com.ghali.ecommerce.product.controller;
 
+import com.ghali.ecommerce.common.dto.CursorPageDTO;
 import com.ghali.ecommerce.common.dto.ProductDTO;
+import com.ghali.ecommerce.common.dto.ProductFacetsDTO;
+import com.ghali.ecommerce.common.dto.StockReservationDTO;
+import com.ghali.ecommerce.common.dto.StockReservationItemDTO;
+import com.ghali.ecommerce.product.pagination.ProductKeyset;
+import com.ghali.ecommerce.product.search.ProductFacetQuery;
 import com.ghali.ecommerce.product.service.ProductService;
+import com.ghali.ecommerce.product.service.StockReservationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,24 +35,28 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockReservationService stockReservationService;
 
+    /**
+     * Liste paginée par curseur : passer nextCursor de la réponse pour la page suivante
+     * (page reste accepté sans curseur pour un accès direct à un numéro de page)
+     */
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getAllProducts(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "ASC") String sortDir
     ) {
         log.info("📦 GET /api/products - page: {}, size: {}", page, size);
-        
-        Sort sort = sortDir.equalsIgnoreCase("DESC") 
-                ? Sort.by(sortBy).descending() 
-                : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<ProductDTO> products = productService.getAllProducts(pageable);
-        
-        return ResponseEntity.ok(products);
+        try {
+            ProductKeyset keyset = ProductKeyset.of(sortBy, sortDir);
+            return ResponseEntity.ok(productService.getAllProducts(keyset, cursor, page, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid product listing request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -67,28 +79,36 @@ public class ProductController {
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<ProductDTO>> getProductsByCategory(
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByCategory(
             @PathVariable String category,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
         log.info("📂 GET /api/products/category/{}", category);
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ProductDTO> products = productService.getProductsByCategory(category, pageable);
-        return ResponseEntity.ok(products);
+        try {
+            return ResponseEntity.ok(productService.getProductsByCategory(category, cursor, page, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid cursor for category {}: {}", category, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/price-range")
-    public ResponseEntity<Page<ProductDTO>> getProductsByPriceRange(
+    public ResponseEntity<CursorPageDTO<ProductDTO>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
         log.info("💰 GET /api/products/price-range?min={}&max={}", minPrice, maxPrice);
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ProductDTO> products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
-        return ResponseEntity.ok(products);
+        try {
+            return ResponseEntity.ok(productService.getProductsByPriceRange(minPrice, maxPrice, cursor, page, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid cursor for price range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/categories")
@@ -98,6 +118,35 @@ public class ProductController {
         return ResponseEntity.ok(categories);
     }
 
+    /**
+     * Facettes (catégories, tranches de prix, notes, stock, tags) pour les filtres donnés
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) List<String> tags
+    ) {
+        log.info("📂 GET /api/products/facets?category={}", category);
+        ProductFacetQuery query = ProductFacetQuery.builder()
+                .category(category)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .inStock(inStock)
+                .tags(tags)
+                .build();
+        // Index en construction au démarrage : le client peut réessayer
+        return productService.getFacets(query)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
     @PostMapping
     public ResponseEntity<ProductDTO> createProduct(@Valid @RequestBody ProductDTO productDTO) {
         log.info("✨ POST /api/products - Creating: {}", productDTO.getName());
@@ -132,6 +181,30 @@ public class ProductController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Réserver le stock de tous les articles d'une commande en un seul appel
+     */
+    @PostMapping("/stock/reservations")
+    public ResponseEntity<StockReservationDTO> reserveStock(
+            @RequestBody @NotEmpty List<@Valid StockReservationItemDTO> items
+    ) {
+        log.info("📊 POST /api/products/stock/reservations - {} items", items.size());
+        StockReservationDTO reservation = stockReservationService.reserve(items);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+    }
+
+    @PostMapping("/stock/reservations/{reservationId}/commit")
+    public ResponseEntity<StockReservationDTO> commitStockReservation(@PathVariable String reservationId) {
+        log.info("✅ POST /api/products/stock/reservations/{}/commit", reservationId);
+        return ResponseEntity.ok(stockReservationService.commit(reservationId));
+    }
+
+    @PostMapping("/stock/reservations/{reservationId}/release")
+    public ResponseEntity<StockReservationDTO> releaseStockReservation(@PathVariable String reservationId) {
+        log.info("↩️ POST /api/products/stock/reservations/{}/release", reservationId);
+        return ResponseEntity.ok(stockReservationService.release(reservationId));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Product service is running! 📦");
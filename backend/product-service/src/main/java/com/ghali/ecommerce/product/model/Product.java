@@ -19,7 +19,12 @@ import java.util.List;
 @Table(name = "products", indexes = {
         @Index(name = "idx_sku", columnList = "sku", unique = true),
         @Index(name = "idx_category", columnList = "category"),
-        @Index(name = "idx_active", columnList = "active")
+        @Index(name = "idx_active", columnList = "active"),
+        // Pagination keyset : (active, clé de tri, id), l'ID départage les égalités
+        @Index(name = "idx_active_name", columnList = "active, name, id"),
+        @Index(name = "idx_active_category", columnList = "active, category, id"),
+        @Index(name = "idx_active_price", columnList = "active, price, id"),
+        @Index(name = "idx_active_created_at", columnList = "active, created_at, id")
 })
 @Data
 @Builder
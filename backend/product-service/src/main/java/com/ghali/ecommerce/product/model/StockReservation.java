@@ -0,0 +1,66 @@
+package com.ghali.ecommerce.product.model;
+
+import com.ghali.ecommerce.common.dto.StockReservationDTO;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entité StockReservation - Stock réservé pour un checkout
+ * Le stock est décrémenté à la réservation ; un RELEASED le restitue
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_reservation_id", columnList = "reservation_id", unique = true),
+        @Index(name = "idx_reservation_status", columnList = "status, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "reservation_id", unique = true, nullable = false, length = 36)
+    private String reservationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private StockReservationDTO.ReservationStatus status = StockReservationDTO.ReservationStatus.PENDING;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "stock_reservation_items", joinColumns = @JoinColumn(name = "stock_reservation_id"))
+    @Builder.Default
+    private List<StockReservationItem> items = new ArrayList<>();
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isPending() {
+        return status == StockReservationDTO.ReservationStatus.PENDING;
+    }
+}
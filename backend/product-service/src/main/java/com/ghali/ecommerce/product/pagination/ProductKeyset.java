@@ -0,0 +1,149 @@
+package com.ghali.ecommerce.product.pagination;
+
+import com.ghali.ecommerce.product.model.Product;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ordre de tri d'une liste de produits et curseurs keyset associés
+ *
+ * Le curseur encode la clé de tri, le numéro de la page qu'il ouvre et l'ID du
+ * dernier produit renvoyé :
+ * la page suivante reprend par WHERE (clé, id) > (valeur, id) au lieu d'un OFFSET,
+ * donc son coût ne dépend pas de la profondeur. Seules des colonnes non nulles sont
+ * acceptées comme clé de tri (une valeur NULL casserait la comparaison keyset).
+ */
+public final class ProductKeyset {
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+
+    public enum SortKey {
+        ID("id", Product::getId, Long::valueOf),
+        NAME("name", Product::getName, value -> value),
+        PRICE("price", p -> p.getPrice().toPlainString(), BigDecimal::new),
+        CREATED_AT("createdAt", Product::getCreatedAt, LocalDateTime::parse);
+
+        private final String property;
+        private final Function<Product, Object> extractor;
+        private final Function<String, Object> parser;
+
+        SortKey(String property, Function<Product, Object> extractor, Function<String, Object> parser) {
+            this.property = property;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public static SortKey fromProperty(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equals(property)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+    }
+
+    private final SortKey key;
+    private final Sort.Direction direction;
+
+    private ProductKeyset(SortKey key, Sort.Direction direction) {
+        this.key = key;
+        this.direction = direction;
+    }
+
+    public static ProductKeyset of(String sortBy, String sortDir) {
+        return new ProductKeyset(SortKey.fromProperty(sortBy),
+                "DESC".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC);
+    }
+
+    public static ProductKeyset by(SortKey key) {
+        return new ProductKeyset(key, Sort.Direction.ASC);
+    }
+
+    /**
+     * Tri complet : clé demandée puis ID pour départager les égalités
+     */
+    public Sort sort() {
+        return key == SortKey.ID
+                ? Sort.by(direction, ID)
+                : Sort.by(direction, key.property, ID);
+    }
+
+    /**
+     * Position de reprise décodée depuis le curseur (début de liste si null)
+     */
+    public ScrollPosition position(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts = decode(cursor);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            if (key != SortKey.ID) {
+                keys.put(key.property, key.parser.apply(parts[4]));
+            }
+            keys.put(ID, Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Numéro de la page ouverte par le curseur (0 sans curseur)
+     */
+    public int pageNumber(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(decode(cursor)[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Curseur pointant juste après le produit donné, ouvrant la page nextPage
+     */
+    public String cursorAfter(Product last, int nextPage) {
+        String token = key.property + SEPARATOR + direction.name() + SEPARATOR + nextPage
+                + SEPARATOR + last.getId() + SEPARATOR + key.extractor.apply(last);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Identifiant de l'ordre de tri, pour les clés de cache
+     */
+    public String cacheKey() {
+        return key.property + ":" + direction.name();
+    }
+
+    /**
+     * Champs du curseur : clé, sens, page, ID, valeur de la clé (peut contenir le séparateur)
+     */
+    private String[] decode(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, 5);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // Un curseur n'est valable que pour l'ordre de tri qui l'a produit
+        if (parts.length != 5 || !key.property.equals(parts[0]) || !direction.name().equals(parts[1])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return parts;
+    }
+}
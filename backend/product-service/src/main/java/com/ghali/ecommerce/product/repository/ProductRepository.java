@@ -1,14 +1,20 @@
 package com.ghali.ecommerce.product.repository;
 
 import com.ghali.ecommerce.product.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,20 +27,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Page<Product> findByActiveTrue(Pageable pageable);
 
+    // Lecture du catalogue par tranches de clé (reconstruction des index en mémoire)
+    List<Product> findByActiveTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
     List<Product> findByActiveTrueAndStockQuantityGreaterThan(int threshold);
 
+    // Listes paginées par curseur (keyset) : pas d'OFFSET ni de COUNT(*)
+    Window<Product> findByActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findByCategoryAndActiveTrue(String category, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Product> findByPriceBetweenAndActiveTrue(BigDecimal minPrice, BigDecimal maxPrice,
+                                                    ScrollPosition position, Sort sort, Limit limit);
+
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Product> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE p.category = :category AND p.active = true")
-    Page<Product> findByCategoryAndActive(@Param("category") String category, Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.active = true")
-    Page<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, 
-                                    @Param("maxPrice") BigDecimal maxPrice, 
-                                    Pageable pageable);
-
     @Query("SELECT p FROM Product p WHERE p.rating >= :minRating AND p.active = true")
     List<Product> findByMinRating(@Param("minRating") Double minRating);
 
@@ -43,4 +52,13 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category = :category AND p.active = true")
     long countByCategory(@Param("category") String category);
+
+    long countByActiveTrue();
+
+    @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockQuantities(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :id")
+    int increaseStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,26 @@
+package com.ghali.ecommerce.product.repository;
+
+import com.ghali.ecommerce.common.dto.StockReservationDTO;
+import com.ghali.ecommerce.product.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.reservationId = :reservationId")
+    Optional<StockReservation> findForUpdate(@Param("reservationId") String reservationId);
+
+    @Query("SELECT r.reservationId FROM StockReservation r WHERE r.status = :status AND r.createdAt < :before")
+    List<String> findReservationIdsCreatedBefore(@Param("status") StockReservationDTO.ReservationStatus status,
+                                                 @Param("before") LocalDateTime before);
+}
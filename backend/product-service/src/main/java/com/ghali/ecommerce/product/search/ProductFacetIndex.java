@@ -0,0 +1,497 @@
+package com.ghali.ecommerce.product.search;
+
+import com.ghali.ecommerce.common.dto.ProductFacetsDTO;
+import com.ghali.ecommerce.product.model.Product;
+import com.ghali.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Index à facettes en mémoire des produits actifs
+ *
+ * Chaque produit occupe un slot ; les colonnes (prix, note, catégorie, tags) sont
+ * des tableaux indexés par slot et les valeurs filtrables sont des BitSet de slots.
+ * Une requête combine les filtres par AND de bitsets puis compte chaque facette en un
+ * seul parcours des slots retenus (nextSetBit), depuis les colonnes, sans requête SQL.
+ *
+ * Construit et tenu à jour par ProductIndexSync (même lecture du catalogue que
+ * l'index de recherche).
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private static final int STOCK_REFRESH_BATCH_SIZE = 500;
+    private static final int TOP_TAGS = 20;
+    private static final int MAX_RATING = 5;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Bornes inférieures des tranches de prix (la dernière tranche est ouverte)
+    @Value("${products.facets.price-buckets:0,25,50,100,250,500,1000}")
+    private double[] priceBounds;
+
+    // Remplacé d'un bloc par replace() après chaque reconstruction
+    private Facets facets;
+
+    // Produits dont le stock a changé sans passer par index()
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        Arrays.sort(priceBounds);
+        facets = new Facets();
+    }
+
+    /**
+     * Nouvel index vide, rempli hors verrou puis installé par replace()
+     */
+    public Builder builder() {
+        return new Builder(new Facets());
+    }
+
+    /**
+     * Remplace l'index courant par celui construit : les requêtes ne sont
+     * bloquées que le temps de l'échange de référence
+     */
+    public void replace(Builder builder) {
+        lock.writeLock().lock();
+        try {
+            facets = builder.facets;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("✅ Product facet index installed: {} products, {} categories, {} tags",
+                builder.facets.slots.size(), builder.facets.byCategory.size(), builder.facets.byTag.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ajoute ou remplace un produit dans l'index (retiré s'il est inactif)
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            facets.remove(product.getId());
+            facets.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            facets.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Signale un mouvement de stock déjà commité : la facette "en stock"
+     * des produits sera relue en base au prochain refreshStock()
+     */
+    public void markStockChanged(Collection<Long> productIds) {
+        stockChanged.addAll(productIds);
+    }
+
+    /**
+     * Relit le stock des produits signalés ; en cas d'échec, les produits non
+     * relus restent signalés pour le passage suivant
+     */
+    public void refreshStock() {
+        if (!ready || stockChanged.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(stockChanged);
+        stockChanged.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += STOCK_REFRESH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + STOCK_REFRESH_BATCH_SIZE, ids.size()));
+            List<Object[]> levels;
+            try {
+                levels = productRepository.findStockQuantities(batch);
+            } catch (RuntimeException e) {
+                stockChanged.addAll(ids.subList(from, ids.size()));
+                log.warn("⚠️ Failed to refresh stock facet for {} products: {}", ids.size() - from, e.getMessage());
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Object[] level : levels) {
+                    facets.setInStock((Long) level[0], ((Integer) level[1]) > 0);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Catégories ayant au moins un produit actif, par ordre alphabétique
+     */
+    public List<String> categories() {
+        lock.readLock().lock();
+        try {
+            return facets.byCategory.keySet().stream().sorted().collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de produits actifs correspondant aux filtres
+     */
+    public long count(ProductFacetQuery query) {
+        lock.readLock().lock();
+        try {
+            return facets.intersect(facets.filters(query), null).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compte toutes les facettes pour une combinaison de filtres
+     */
+    public ProductFacetsDTO facets(ProductFacetQuery query) {
+        lock.readLock().lock();
+        try {
+            return facets.count(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index en cours de construction (un seul thread, pas de verrou)
+     */
+    public static final class Builder {
+
+        private final Facets facets;
+
+        private Builder(Facets facets) {
+            this.facets = facets;
+        }
+
+        public void add(Product product) {
+            facets.add(product);
+        }
+    }
+
+    private final class Facets {
+
+        // productId -> slot
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private int slotCount;
+
+        // Colonnes par slot
+        private double[] prices = new double[0];
+        private double[] ratings = new double[0];
+        private String[] categories = new String[0];
+        private String[][] tags = new String[0][];
+
+        // Tranche de prix et note entière par slot (-1 sans prix / sans note)
+        private int[] priceBuckets = new int[0];
+        private int[] ratingFloors = new int[0];
+
+        // Bitsets des valeurs filtrables
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final Map<String, BitSet> byCategory = new HashMap<>();
+        private final Map<String, BitSet> byTag = new HashMap<>();
+
+        private ProductFacetsDTO count(ProductFacetQuery query) {
+            Filters filters = filters(query);
+            BitSet matching = intersect(filters, null);
+
+            // Chaque facette est comptée sur les produits passant les autres filtres :
+            // un parcours de cette base par facette, sans copie ni intersection par valeur
+            Map<String, long[]> categoryCounts = new HashMap<>();
+            BitSet categoryBase = base(filters, filters.category, matching);
+            for (int slot = categoryBase.nextSetBit(0); slot >= 0; slot = categoryBase.nextSetBit(slot + 1)) {
+                if (categories[slot] != null) {
+                    categoryCounts.computeIfAbsent(categories[slot], c -> new long[1])[0]++;
+                }
+            }
+
+            long[] priceCounts = new long[priceBounds.length];
+            BitSet priceBase = base(filters, filters.price, matching);
+            for (int slot = priceBase.nextSetBit(0); slot >= 0; slot = priceBase.nextSetBit(slot + 1)) {
+                if (priceBuckets[slot] >= 0) {
+                    priceCounts[priceBuckets[slot]]++;
+                }
+            }
+            List<ProductFacetsDTO.PriceRange> priceRanges = new ArrayList<>();
+            for (int i = 0; i < priceBounds.length; i++) {
+                priceRanges.add(ProductFacetsDTO.PriceRange.builder()
+                        .min(BigDecimal.valueOf(priceBounds[i]))
+                        .max(i + 1 < priceBounds.length ? BigDecimal.valueOf(priceBounds[i + 1]) : null)
+                        .count(priceCounts[i])
+                        .build());
+            }
+
+            // Comptes par note entière, puis cumulés : "4 et plus" = 4 + 5
+            long[] ratingCounts = new long[MAX_RATING + 1];
+            BitSet ratingBase = base(filters, filters.rating, matching);
+            for (int slot = ratingBase.nextSetBit(0); slot >= 0; slot = ratingBase.nextSetBit(slot + 1)) {
+                if (ratingFloors[slot] >= 0) {
+                    ratingCounts[ratingFloors[slot]]++;
+                }
+            }
+            Map<Integer, Long> minRatings = new LinkedHashMap<>();
+            long atLeast = 0;
+            for (int rating = MAX_RATING; rating >= 1; rating--) {
+                atLeast += ratingCounts[rating];
+                minRatings.put(rating, atLeast);
+            }
+
+            long inStockCount = 0;
+            BitSet stockBase = base(filters, filters.inStock, matching);
+            for (int slot = stockBase.nextSetBit(0); slot >= 0; slot = stockBase.nextSetBit(slot + 1)) {
+                if (inStock.get(slot)) {
+                    inStockCount++;
+                }
+            }
+
+            Map<String, long[]> tagCounts = new HashMap<>();
+            BitSet tagBase = base(filters, filters.tags, matching);
+            for (int slot = tagBase.nextSetBit(0); slot >= 0; slot = tagBase.nextSetBit(slot + 1)) {
+                for (String tag : tags[slot]) {
+                    tagCounts.computeIfAbsent(tag, t -> new long[1])[0]++;
+                }
+            }
+            PriorityQueue<Map.Entry<String, Long>> topTags = new PriorityQueue<>(Map.Entry.comparingByValue());
+            tagCounts.forEach((tag, count) -> {
+                topTags.add(Map.entry(tag, count[0]));
+                if (topTags.size() > TOP_TAGS) {
+                    topTags.poll();
+                }
+            });
+
+            return ProductFacetsDTO.builder()
+                    .total(matching.cardinality())
+                    .categories(sortedByCount(categoryCounts.entrySet().stream()
+                            .map(entry -> Map.entry(entry.getKey(), entry.getValue()[0]))
+                            .collect(Collectors.toList())))
+                    .priceRanges(priceRanges)
+                    .minRatings(minRatings)
+                    .inStock(inStockCount)
+                    .tags(sortedByCount(new ArrayList<>(topTags)))
+                    .build();
+        }
+
+        private Filters filters(ProductFacetQuery query) {
+            Filters filters = new Filters();
+            if (query.getCategory() != null) {
+                filters.category = byCategory.getOrDefault(query.getCategory(), new BitSet());
+            }
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                double min = query.getMinPrice() != null ? query.getMinPrice().doubleValue() : Double.NEGATIVE_INFINITY;
+                double max = query.getMaxPrice() != null ? query.getMaxPrice().doubleValue() : Double.POSITIVE_INFINITY;
+                filters.price = scan(prices, min, max);
+            }
+            if (query.getMinRating() != null) {
+                filters.rating = scan(ratings, query.getMinRating(), Double.POSITIVE_INFINITY);
+            }
+            if (Boolean.TRUE.equals(query.getInStock())) {
+                filters.inStock = inStock;
+            }
+            if (query.getTags() != null && !query.getTags().isEmpty()) {
+                BitSet tagged = null;
+                for (String tag : query.getTags()) {
+                    BitSet bits = byTag.getOrDefault(tag, new BitSet());
+                    if (tagged == null) {
+                        tagged = (BitSet) bits.clone();
+                    } else {
+                        tagged.and(bits);
+                    }
+                }
+                filters.tags = tagged;
+            }
+            return filters;
+        }
+
+        /**
+         * Produits actifs passant tous les filtres sauf celui de la facette comptée
+         */
+        private BitSet intersect(Filters filters, BitSet skipped) {
+            BitSet result = (BitSet) live.clone();
+            for (BitSet filter : filters.all()) {
+                if (filter != null && filter != skipped) {
+                    result.and(filter);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Base d'une facette : la sélection complète si la facette n'est pas filtrée
+         */
+        private BitSet base(Filters filters, BitSet skipped, BitSet matching) {
+            return skipped == null ? matching : intersect(filters, skipped);
+        }
+
+        /**
+         * Parcours d'une colonne numérique sur les slots actifs (bornes incluses, NaN exclus)
+         */
+        private BitSet scan(double[] column, double min, double max) {
+            BitSet result = new BitSet();
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                double value = column[slot];
+                if (value >= min && value <= max) {
+                    result.set(slot);
+                }
+            }
+            return result;
+        }
+
+        private void setInStock(Long productId, boolean available) {
+            Integer slot = slots.get(productId);
+            if (slot != null) {
+                inStock.set(slot, available);
+            }
+        }
+
+        private void add(Product product) {
+            if (product.getId() == null || !Boolean.TRUE.equals(product.getActive())) {
+                return;
+            }
+
+            int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            ensureCapacity(slot + 1);
+            slots.put(product.getId(), slot);
+
+            prices[slot] = product.getPrice() != null ? product.getPrice().doubleValue() : Double.NaN;
+            ratings[slot] = product.getRating() != null ? product.getRating() : Double.NaN;
+            categories[slot] = product.getCategory();
+            tags[slot] = product.getTags() != null
+                    ? product.getTags().stream().distinct().toArray(String[]::new)
+                    : new String[0];
+
+            live.set(slot);
+            inStock.set(slot, product.isInStock());
+            if (categories[slot] != null) {
+                byCategory.computeIfAbsent(categories[slot], c -> new BitSet()).set(slot);
+            }
+            for (String tag : tags[slot]) {
+                byTag.computeIfAbsent(tag, t -> new BitSet()).set(slot);
+            }
+            priceBuckets[slot] = Double.isNaN(prices[slot]) ? -1 : priceBucket(prices[slot]);
+            ratingFloors[slot] = Double.isNaN(ratings[slot])
+                    ? -1
+                    : (int) Math.min(MAX_RATING, Math.max(0, Math.floor(ratings[slot])));
+        }
+
+        private void remove(Long productId) {
+            Integer slot = slots.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            clearSlot(slot);
+            freeSlots.push(slot);
+        }
+
+        private void clearSlot(int slot) {
+            live.clear(slot);
+            inStock.clear(slot);
+            clearValue(byCategory, categories[slot], slot);
+            for (String tag : tags[slot]) {
+                clearValue(byTag, tag, slot);
+            }
+            categories[slot] = null;
+            tags[slot] = new String[0];
+        }
+
+        private int priceBucket(double price) {
+            int bucket = 0;
+            while (bucket + 1 < priceBounds.length && price >= priceBounds[bucket + 1]) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= prices.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, Math.max(1024, prices.length * 2));
+            prices = Arrays.copyOf(prices, newCapacity);
+            ratings = Arrays.copyOf(ratings, newCapacity);
+            categories = Arrays.copyOf(categories, newCapacity);
+            priceBuckets = Arrays.copyOf(priceBuckets, newCapacity);
+            ratingFloors = Arrays.copyOf(ratingFloors, newCapacity);
+            int oldCapacity = tags.length;
+            tags = Arrays.copyOf(tags, newCapacity);
+            Arrays.fill(tags, oldCapacity, newCapacity, new String[0]);
+        }
+    }
+
+    private static void clearValue(Map<String, BitSet> facet, String value, int slot) {
+        if (value == null) {
+            return;
+        }
+        BitSet bits = facet.get(value);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                facet.remove(value);
+            }
+        }
+    }
+
+    private static Map<String, Long> sortedByCount(List<Map.Entry<String, Long>> entries) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        entries.stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private static final class Filters {
+        private BitSet category;
+        private BitSet price;
+        private BitSet rating;
+        private BitSet inStock;
+        private BitSet tags;
+
+        private List<BitSet> all() {
+            return Arrays.asList(category, price, rating, inStock, tags);
+        }
+    }
+}
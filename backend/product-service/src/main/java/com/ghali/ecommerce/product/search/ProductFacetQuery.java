@@ -0,0 +1,27 @@
+package com.ghali.ecommerce.product.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Filtres combinés d'une requête à facettes (null = pas de filtre)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetQuery {
+
+    private String category;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Double minRating;
+    private Boolean inStock;
+    // Le produit doit porter tous les tags
+    private List<String> tags;
+}
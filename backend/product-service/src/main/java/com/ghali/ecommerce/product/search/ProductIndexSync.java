@@ -0,0 +1,297 @@
+package com.ghali.ecommerce.product.search;
+
+import com.ghali.ecommerce.product.model.Product;
+import com.ghali.ecommerce.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Construction et mise à jour des index en mémoire du catalogue
+ *
+ * - reconstruction : les produits actifs sont lus par tranches de clé (id > dernier id),
+ *   chaque tranche dans sa propre transaction, vers un index neuf installé ensuite
+ *   d'un bloc ; les recherches continuent sur l'ancien index pendant la lecture
+ * - écritures locales : appliquées après le commit, puis diffusées aux autres
+ *   instances par pub/sub Redis (message : instanceId|type|id,id... ; P produit, S stock)
+ * - écritures reçues d'une autre instance : produits relus en base par lots,
+ *   stocks relus par l'index à facettes
+ * - reconstruction complète périodique, qui rattrape les messages pub/sub perdus
+ */
+@Component
+@Slf4j
+public class ProductIndexSync implements MessageListener {
+
+    private static final String SEPARATOR = "|";
+    private static final String PRODUCT = "P";
+    private static final String STOCK = "S";
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final TransactionTemplate readTransaction;
+
+    // Produits à relire en base : modifiés ailleurs, ou pendant une reconstruction
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    // Une reconstruction et une relecture ne s'exécutent jamais en même temps
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean rebuilding;
+
+    @Value("${products.index.channel:products:index-changes}")
+    private String channel;
+
+    @Value("${products.index.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    public ProductIndexSync(ProductRepository productRepository,
+                            ProductSearchIndex productSearchIndex,
+                            ProductFacetIndex productFacetIndex,
+                            StringRedisTemplate redisTemplate,
+                            RedisMessageListenerContainer listenerContainer,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruit les index depuis la base, en une seule lecture du catalogue
+     */
+    @Scheduled(initialDelayString = "${products.index.full-rebuild-interval-ms:3600000}",
+            fixedDelayString = "${products.index.full-rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        refreshLock.lock();
+        rebuilding = true;
+        try {
+            log.info("🔎 Building product indexes...");
+            long start = System.currentTimeMillis();
+
+            ProductSearchIndex.Builder search = productSearchIndex.builder();
+            ProductFacetIndex.Builder facets = productFacetIndex.builder();
+            int productCount = forEachActive(product -> {
+                search.add(product);
+                facets.add(product);
+            });
+            productSearchIndex.replace(search);
+            productFacetIndex.replace(facets);
+
+            log.info("✅ Product indexes built from {} products in {} ms",
+                    productCount, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("❌ Failed to build product indexes: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Indexe un produit créé ou modifié, après le commit de la transaction en cours
+     */
+    public void productChanged(Product product) {
+        afterCommit(() -> {
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+            propagate(product.getId());
+        });
+    }
+
+    /**
+     * Retire un produit des index, après le commit de la transaction en cours
+     */
+    public void productRemoved(Long productId) {
+        afterCommit(() -> {
+            productSearchIndex.remove(productId);
+            productFacetIndex.remove(productId);
+            propagate(productId);
+        });
+    }
+
+    /**
+     * Signale des mouvements de stock : la facette "en stock" est relue après le commit,
+     * ici et sur les autres instances
+     */
+    public void stockChanged(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        afterCommit(() -> {
+            productFacetIndex.markStockChanged(ids);
+            publish(STOCK, ids);
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        List<Long> ids;
+        try {
+            ids = Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            log.warn("⚠️ Ignoring malformed product index message: {}", body);
+            return;
+        }
+        if (STOCK.equals(parts[1])) {
+            productFacetIndex.markStockChanged(ids);
+        } else {
+            pending.addAll(ids);
+        }
+    }
+
+    /**
+     * Relit en base les produits modifiés par les autres instances et les stocks signalés
+     */
+    @Scheduled(fixedDelayString = "${products.index.refresh-interval-ms:1000}")
+    public void refreshPending() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            productFacetIndex.refreshStock();
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            List<Long> ids = new ArrayList<>(pending);
+            pending.removeAll(ids);
+            for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+                try {
+                    reload(ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size())));
+                } catch (RuntimeException e) {
+                    // Relus au prochain passage
+                    pending.addAll(ids.subList(from, ids.size()));
+                    log.warn("⚠️ Failed to refresh {} indexed products: {}", ids.size() - from, e.getMessage());
+                    return;
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void reload(List<Long> ids) {
+        readTransaction.executeWithoutResult(status -> {
+            Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (Long id : ids) {
+                Product product = products.get(id);
+                if (product != null) {
+                    productSearchIndex.index(product);
+                    productFacetIndex.index(product);
+                } else {
+                    productSearchIndex.remove(id);
+                    productFacetIndex.remove(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Parcourt les produits actifs par ordre d'ID, une transaction courte par tranche :
+     * ni OFFSET ni COUNT, et le contexte de persistance est libéré à chaque tranche
+     *
+     * @return le nombre de produits lus
+     */
+    private int forEachActive(Consumer<Product> consumer) {
+        int productCount = 0;
+        Long lastId = 0L;
+        while (true) {
+            Long after = lastId;
+            List<Product> chunk = readTransaction.execute(status -> {
+                List<Product> products = productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        after, Limit.of(rebuildBatchSize));
+                products.forEach(consumer);
+                return products;
+            });
+            productCount += chunk.size();
+            if (chunk.size() < rebuildBatchSize) {
+                return productCount;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    private void propagate(Long productId) {
+        if (rebuilding) {
+            // L'index en construction a pu lire l'ancienne ligne : relu après l'installation
+            pending.add(productId);
+        }
+        publish(PRODUCT, List.of(productId));
+    }
+
+    private void publish(String type, List<Long> ids) {
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(channel, instanceId + SEPARATOR + type + SEPARATOR + joined);
+        } catch (RuntimeException e) {
+            // Les autres instances se recaleront à la prochaine reconstruction complète
+            log.warn("⚠️ Failed to publish product index change {} {}: {}", type, joined, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
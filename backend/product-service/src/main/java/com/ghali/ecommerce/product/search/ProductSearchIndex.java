@@ -0,0 +1,281 @@
+package com.ghali.ecommerce.product.search;
+
+import com.ghali.ecommerce.product.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire du catalogue produits
+ * Remplace les recherches LIKE '%kw%' (scan complet de la table) par un
+ * classement BM25 sur le nom, la description, les tags et la catégorie
+ *
+ * Construit et tenu à jour par ProductIndexSync
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    // Paramètres BM25 standards
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Un terme trouvé uniquement par préfixe compte moins qu'un terme exact
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    // Poids des champs (appliqués à la fréquence des termes)
+    private static final int NAME_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Remplacé d'un bloc par replace() après chaque reconstruction
+    private Postings postings = new Postings();
+
+    private volatile boolean ready;
+
+    /**
+     * Nouvel index vide, rempli hors verrou puis installé par replace()
+     */
+    public Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Remplace l'index courant par celui construit : les recherches ne sont
+     * bloquées que le temps de l'échange de référence
+     */
+    public void replace(Builder builder) {
+        lock.writeLock().lock();
+        try {
+            postings = builder.postings;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("✅ Product search index installed: {} products, {} terms",
+                builder.postings.documents.size(), builder.postings.termIndex.size());
+    }
+
+    /**
+     * Indique si l'index est construit et peut servir les recherches
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ajoute ou remplace un produit dans l'index (retiré s'il est inactif)
+     */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            postings.remove(product.getId());
+            postings.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un produit de l'index
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            postings.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les produits correspondant à tous les mots de la requête
+     * (correspondance exacte ou par préfixe), triés par score BM25 décroissant
+     *
+     * Seuls les limit meilleurs résultats sont classés (tas borné, O(n log k)) :
+     * l'appelant passe la fin de la page demandée
+     *
+     * @return les IDs des limit meilleurs produits et le nombre total de correspondances
+     */
+    public Hits search(String query, int limit) {
+        List<String> queryTerms = Tokenizer.tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new Hits(Collections.emptyList(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            return postings.search(queryTerms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param ids          meilleurs produits, du plus pertinent au moins pertinent
+     * @param totalMatches nombre de produits correspondant à la requête
+     */
+    public record Hits(List<Long> ids, int totalMatches) {
+    }
+
+    /**
+     * Index en cours de construction (un seul thread, pas de verrou)
+     */
+    public static final class Builder {
+
+        private final Postings postings = new Postings();
+
+        private Builder() {
+        }
+
+        public void add(Product product) {
+            postings.add(product);
+        }
+    }
+
+    private static final class Postings {
+
+        // Score décroissant, puis ID croissant à égalité
+        private static final Comparator<Map.Entry<Long, Double>> BEST_FIRST =
+                Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+        // terme -> (productId -> fréquence pondérée)
+        private final NavigableMap<String, Map<Long, Integer>> termIndex = new TreeMap<>();
+
+        // productId -> termes indexés (pour les mises à jour / suppressions)
+        private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+        // productId -> longueur pondérée du document
+        private final Map<Long, Integer> documentLengths = new HashMap<>();
+
+        private long totalLength;
+
+        private Hits search(List<String> queryTerms, int limit) {
+            if (documents.isEmpty()) {
+                return new Hits(Collections.emptyList(), 0);
+            }
+
+            double avgLength = (double) totalLength / documents.size();
+            Map<Long, Double> scores = null;
+
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = scoreTerm(queryTerm, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Intersection : chaque mot de la requête doit correspondre
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return new Hits(Collections.emptyList(), 0);
+                }
+            }
+
+            // Tas dont la tête est le moins bon résultat retenu
+            PriorityQueue<Map.Entry<Long, Double>> top =
+                    new PriorityQueue<>(Math.min(limit, scores.size()), BEST_FIRST.reversed());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                if (top.size() < limit) {
+                    top.add(entry);
+                } else if (BEST_FIRST.compare(entry, top.peek()) < 0) {
+                    top.poll();
+                    top.add(entry);
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(BEST_FIRST);
+            List<Long> ids = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> ids.add(entry.getKey()));
+            return new Hits(ids, scores.size());
+        }
+
+        /**
+         * Score BM25 d'un mot de la requête : terme exact + termes de même préfixe
+         */
+        private Map<Long, Double> scoreTerm(String queryTerm, double avgLength) {
+            Map<Long, Double> termScores = new HashMap<>();
+            NavigableMap<String, Map<Long, Integer>> matches =
+                    termIndex.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+
+            for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+                double weight = match.getKey().equals(queryTerm) ? 1.0 : PREFIX_WEIGHT;
+                Map<Long, Integer> docs = match.getValue();
+                double idf = Math.log(1 + (documents.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+
+                for (Map.Entry<Long, Integer> posting : docs.entrySet()) {
+                    int tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * documentLengths.get(posting.getKey()) / avgLength);
+                    double score = weight * idf * (tf * (K1 + 1)) / (tf + norm);
+                    // On garde la meilleure expansion pour ne pas favoriser les mots très déclinés
+                    termScores.merge(posting.getKey(), score, Math::max);
+                }
+            }
+            return termScores;
+        }
+
+        private void add(Product product) {
+            if (product.getId() == null || !Boolean.TRUE.equals(product.getActive())) {
+                return;
+            }
+
+            Map<String, Integer> terms = new HashMap<>();
+            addField(terms, product.getName(), NAME_WEIGHT);
+            addField(terms, product.getDescription(), DESCRIPTION_WEIGHT);
+            addField(terms, product.getCategory(), CATEGORY_WEIGHT);
+            if (product.getTags() != null) {
+                product.getTags().forEach(tag -> addField(terms, tag, TAG_WEIGHT));
+            }
+
+            int length = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                termIndex.computeIfAbsent(term.getKey(), k -> new HashMap<>())
+                        .put(product.getId(), term.getValue());
+                length += term.getValue();
+            }
+
+            documents.put(product.getId(), terms);
+            documentLengths.put(product.getId(), length);
+            totalLength += length;
+        }
+
+        private void remove(Long productId) {
+            Map<String, Integer> terms = documents.remove(productId);
+            if (terms == null) {
+                return;
+            }
+
+            for (String term : terms.keySet()) {
+                Map<Long, Integer> docs = termIndex.get(term);
+                if (docs != null) {
+                    docs.remove(productId);
+                    if (docs.isEmpty()) {
+                        termIndex.remove(term);
+                    }
+                }
+            }
+            totalLength -= documentLengths.remove(productId);
+        }
+
+        private static void addField(Map<String, Integer> terms, String text, int weight) {
+            for (String token : Tokenizer.tokenize(text)) {
+                terms.merge(token, weight, Integer::sum);
+            }
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package com.ghali.ecommerce.product.service;
 
+import com.ghali.ecommerce.common.dto.CursorPageDTO;
 import com.ghali.ecommerce.common.dto.ProductDTO;
+import com.ghali.ecommerce.common.dto.ProductFacetsDTO;
+import com.ghali.ecommerce.product.cache.ProductCache;
 import com.ghali.ecommerce.product.kafka.ProductEventProducer;
 import com.ghali.ecommerce.product.model.Product;
+import com.ghali.ecommerce.product.pagination.ProductKeyset;
 import com.ghali.ecommerce.product.repository.ProductRepository;
+import com.ghali.ecommerce.product.search.ProductFacetIndex;
+import com.ghali.ecommerce.product.search.ProductFacetQuery;
+import com.ghali.ecommerce.product.search.ProductIndexSync;
+import com.ghali.ecommerce.product.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 /**
  * Service de gestion des produits
@@ -27,53 +44,120 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductEventProducer productEventProducer;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductIndexSync productIndexSync;
+    private final StockReservationLedger stockReservationLedger;
+    private final ProductCache productCache;
+
+    @Value("${products.search.max-results:1000}")
+    private int searchMaxResults;
 
-    @Cacheable(value = "products", key = "#id")
     public ProductDTO getProductById(Long id) {
-        log.info("📦 Fetching product by ID: {}", id);
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
-        return mapToDTO(product);
+        return productCache.getById(id, () -> {
+            log.info("📦 Fetching product by ID: {}", id);
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
+            return mapToDTO(product);
+        });
     }
 
-    @Cacheable(value = "products", key = "#sku")
-    public Product DTOgetProductBySku(String sku) {
+    public ProductDTO getProductBySku(String sku) {
+        Long id = productCache.getIdBySku(sku);
+        if (id != null) {
+            return getProductById(id);
+        }
+
         log.info("📦 Fetching product by SKU: {}", sku);
-        return productRepository.findBySku(sku)
+        Product product = productRepository.findBySku(sku)
                 .orElseThrow(() -> new RuntimeException("Product not found with SKU: " + sku));
+        productCache.putSku(sku, product.getId());
+        return mapToDTO(product);
     }
 
-    public Page<ProductDTO> getAllProducts(Pageable pageable) {
+    /**
+     * Produits actifs paginés par curseur ; la première page de chaque tri est mise en cache
+     */
+    public CursorPageDTO<ProductDTO> getAllProducts(ProductKeyset keyset, String cursor, int page, int size) {
         log.info("📦 Fetching all active products");
-        return productRepository.findByActiveTrue(pageable)
-                .map(this::mapToDTO);
+        return list("all:" + keyset.cacheKey() + ":" + size, keyset, cursor, page, size,
+                position -> productRepository.findByActiveTrue(position, keyset.sort(), Limit.of(size)),
+                () -> count(ProductFacetQuery.builder().build(), productRepository::countByActiveTrue));
     }
 
     public Page<ProductDTO> searchProducts(String keyword, Pageable pageable) {
         log.info("🔍 Searching products with keyword: {}", keyword);
-        return productRepository.searchByKeyword(keyword, pageable)
-                .map(this::mapToDTO);
+
+        // Index pas encore construit (démarrage) : repli sur la requête JPQL
+        if (!productSearchIndex.isReady()) {
+            return productRepository.searchByKeyword(keyword, pageable)
+                    .map(this::mapToDTO);
+        }
+
+        // Seuls les résultats jusqu'à la fin de la page sont classés (au plus max-results)
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), searchMaxResults);
+        ProductSearchIndex.Hits hits = productSearchIndex.search(keyword, limit);
+        List<Long> rankedIds = hits.ids();
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+
+        // Charger uniquement la page demandée, puis restituer l'ordre de pertinence
+        Map<Long, Product> productsById = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductDTO> content = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(content, pageable, hits.totalMatches());
     }
 
-    public Page<ProductDTO> getProductsByCategory(String category, Pageable pageable) {
+    public CursorPageDTO<ProductDTO> getProductsByCategory(String category, String cursor, int page, int size) {
         log.info("📦 Fetching products by category: {}", category);
-        return productRepository.findByCategoryAndActive(category, pageable)
-                .map(this::mapToDTO);
+        ProductKeyset keyset = ProductKeyset.by(ProductKeyset.SortKey.ID);
+        return list("category:" + category + ":" + size, keyset, cursor, page, size,
+                position -> productRepository.findByCategoryAndActiveTrue(category, position, keyset.sort(), Limit.of(size)),
+                () -> count(ProductFacetQuery.builder().category(category).build(),
+                        () -> productRepository.countByCategory(category)));
     }
 
-    public Page<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+    /**
+     * Produits d'une gamme de prix, par prix croissant (non mis en cache : bornes libres)
+     */
+    public CursorPageDTO<ProductDTO> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice,
+                                                             String cursor, int page, int size) {
         log.info("💰 Fetching products in price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceRange(minPrice, maxPrice, pageable)
-                .map(this::mapToDTO);
+        ProductKeyset keyset = ProductKeyset.by(ProductKeyset.SortKey.PRICE);
+        return scroll(keyset, cursor, page, size,
+                position -> productRepository.findByPriceBetweenAndActiveTrue(minPrice, maxPrice,
+                        position, keyset.sort(), Limit.of(size)),
+                null);
     }
 
     public List<String> getAllCategories() {
         log.info("📂 Fetching all categories");
+        if (productFacetIndex.isReady()) {
+            return productFacetIndex.categories();
+        }
         return productRepository.findAllCategories();
     }
 
+    /**
+     * Toutes les facettes de la barre latérale en un seul appel, depuis l'index en mémoire
+     *
+     * @return vide tant que l'index n'est pas construit (démarrage)
+     */
+    public Optional<ProductFacetsDTO> getFacets(ProductFacetQuery query) {
+        log.info("📂 Computing product facets: {}", query);
+        if (!productFacetIndex.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(productFacetIndex.facets(query));
+    }
+
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductDTO createProduct(ProductDTO productDTO) {
         log.info("✨ Creating new product: {}", productDTO.getName());
         
@@ -84,6 +168,8 @@ public class ProductService {
 
         Product product = mapToEntity(productDTO);
         Product savedProduct = productRepository.save(product);
+        productIndexSync.productChanged(savedProduct);
+        productCache.invalidateListings();
         
         // Publier événement Kafka
         productEventProducer.publishProductEvent("PRODUCT_CREATED", savedProduct);
@@ -93,7 +179,6 @@ public class ProductService {
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#id")
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         log.info("🔄 Updating product ID: {}", id);
         
@@ -111,6 +196,9 @@ public class ProductService {
         existingProduct.setActive(productDTO.getActive());
         
         Product updatedProduct = productRepository.save(existingProduct);
+        productIndexSync.productChanged(updatedProduct);
+        productCache.invalidate(id);
+        productCache.invalidateListings();
         
         // Publier événement Kafka
         productEventProducer.publishProductEvent("PRODUCT_UPDATED", updatedProduct);
@@ -120,7 +208,6 @@ public class ProductService {
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#id")
     public void deleteProduct(Long id) {
         log.info("🗑️ Deleting product ID: {}", id);
         
@@ -130,6 +217,9 @@ public class ProductService {
         // Soft delete - désactiver le produit
         product.setActive(false);
         productRepository.save(product);
+        productIndexSync.productRemoved(id);
+        productCache.invalidate(id);
+        productCache.invalidateListings();
         
         // Publier événement Kafka
         productEventProducer.publishProductEvent("PRODUCT_DELETED", product);
@@ -138,21 +228,77 @@ public class ProductService {
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#productId")
     public void updateStock(Long productId, int quantityChange) {
         log.info("📊 Updating stock for product ID: {}, change: {}", productId, quantityChange);
-        
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
-        
+
+        // Pas de findById → save : mise à jour atomique en une seule requête ; les décréments
+        // concurrents sont regroupés par le registre et commités avant de répondre
+        boolean updated;
         if (quantityChange > 0) {
-            product.increaseStock(quantityChange);
+            updated = productRepository.increaseStock(productId, quantityChange) > 0;
         } else {
-            product.decreaseStock(Math.abs(quantityChange));
+            updated = stockReservationLedger.reserve(productId, Math.abs(quantityChange));
         }
-        
-        productRepository.save(product);
-        log.info("✅ Stock updated for product: {}, new stock: {}", product.getSku(), product.getStockQuantity());
+
+        if (!updated) {
+            if (!productRepository.existsById(productId)) {
+                throw new RuntimeException("Product not found with ID: " + productId);
+            }
+            throw new IllegalStateException("Stock insuffisant pour le produit ID: " + productId);
+        }
+        productCache.invalidate(productId);
+        productIndexSync.stockChanged(List.of(productId));
+
+        log.info("✅ Stock updated for product ID: {}, change: {}", productId, quantityChange);
+    }
+
+    /**
+     * Total d'une liste : depuis l'index à facettes s'il est construit, sinon COUNT(*)
+     */
+    private long count(ProductFacetQuery query, LongSupplier fallback) {
+        return productFacetIndex.isReady() ? productFacetIndex.count(query) : fallback.getAsLong();
+    }
+
+    /**
+     * Première page servie depuis le cache, pages suivantes lues directement en base
+     */
+    private CursorPageDTO<ProductDTO> list(String listingKey, ProductKeyset keyset, String cursor, int page, int size,
+                                           Function<ScrollPosition, Window<Product>> query, LongSupplier counter) {
+        if ((cursor == null || cursor.isBlank()) && page == 0) {
+            return productCache.getListing(listingKey, () -> scroll(keyset, null, 0, size, query, counter));
+        }
+        return scroll(keyset, cursor, page, size, query, null);
+    }
+
+    /**
+     * Lit une page à partir du curseur ; sans curseur, page > 0 reste accepté (OFFSET)
+     * pour les clients qui sautent directement à un numéro de page.
+     * Le total n'est compté que si un counter est fourni (première page).
+     */
+    private CursorPageDTO<ProductDTO> scroll(ProductKeyset keyset, String cursor, int page, int size,
+                                             Function<ScrollPosition, Window<Product>> query, LongSupplier counter) {
+        ScrollPosition position = (cursor == null || cursor.isBlank()) && page > 0
+                ? ScrollPosition.offset((long) page * size)
+                : keyset.position(cursor);
+        Window<Product> window = query.apply(position);
+
+        List<Product> products = window.getContent();
+        int number = cursor == null || cursor.isBlank() ? page : keyset.pageNumber(cursor);
+        CursorPageDTO.CursorPageDTOBuilder<ProductDTO> result = CursorPageDTO.<ProductDTO>builder()
+                .content(products.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .number(number)
+                .size(size)
+                .numberOfElements(products.size())
+                .hasNext(window.hasNext())
+                .nextCursor(window.hasNext() && !products.isEmpty()
+                        ? keyset.cursorAfter(products.get(products.size() - 1), number + 1)
+                        : null);
+        if (counter != null) {
+            long total = counter.getAsLong();
+            result.totalElements(total)
+                    .totalPages((int) ((total + size - 1) / size));
+        }
+        return result.build();
     }
 
     // Mappers
@@ -0,0 +1,184 @@
+package com.ghali.ecommerce.product.service;
+
+import com.ghali.ecommerce.common.sequence.BlockSequenceAllocator;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registre des décréments de stock, regroupés par segment (striped)
+ *
+ * Chaque décrément est mis en file dans le segment de son produit. Le premier thread
+ * qui obtient le verrou du segment écrit toute la file en une transaction : un seul
+ * UPDATE conditionnel par produit pour la somme demandée, puis, si le stock ne la
+ * couvre pas, les demandes une à une dans l'ordre d'arrivée. Les threads arrivés
+ * pendant cette écriture forment le lot suivant.
+ *
+ * Une réservation n'est confirmée à l'appelant qu'après le commit : un arrêt brutal
+ * ne perd que des demandes encore sans réponse, jamais du stock. Les écritures passent
+ * par un pool dédié (une connexion par segment) : l'appelant détient déjà une connexion
+ * du pool applicatif (transaction en cours).
+ */
+@Component
+@Slf4j
+public class StockReservationLedger {
+
+    private static final String DECREASE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final Stripe[] stripes;
+
+    @Autowired
+    public StockReservationLedger(DataSourceProperties dataSourceProperties,
+                                  @Value("${products.stock.ledger.stripes:8}") int stripes) {
+        this(pool(dataSourceProperties, stripes), stripes);
+    }
+
+    /**
+     * @param dataSource connexions dédiées aux écritures (au moins une par segment)
+     * @param stripes    nombre de segments
+     */
+    public StockReservationLedger(DataSource dataSource, int stripes) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.flushTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Décrémente le stock d'un produit, une fois le lot qui contient la demande commité
+     *
+     * @return false si le stock disponible est insuffisant (ou le produit inconnu)
+     */
+    public boolean reserve(Long productId, int quantity) {
+        Stripe stripe = stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+        Reservation reservation = new Reservation(productId, quantity);
+        stripe.queue.add(reservation);
+
+        stripe.lock.lock();
+        try {
+            // Déjà écrite par le thread qui tenait le verrou
+            if (!reservation.done) {
+                flush(stripe);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (reservation.failure != null) {
+            throw reservation.failure;
+        }
+        return reservation.granted;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to close stock ledger connections: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Écrit toutes les demandes en file du segment (appelé sous le verrou du segment)
+     */
+    private void flush(Stripe stripe) {
+        List<Reservation> batch = new ArrayList<>();
+        for (Reservation reservation; (reservation = stripe.queue.poll()) != null; ) {
+            batch.add(reservation);
+        }
+
+        // Par ID croissant : deux segments verrouillent les lignes dans le même ordre
+        TreeMap<Long, List<Reservation>> byProduct = new TreeMap<>();
+        for (Reservation reservation : batch) {
+            byProduct.computeIfAbsent(reservation.productId, k -> new ArrayList<>()).add(reservation);
+        }
+
+        try {
+            flushTransaction.executeWithoutResult(status -> decrease(byProduct));
+        } catch (RuntimeException e) {
+            // Rien n'est commité : chaque demande du lot reçoit l'erreur
+            log.error("❌ Failed to write {} stock reservations: {}", batch.size(), e.getMessage());
+            for (Reservation reservation : batch) {
+                reservation.granted = false;
+                reservation.failure = e;
+            }
+        }
+        batch.forEach(reservation -> reservation.done = true);
+    }
+
+    private void decrease(TreeMap<Long, List<Reservation>> byProduct) {
+        List<Object[]> batchArgs = new ArrayList<>(byProduct.size());
+        for (Map.Entry<Long, List<Reservation>> entry : byProduct.entrySet()) {
+            int total = entry.getValue().stream().mapToInt(reservation -> reservation.quantity).sum();
+            batchArgs.add(new Object[]{total, entry.getKey(), total});
+        }
+        int[] results = jdbcTemplate.batchUpdate(DECREASE_SQL, batchArgs);
+
+        int index = 0;
+        for (List<Reservation> reservations : byProduct.values()) {
+            if (results[index++] > 0) {
+                reservations.forEach(reservation -> reservation.granted = true);
+            } else {
+                // Stock insuffisant pour tout le lot : on sert dans l'ordre d'arrivée
+                for (Reservation reservation : reservations) {
+                    reservation.granted = jdbcTemplate.update(DECREASE_SQL,
+                            reservation.quantity, reservation.productId, reservation.quantity) > 0;
+                }
+            }
+        }
+    }
+
+    private static HikariDataSource pool(DataSourceProperties dataSourceProperties, int stripes) {
+        HikariDataSource dataSource =
+                BlockSequenceAllocator.dedicatedDataSource(dataSourceProperties, "stock-ledger");
+        dataSource.setMaximumPoolSize(stripes);
+        return dataSource;
+    }
+
+    private static final class Stripe {
+        private final Queue<Reservation> queue = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock lock = new ReentrantLock();
+    }
+
+    /**
+     * Demande en file ; ses champs sont écrits et relus sous le verrou du segment
+     */
+    private static final class Reservation {
+        private final Long productId;
+        private final int quantity;
+        private boolean done;
+        private boolean granted;
+        private RuntimeException failure;
+
+        private Reservation(Long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.ghali.ecommerce.product.service;
+
+import com.ghali.ecommerce.common.dto.StockReservationDTO;
+import com.ghali.ecommerce.common.dto.StockReservationItemDTO;
+import com.ghali.ecommerce.product.cache.ProductCache;
+import com.ghali.ecommerce.product.model.StockReservation;
+import com.ghali.ecommerce.product.model.StockReservationItem;
+import com.ghali.ecommerce.product.repository.ProductRepository;
+import com.ghali.ecommerce.product.repository.StockReservationRepository;
+import com.ghali.ecommerce.product.search.ProductIndexSync;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Réservations de stock multi-produits pour le checkout
+ *
+ * Une commande de N articles réserve tout son stock en un seul appel :
+ * un batch JDBC de décréments conditionnels, exécutés par ID de produit croissant
+ * pour que deux checkouts concurrents verrouillent les lignes dans le même ordre
+ * (pas de deadlock). Si un seul article manque, toute la transaction est annulée.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final String DECREASE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String INCREASE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCache productCache;
+    private final ProductIndexSync productIndexSync;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${products.stock.reservation-ttl-minutes:15}")
+    private long reservationTtlMinutes;
+
+    /**
+     * Réserve atomiquement le stock de tous les articles
+     */
+    @Transactional
+    public StockReservationDTO reserve(List<StockReservationItemDTO> items) {
+        // Regrouper les doublons et trier par ID (ordre de verrouillage)
+        TreeMap<Long, Integer> quantities = items.stream()
+                .collect(Collectors.toMap(StockReservationItemDTO::getProductId,
+                        StockReservationItemDTO::getQuantity, Integer::sum, TreeMap::new));
+        log.info("📊 Reserving stock for {} products", quantities.size());
+
+        List<Object[]> batchArgs = quantities.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey(), e.getValue()})
+                .collect(Collectors.toList());
+        int[][] results = jdbcTemplate.batchUpdate(DECREASE_SQL, batchArgs, batchArgs.size(),
+                (ps, args) -> {
+                    ps.setInt(1, (Integer) args[0]);
+                    ps.setLong(2, (Long) args[1]);
+                    ps.setInt(3, (Integer) args[2]);
+                });
+
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (results[0][index++] == 0) {
+                Long productId = entry.getKey();
+                if (!productRepository.existsById(productId)) {
+                    throw new RuntimeException("Product not found with ID: " + productId);
+                }
+                throw new IllegalStateException("Stock insuffisant pour le produit ID: " + productId);
+            }
+        }
+
+        StockReservation reservation = StockReservation.builder()
+                .reservationId(UUID.randomUUID().toString())
+                .items(quantities.entrySet().stream()
+                        .map(e -> StockReservationItem.builder()
+                                .productId(e.getKey())
+                                .quantity(e.getValue())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+        StockReservation savedReservation = reservationRepository.save(reservation);
+
+        productCache.invalidateAll(quantities.keySet());
+        productIndexSync.stockChanged(quantities.keySet());
+        log.info("✅ Stock reserved: {}", savedReservation.getReservationId());
+        return mapToDTO(savedReservation);
+    }
+
+    /**
+     * Confirme la réservation : le stock déjà décrémenté est définitivement consommé
+     */
+    @Transactional
+    public StockReservationDTO commit(String reservationId) {
+        log.info("✅ Committing stock reservation: {}", reservationId);
+        StockReservation reservation = getPendingReservation(reservationId);
+        reservation.setStatus(StockReservationDTO.ReservationStatus.COMMITTED);
+        return mapToDTO(reservationRepository.save(reservation));
+    }
+
+    /**
+     * Annule la réservation et restitue le stock
+     */
+    @Transactional
+    public StockReservationDTO release(String reservationId) {
+        log.info("↩️ Releasing stock reservation: {}", reservationId);
+        StockReservation reservation = getPendingReservation(reservationId);
+
+        List<Object[]> batchArgs = reservation.getItems().stream()
+                .sorted(Comparator.comparing(StockReservationItem::getProductId))
+                .map(item -> new Object[]{item.getQuantity(), item.getProductId()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INCREASE_SQL, batchArgs);
+
+        reservation.setStatus(StockReservationDTO.ReservationStatus.RELEASED);
+        StockReservation releasedReservation = reservationRepository.save(reservation);
+
+        List<Long> productIds = reservation.getItems().stream()
+                .map(StockReservationItem::getProductId)
+                .collect(Collectors.toList());
+        productCache.invalidateAll(productIds);
+        productIndexSync.stockChanged(productIds);
+        return mapToDTO(releasedReservation);
+    }
+
+    /**
+     * Restitue le stock des réservations jamais confirmées (checkout abandonné)
+     */
+    @Scheduled(fixedDelayString = "${products.stock.reservation-sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(reservationTtlMinutes);
+        List<String> expired = reservationRepository.findReservationIdsCreatedBefore(
+                StockReservationDTO.ReservationStatus.PENDING, before);
+
+        for (String reservationId : expired) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> release(reservationId));
+            } catch (RuntimeException e) {
+                // Déjà confirmée ou libérée entre-temps
+                log.debug("Skipping expired reservation {}: {}", reservationId, e.getMessage());
+            }
+        }
+    }
+
+    private StockReservation getPendingReservation(String reservationId) {
+        StockReservation reservation = reservationRepository.findForUpdate(reservationId)
+                .orElseThrow(() -> new RuntimeException("Stock reservation not found: " + reservationId));
+        if (!reservation.isPending()) {
+            throw new IllegalStateException("Stock reservation " + reservationId
+                    + " is already " + reservation.getStatus());
+        }
+        return reservation;
+    }
+
+    private StockReservationDTO mapToDTO(StockReservation reservation) {
+        return StockReservationDTO.builder()
+                .reservationId(reservation.getReservationId())
+                .status(reservation.getStatus())
+                .items(reservation.getItems().stream()
+                        .map(item -> StockReservationItemDTO.builder()
+                                .productId(item.getProductId())
+                                .quantity(item.getQuantity())
+                                .build())
+                        .collect(Collectors.toList()))
+                .createdAt(reservation.getCreatedAt())
+                .updatedAt(reservation.getUpdatedAt())
+                .build();
+    }
+}
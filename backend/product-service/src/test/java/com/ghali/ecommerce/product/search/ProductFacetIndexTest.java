@@ -0,0 +1,93 @@
+package com.ghali.ecommerce.product.search;
+
+import com.ghali.ecommerce.common.dto.ProductFacetsDTO;
+import com.ghali.ecommerce.product.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comptes des facettes : chaque facette est comptée sur les produits passant
+ * les autres filtres (sélection multiple dans une même facette)
+ */
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex(null);
+        ReflectionTestUtils.setField(index, "priceBounds", new double[]{0, 50, 100});
+        ReflectionTestUtils.invokeMethod(index, "init");
+
+        ProductFacetIndex.Builder builder = index.builder();
+        builder.add(product(1, "livres", "10", 4.5, 3, "poche", "roman"));
+        builder.add(product(2, "livres", "60", 3.2, 0, "roman"));
+        builder.add(product(3, "jeux", "120", 4.9, 7, "famille"));
+        builder.add(product(4, "jeux", "40", null, 2, "famille", "poche"));
+        index.replace(builder);
+    }
+
+    @Test
+    void countsEveryFacetWithoutFilters() {
+        ProductFacetsDTO facets = index.facets(new ProductFacetQuery());
+
+        assertThat(facets.getTotal()).isEqualTo(4);
+        assertThat(facets.getCategories()).containsExactly(Map.entry("jeux", 2L), Map.entry("livres", 2L));
+        assertThat(facets.getPriceRanges()).extracting(ProductFacetsDTO.PriceRange::getCount)
+                .containsExactly(2L, 1L, 1L);
+        assertThat(facets.getMinRatings()).containsEntry(5, 0L).containsEntry(4, 2L).containsEntry(3, 3L)
+                .containsEntry(1, 3L);
+        assertThat(facets.getInStock()).isEqualTo(3);
+        assertThat(facets.getTags()).containsExactly(
+                Map.entry("famille", 2L), Map.entry("poche", 2L), Map.entry("roman", 2L));
+    }
+
+    @Test
+    void filteredFacetIsCountedOnTheOtherFiltersOnly() {
+        ProductFacetsDTO facets = index.facets(ProductFacetQuery.builder()
+                .category("livres")
+                .inStock(true)
+                .build());
+
+        assertThat(facets.getTotal()).isEqualTo(1);
+        // Catégories : filtre "en stock" seul
+        assertThat(facets.getCategories()).containsExactly(Map.entry("jeux", 2L), Map.entry("livres", 1L));
+        // En stock : filtre de catégorie seul
+        assertThat(facets.getInStock()).isEqualTo(1);
+        assertThat(facets.getTags()).containsExactly(Map.entry("poche", 1L), Map.entry("roman", 1L));
+        assertThat(facets.getPriceRanges()).extracting(ProductFacetsDTO.PriceRange::getCount)
+                .containsExactly(1L, 0L, 0L);
+    }
+
+    @Test
+    void removedProductsAreNoLongerCounted() {
+        index.remove(3L);
+
+        ProductFacetsDTO facets = index.facets(ProductFacetQuery.builder().tags(List.of("famille")).build());
+
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getCategories()).containsExactly(Map.entry("jeux", 1L));
+        assertThat(facets.getMinRatings()).containsEntry(1, 0L);
+    }
+
+    private static Product product(long id, String category, String price, Double rating, int stock,
+                                   String... tags) {
+        return Product.builder()
+                .id(id)
+                .sku("SKU-" + id)
+                .name("Produit " + id)
+                .category(category)
+                .price(new BigDecimal(price))
+                .rating(rating)
+                .stockQuantity(stock)
+                .tags(List.of(tags))
+                .build();
+    }
+}
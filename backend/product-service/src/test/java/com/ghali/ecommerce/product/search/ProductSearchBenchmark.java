@@ -0,0 +1,138 @@
+package com.ghali.ecommerce.product.search;
+
+import com.ghali.ecommerce.product.model.Product;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Première page d'une recherche : index BM25 en mémoire (tas borné) contre la requête
+ * LIKE '%kw%' de ProductRepository.searchByKeyword (page + COUNT, comme Spring Data)
+ *
+ * La requête LIKE tourne sur H2 en mémoire : sans latence réseau ni E/S disque,
+ * l'écart mesuré est donc un minorant de celui observé sur MySQL.
+ *
+ * mvn -Pbenchmark -pl backend/product-service verify -Djmh.include=ProductSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int VOCABULARY = 2000;
+
+    // Traduction SQL de searchByKeyword (Hibernate) : page puis total
+    private static final String LIKE_CONDITION = "FROM products p WHERE p.active = TRUE AND "
+            + "(LOWER(p.name) LIKE LOWER('%' || ? || '%') OR LOWER(p.description) LIKE LOWER('%' || ? || '%'))";
+    private static final String LIKE_PAGE_SQL = "SELECT p.id, p.name, p.description, p.price " + LIKE_CONDITION
+            + " OFFSET 0 ROWS FETCH FIRST " + PAGE_SIZE + " ROWS ONLY";
+    private static final String LIKE_COUNT_SQL = "SELECT COUNT(p.id) " + LIKE_CONDITION;
+
+    @Param({"10000", "100000"})
+    public int products;
+
+    // Mot fréquent (beaucoup de correspondances à classer) ou rare
+    @Param({"common", "rare"})
+    public String keyword;
+
+    private ProductSearchIndex index;
+    private JdbcTemplate jdbcTemplate;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new ProductSearchIndex();
+        ProductSearchIndex.Builder builder = index.builder();
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:search-" + products + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(200), "
+                + "description VARCHAR(4000), price DECIMAL(10, 2), active BOOLEAN)");
+
+        List<Object[]> rows = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            Product product = Product.builder()
+                    .id(id)
+                    .sku("SKU-" + id)
+                    .name(words(random, 3))
+                    .description(words(random, 25))
+                    .category("categorie" + random.nextInt(20))
+                    .price(BigDecimal.TEN)
+                    .stockQuantity(10)
+                    .tags(List.of(word(random), word(random)))
+                    .build();
+            builder.add(product);
+            rows.add(new Object[]{id, product.getName(), product.getDescription(), product.getPrice(), true});
+        }
+        index.replace(builder);
+        jdbcTemplate.batchUpdate("INSERT INTO products VALUES (?, ?, ?, ?, ?)", rows);
+
+        // Distribution biaisée (voir word) : les petits rangs sont fréquents
+        query = "common".equals(keyword) ? word(0) : word(VOCABULARY - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE products");
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits index() {
+        return index.search(query, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void likeQuery(Blackhole blackhole) {
+        blackhole.consume(jdbcTemplate.queryForList(LIKE_PAGE_SQL, query, query));
+        blackhole.consume(jdbcTemplate.queryForObject(LIKE_COUNT_SQL, Long.class, query, query));
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word(random));
+        }
+        return text.toString();
+    }
+
+    // Rang tiré au carré : quelques mots très fréquents, une longue traîne de mots rares
+    private static String word(Random random) {
+        double u = random.nextDouble();
+        return word((int) (u * u * VOCABULARY));
+    }
+
+    // Suffixe final : aucun mot n'est préfixe ni sous-chaîne d'un autre, LIKE et index
+    // trouvent donc les mêmes produits
+    private static String word(int rank) {
+        return "mot" + rank + "z";
+    }
+}
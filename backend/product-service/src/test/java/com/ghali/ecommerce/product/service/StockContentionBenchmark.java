@@ -0,0 +1,110 @@
+package com.ghali.ecommerce.product.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 500 threads décrémentent le stock d'un même produit : registre (un UPDATE par lot
+ * et par segment) contre un UPDATE conditionnel par demande sur un pool de 10 connexions
+ * (taille par défaut du pool applicatif). Après chaque itération, le stock restant doit
+ * valoir exactement le stock initial moins les unités accordées (aucune survente).
+ *
+ * Base H2 en mémoire : sans aller-retour réseau, le coût de chaque UPDATE (et donc
+ * le gain du regroupement) est sous-estimé.
+ *
+ * mvn -Pbenchmark -pl backend/product-service verify -Djmh.include=StockContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(500)
+@Fork(1)
+public class StockContentionBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int INITIAL_STOCK = 100_000_000;
+    private static final String DECREASE_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+
+    private HikariDataSource applicationPool;
+    private HikariDataSource ledgerPool;
+    private JdbcTemplate jdbcTemplate;
+    private StockReservationLedger ledger;
+
+    private final AtomicLong granted = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        applicationPool = pool("application", 10);
+        ledgerPool = pool("stock-ledger", 8);
+        jdbcTemplate = new JdbcTemplate(applicationPool);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, stock_quantity INT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO products VALUES (?, ?)", PRODUCT_ID, INITIAL_STOCK);
+        ledger = new StockReservationLedger(ledgerPool, 8);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        jdbcTemplate.update("UPDATE products SET stock_quantity = ? WHERE id = ?", INITIAL_STOCK, PRODUCT_ID);
+        granted.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkNoOversell() {
+        int stock = jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?",
+                Integer.class, PRODUCT_ID);
+        if (stock < 0 || stock != INITIAL_STOCK - granted.get()) {
+            throw new IllegalStateException("Stock " + stock + " after granting " + granted.get() + " units");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE products");
+        ledger.close();
+        applicationPool.close();
+    }
+
+    @Benchmark
+    public boolean ledger() {
+        return count(ledger.reserve(PRODUCT_ID, 1));
+    }
+
+    @Benchmark
+    public boolean conditionalUpdate() {
+        return count(jdbcTemplate.update(DECREASE_SQL, 1, PRODUCT_ID, 1) > 0);
+    }
+
+    private boolean count(boolean reserved) {
+        if (reserved) {
+            granted.incrementAndGet();
+        }
+        return reserved;
+    }
+
+    private static HikariDataSource pool(String name, int size) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:stock-contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        dataSource.setMaximumPoolSize(size);
+        return dataSource;
+    }
+}
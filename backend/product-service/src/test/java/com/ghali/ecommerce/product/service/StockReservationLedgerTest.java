@@ -0,0 +1,100 @@
+package com.ghali.ecommerce.product.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registre de stock : 500 threads sur un même produit, jamais de survente
+ */
+class StockReservationLedgerTest {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int THREADS = 500;
+    private static final int STOCK = 300;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockReservationLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:stock-ledger;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, stock_quantity INT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO products VALUES (?, ?)", PRODUCT_ID, STOCK);
+        ledger = new StockReservationLedger(dataSource, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE products");
+    }
+
+    @Test
+    void contendedReservationsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    return ledger.reserve(PRODUCT_ID, 1);
+                });
+            }
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Callable<Boolean> task : tasks) {
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+
+            int granted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    granted++;
+                }
+            }
+
+            assertThat(granted).isEqualTo(STOCK);
+            assertThat(stock()).isZero();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void refusesOnlyTheRequestsThatNoLongerFit() {
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 5 WHERE id = ?", PRODUCT_ID);
+
+        assertThat(ledger.reserve(PRODUCT_ID, 3)).isTrue();
+        assertThat(ledger.reserve(PRODUCT_ID, 3)).isFalse();
+        assertThat(ledger.reserve(PRODUCT_ID, 2)).isTrue();
+        assertThat(stock()).isZero();
+    }
+
+    @Test
+    void unknownProductIsNotReserved() {
+        assertThat(ledger.reserve(42L, 1)).isFalse();
+        assertThat(stock()).isEqualTo(STOCK);
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?",
+                Integer.class, PRODUCT_ID);
+    }
+}
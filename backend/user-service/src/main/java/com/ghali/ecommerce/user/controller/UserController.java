@@ -5,6 +5,7 @@ import com.ghali.ecommerce.user.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -69,9 +70,13 @@ public class UserController {
      * Rechercher des utilisateurs (ADMIN)
      */
     @GetMapping("/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String keyword) {
-        log.info("🔍 GET /api/users/search?keyword={}", keyword);
-        List<User> users = userService.searchUsers(keyword);
+    public ResponseEntity<Page<User>> searchUsers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        log.info("🔍 GET /api/users/search?keyword={}&page={}&size={}", keyword, page, size);
+        Page<User> users = userService.searchUsers(keyword, Math.max(page, 0), Math.max(1, Math.min(size, 100)));
         return ResponseEntity.ok(users);
     }
 
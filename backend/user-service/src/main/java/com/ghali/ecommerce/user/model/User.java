@@ -22,7 +22,8 @@ import java.util.Set;
 @Table(name = "users", indexes = {
     @Index(name = "idx_keycloak_id", columnList = "keycloak_id", unique = true),
     @Index(name = "idx_email", columnList = "email", unique = true),
-    @Index(name = "idx_username", columnList = "username", unique = true)
+    @Index(name = "idx_username", columnList = "username", unique = true),
+    @Index(name = "idx_updated_at", columnList = "updated_at")
 })
 @Data
 @Builder
@@ -22,10 +22,4 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r = :role")
     List<User> findByRole(@Param("role") User.UserRole role);
-
-    @Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-           "OR LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-           "OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
-           "OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<User> searchUsers(@Param("keyword") String keyword);
 }
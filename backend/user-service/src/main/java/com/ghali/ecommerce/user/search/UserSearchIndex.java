@@ -0,0 +1,64 @@
+package com.ghali.ecommerce.user.search;
+
+import com.ghali.ecommerce.common.search.SearchHits;
+import com.ghali.ecommerce.common.search.TableSearchIndex;
+import com.ghali.ecommerce.user.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Index de recherche des utilisateurs (username, email, nom complet) pour la recherche ADMIN
+ * Chargement, relecture périodique et mise à jour après commit : TableSearchIndex
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final String SELECT_ALL_SQL = "SELECT id, username, first_name, last_name, email, updated_at FROM users";
+
+    private final TableSearchIndex index;
+
+    public UserSearchIndex(DataSource dataSource,
+                           @Value("${users.search.max-results:1000}") int maxResults,
+                           @Value("${users.search.refresh-overlap-seconds:60}") long refreshOverlapSeconds) {
+        this.index = new TableSearchIndex("users", dataSource, SELECT_ALL_SQL,
+                rs -> new String[]{
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        TableSearchIndex.fullName(rs.getString("first_name"), rs.getString("last_name"))},
+                maxResults, refreshOverlapSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        index.load();
+    }
+
+    /**
+     * Relit les utilisateurs modifiés depuis la dernière synchronisation
+     */
+    @Scheduled(fixedDelayString = "${users.search.refresh-interval-ms:30000}",
+            initialDelayString = "${users.search.refresh-interval-ms:30000}")
+    public void refresh() {
+        index.refresh();
+    }
+
+    /**
+     * Indexe un utilisateur après le commit de la transaction en cours
+     */
+    public void index(User user) {
+        index.put(user.getId(), user.getUsername(), user.getEmail(),
+                TableSearchIndex.fullName(user.getFirstName(), user.getLastName()));
+    }
+
+    /**
+     * IDs des utilisateurs correspondant au mot-clé, du plus pertinent au moins pertinent
+     */
+    public SearchHits search(String keyword, int page, int size) {
+        return index.search(keyword, page, size);
+    }
+}
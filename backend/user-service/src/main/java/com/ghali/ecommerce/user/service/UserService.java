@@ -1,14 +1,23 @@
 package com.ghali.ecommerce.user.service;
 
+import com.ghali.ecommerce.common.search.SearchHits;
 import com.ghali.ecommerce.user.model.User;
 import com.ghali.ecommerce.user.repository.UserRepository;
+import com.ghali.ecommerce.user.search.UserSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service de gestion des utilisateurs (Admin, Vendor)
@@ -19,6 +28,7 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserSearchIndex userSearchIndex;
 
     public User getUserByKeycloakId(String keycloakId) {
         log.info("👤 Fetching user by Keycloak ID: {}", keycloakId);
@@ -48,9 +58,19 @@ public class UserService {
         return userRepository.findByRole(role);
     }
 
-    public List<User> searchUsers(String keyword) {
+    /**
+     * Recherche par sous-chaîne dans le username, l'email et le nom (index en mémoire), page par page
+     */
+    public Page<User> searchUsers(String keyword, int page, int size) {
         log.info("🔍 Searching users with keyword: {}", keyword);
-        return userRepository.searchUsers(keyword);
+        SearchHits hits = userSearchIndex.search(keyword, page, size);
+        Map<Long, User> users = userRepository.findAllById(hits.ids()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> content = hits.ids().stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, PageRequest.of(page, size), hits.totalMatches());
     }
 
     @Transactional
@@ -66,6 +86,7 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        userSearchIndex.index(savedUser);
         log.info("✅ User created: {} with roles: {}", savedUser.getUsername(), savedUser.getRoles());
         return savedUser;
     }
@@ -99,6 +120,7 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+        userSearchIndex.index(updatedUser);
         log.info("✅ User updated: {}", updatedUser.getUsername());
         return updatedUser;
     }
@@ -16,15 +16,20 @@ export interface Product {
     updatedAt?: Date;
 }
 
+// Listes (/api/products, /category, /price-range) : page par curseur, totaux sur la première page
+// uniquement ; recherche (/search) : page Spring classique
 export interface ProductPage {
     content: Product[];
-    totalElements: number;
-    totalPages: number;
+    totalElements?: number;
+    totalPages?: number;
     size: number;
     number: number;
-    first: boolean;
-    last: boolean;
-    empty: boolean;
+    numberOfElements?: number;
+    hasNext?: boolean;
+    nextCursor?: string | null;
+    first?: boolean;
+    last?: boolean;
+    empty?: boolean;
 }
 
 // Order Models
@@ -222,4 +227,5 @@ export interface ProductFilterOptions {
     sortDir?: SortDirection;
     page?: number;
     size?: number;
+    cursor?: string;
 }
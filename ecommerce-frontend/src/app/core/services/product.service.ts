@@ -19,11 +19,10 @@ export class ProductService {
         page: number = 0,
         size: number = 20,
         sortBy: string = 'id',
-        sortDir: SortDirection = 'ASC'
+        sortDir: SortDirection = 'ASC',
+        cursor?: string
     ): Observable<ProductPage> {
-        const params = new HttpParams()
-            .set('page', page.toString())
-            .set('size', size.toString())
+        const params = this.pageParams(page, size, cursor)
             .set('sortBy', sortBy)
             .set('sortDir', sortDir);
 
@@ -65,10 +64,8 @@ export class ProductService {
     /**
      * Filtrer par catégorie
      */
-    getByCategory(category: string, page: number = 0, size: number = 20): Observable<ProductPage> {
-        const params = new HttpParams()
-            .set('page', page.toString())
-            .set('size', size.toString());
+    getByCategory(category: string, page: number = 0, size: number = 20, cursor?: string): Observable<ProductPage> {
+        const params = this.pageParams(page, size, cursor);
 
         return this.http.get<ProductPage>(`${this.apiUrl}/category/${category}`, { params });
     }
@@ -80,13 +77,12 @@ export class ProductService {
         minPrice: number,
         maxPrice: number,
         page: number = 0,
-        size: number = 20
+        size: number = 20,
+        cursor?: string
     ): Observable<ProductPage> {
-        const params = new HttpParams()
+        const params = this.pageParams(page, size, cursor)
             .set('minPrice', minPrice.toString())
-            .set('maxPrice', maxPrice.toString())
-            .set('page', page.toString())
-            .set('size', size.toString());
+            .set('maxPrice', maxPrice.toString());
 
         return this.http.get<ProductPage>(`${this.apiUrl}/price-range`, { params });
     }
@@ -145,15 +141,24 @@ export class ProductService {
 
         // Si filtrage par catégorie
         if (options.category) {
-            return this.getByCategory(options.category, options.page, options.size);
+            return this.getByCategory(options.category, options.page, options.size, options.cursor);
         }
 
         // Si filtrage par prix
         if (options.minPrice !== undefined && options.maxPrice !== undefined) {
-            return this.getByPriceRange(options.minPrice, options.maxPrice, options.page, options.size);
+            return this.getByPriceRange(options.minPrice, options.maxPrice, options.page, options.size, options.cursor);
         }
 
         // Sinon, récupération standard
-        return this.getAll(options.page, options.size, options.sortBy, options.sortDir);
+        return this.getAll(options.page, options.size, options.sortBy, options.sortDir, options.cursor);
+    }
+
+    /**
+     * Paramètres de pagination des listes : le curseur (nextCursor de la page précédente)
+     * prime sur le numéro de page, qui force un OFFSET côté serveur
+     */
+    private pageParams(page: number = 0, size: number = 20, cursor?: string): HttpParams {
+        const params = new HttpParams().set('size', size.toString());
+        return cursor ? params.set('cursor', cursor) : params.set('page', page.toString());
     }
 }
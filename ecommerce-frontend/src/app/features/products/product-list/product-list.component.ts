@@ -27,14 +27,17 @@ export class ProductListComponent implements OnInit, OnDestroy {
     sortBy = 'name';
     sortDir: 'ASC' | 'DESC' = 'ASC';
 
-    // Pagination
+    // Pagination : les listes avancent par curseur (nextCursor), la recherche par numéro de page
     currentPage = 0;
     totalPages = 0;
     totalElements = 0;
     pageSize = 12;
+    nextCursor: string | null = null;
+    hasNext = false;
 
     // UI State
     isLoading = false;
+    isLoadingMore = false;
     error: string | null = null;
     backendAvailable = true;
 
@@ -77,29 +80,22 @@ export class ProductListComponent implements OnInit, OnDestroy {
     }
 
     /**
-     * Charger les produits depuis le backend
+     * Charger la première page des produits depuis le backend
      */
     loadProducts() {
         this.isLoading = true;
         this.error = null;
+        this.currentPage = 0;
+        this.nextCursor = null;
+        this.hasNext = false;
 
-        const options: ProductFilterOptions = {
-            page: this.currentPage,
-            size: this.pageSize,
-            sortBy: this.sortBy,
-            sortDir: this.sortDir,
-            keyword: this.searchTerm || undefined,
-            category: this.selectedCategory || undefined,
-            minPrice: this.minPrice !== null ? this.minPrice : undefined,
-            maxPrice: this.maxPrice !== null ? this.maxPrice : undefined
-        };
-
-        this.productService.advancedSearch(options).subscribe({
+        this.productService.advancedSearch(this.filterOptions(0)).subscribe({
             next: (response: ProductPage) => {
                 this.products = response.content;
-                this.totalPages = response.totalPages;
-                this.totalElements = response.totalElements;
-                this.currentPage = response.number;
+                this.filteredProducts = this.products;
+                this.totalPages = response.totalPages ?? 0;
+                this.totalElements = response.totalElements ?? this.products.length;
+                this.applyPage(response);
                 this.isLoading = false;
                 this.backendAvailable = true;
 
@@ -122,6 +118,34 @@ export class ProductListComponent implements OnInit, OnDestroy {
         });
     }
 
+    /**
+     * Charger la page suivante à la suite de la liste, par curseur
+     * (les totaux de la première page restent valables)
+     */
+    loadMore() {
+        if (!this.hasNext || this.isLoadingMore) {
+            return;
+        }
+        this.isLoadingMore = true;
+
+        const options = this.filterOptions(this.currentPage + 1);
+        options.cursor = this.nextCursor || undefined;
+
+        this.productService.advancedSearch(options).subscribe({
+            next: (response: ProductPage) => {
+                this.products = [...this.products, ...response.content];
+                this.filteredProducts = this.products;
+                this.applyPage(response);
+                this.isLoadingMore = false;
+            },
+            error: (error) => {
+                console.error('❌ Error loading more products:', error);
+                this.isLoadingMore = false;
+                this.error = 'Impossible de charger plus de produits. Veuillez réessayer.';
+            }
+        });
+    }
+
     /**
      * Charger les catégories
      */
@@ -211,25 +235,6 @@ export class ProductListComponent implements OnInit, OnDestroy {
         this.showNotification(`${product.name} ajouté au panier !`, 'success');
     }
 
-    /**
-     * Navigation pagination
-     */
-    goToPage(page: number) {
-        if (page >= 0 && page < this.totalPages) {
-            this.currentPage = page;
-            this.loadProducts();
-            window.scrollTo({ top: 0, behavior: 'smooth' });
-        }
-    }
-
-    previousPage() {
-        this.goToPage(this.currentPage - 1);
-    }
-
-    nextPage() {
-        this.goToPage(this.currentPage + 1);
-    }
-
     /**
      * Réinitialiser tous les filtres
      */
@@ -244,6 +249,31 @@ export class ProductListComponent implements OnInit, OnDestroy {
         this.loadProducts();
     }
 
+    /**
+     * Filtres courants ; page ne sert qu'à la recherche (les listes suivent le curseur)
+     */
+    private filterOptions(page: number): ProductFilterOptions {
+        return {
+            page,
+            size: this.pageSize,
+            sortBy: this.sortBy,
+            sortDir: this.sortDir,
+            keyword: this.searchTerm || undefined,
+            category: this.selectedCategory || undefined,
+            minPrice: this.minPrice !== null ? this.minPrice : undefined,
+            maxPrice: this.maxPrice !== null ? this.maxPrice : undefined
+        };
+    }
+
+    /**
+     * Position dans la liste après une réponse : numéro de page et curseur suivant
+     */
+    private applyPage(response: ProductPage) {
+        this.currentPage = response.number;
+        this.nextCursor = response.nextCursor ?? null;
+        this.hasNext = response.hasNext ?? (response.last === false);
+    }
+
     /**
      * Afficher une notification
      */